@@ -0,0 +1,207 @@
+// Making the allocation check class
+import java.awt.Color;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Checks that the tick path and the paint path allocate nothing in steady
+ * state, by counting the bytes the current thread allocates around each
+ * tick and each frame. Run it after changing anything a tick or a frame
+ * touches; it exits with status 1 and says where if anything allocates.
+ *
+ * Dens are made between measured ticks, as are the snakes, so only ticks
+ * are counted, and the first tick of each den is left out because snakes
+ * may set up their scratch space on their first move. Before counting, the
+ * den copies the rows it shares with its layout and each snake makes room
+ * for as many segments as the den has cells, so a tick in which a snake
+ * eats and grows must allocate nothing either. Frames repaint one den
+ * and then a snapshot of it, and only the frames after the first few are
+ * counted.
+ *
+ * One tick or frame in STRAY_INTERVAL may allocate, since the JVM allocates
+ * on the thread when it rebuilds objects that compiled code had optimized
+ * away. Code that allocates on purpose does so far more often than that.
+ */
+public class AllocationCheck {
+    /** Ticks and frames run before counting, so the code is compiled */
+    public static final int WARMUP = 20000;
+
+    /** Ticks or frames per stray allocation allowed */
+    public static final int STRAY_INTERVAL = 100000;
+
+    private final com.sun.management.ThreadMXBean threads_;// counts allocation
+    private int failures_;// checks that failed
+
+    /**
+     * Constructor for allocation check
+     */
+    public AllocationCheck() {
+        if((ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean)==false){
+            throw new UnsupportedOperationException("this JVM cannot count allocated bytes");
+        }
+        threads_=(com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+        if(threads_.isThreadAllocatedMemorySupported()==false){
+            throw new UnsupportedOperationException("this JVM cannot count allocated bytes");
+        }
+        threads_.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    /**
+     * getter for the failures
+     * @return is the number of checks that found allocation
+     */
+    public int getFailures() {
+        return failures_;
+    }
+
+    /**
+     * runs dens of snakes and counts what their ticks allocate
+     * @param1 is the name of the snakes, for the report
+     * @param2 is the factory making the snakes
+     * @param3 is the number of snakes per den
+     * @param4 is the number of ticks to count
+     */
+    public void checkTicks(String name, SnakeTournament.Factory factory, int snakes, long ticks) {
+        long total=0;
+        long counted=0;
+        long allocating=0;
+        long worst=0;
+        long seed=1;
+        long ran=0;
+        while(ran<WARMUP+ticks){
+            Den den=new Den(seed++);
+            int placed=0;
+            for(int column=1;column<den.getColumns() && placed<snakes;column+=3){
+                if(den.canPlaceSnake(den.getRows()/2,column,3)){
+                    Snake snake=factory.create(den.getRows()/2,column,Color.RED,3);
+                    snake.reserve(den.getRows()*den.getColumns());
+                    den.addSnakeInDen(snake);
+                    placed++;
+                }
+            }
+            den.copyRows();
+            boolean first=true;
+            while(ran<WARMUP+ticks && living(den)>0){
+                long before=threads_.getCurrentThreadAllocatedBytes();
+                den.tick();
+                long bytes=threads_.getCurrentThreadAllocatedBytes()-before;
+                if(ran>=WARMUP && first==false){
+                    total+=bytes;
+                    counted++;
+                    worst=Math.max(worst,bytes);
+                    if(bytes>0){
+                        allocating++;
+                    }
+                }
+                first=false;
+                ran++;
+            }
+        }
+        report(name+" ticks",total,counted,allocating,worst);
+    }
+
+    /**
+     * paints a den over and over on a canvas without a window, then a
+     * snapshot of it, and counts what the frames allocate
+     * @param1 is the number of frames to count for each
+     */
+    public void checkFrames(long frames) {
+        Den den=new Den(1);
+        den.addSnakeInDen(new WeightedSnake(den.getRows()/2,den.getColumns()/2,Color.RED,3));
+        for(int t=0;t<20;t++){
+            den.tick();
+        }
+        DenSnapshot snapshot=den.snapshot(den.getTickCount());
+        PaintCanvas canvas=new PaintCanvas(Color.LIGHT_GRAY);
+        canvas.setAutoRepaint(false);
+        PaintCanvas previous=Paint.getDefaultCanvas();
+        Paint.setDefaultCanvas(canvas);
+        try{
+            countFrames("frames",frames,() -> {
+                den.paint();
+                for(int s=0;s<den.getSnakeCount();s++){
+                    den.getSnake(s).paint();
+                }
+            });
+            countFrames("snapshot frames",frames,snapshot::paint);
+        } finally{
+            Paint.setDefaultCanvas(previous);
+        }
+    }
+
+    /**
+     * clears the default canvas and paints a frame on it over and over, and
+     * counts what the frames allocate
+     * @param1 is what is painted, for the report
+     * @param2 is the number of frames to count
+     * @param3 is what paints one frame
+     */
+    private void countFrames(String what, long frames, Runnable frame) {
+        long total=0;
+        long allocating=0;
+        long worst=0;
+        for(long f=0;f<WARMUP/10+frames;f++){
+            long before=threads_.getCurrentThreadAllocatedBytes();
+            Paint.clear();
+            frame.run();
+            long bytes=threads_.getCurrentThreadAllocatedBytes()-before;
+            if(f>=WARMUP/10){
+                total+=bytes;
+                worst=Math.max(worst,bytes);
+                if(bytes>0){
+                    allocating++;
+                }
+            }
+        }
+        report(what,total,frames,allocating,worst);
+    }
+
+    /**
+     * prints the result of a check and counts it if it failed
+     * @param1 is what was checked
+     * @param2 is the bytes allocated
+     * @param3 is the number of ticks or frames counted
+     * @param4 is how many of them allocated
+     * @param5 is the most one of them allocated
+     */
+    private void report(String what, long bytes, long count, long allocating, long worst) {
+        if(bytes==0){
+            System.out.printf("ok    %s: %d allocated nothing%n",what,count);
+        }
+        else if(allocating<=Math.max(1,count/STRAY_INTERVAL)){
+            System.out.printf("ok    %s: %d allocated %d bytes in %d stray allocations%n",what,count,bytes,allocating);
+        }
+        else{
+            failures_++;
+            System.out.printf("FAIL  %s: %d of %d allocated, %d bytes in all, %d at worst%n",
+                              what,allocating,count,bytes,worst);
+        }
+    }
+
+    private static int living(Den den) {
+        int living=0;
+        for(int s=0;s<den.getSnakeCount();s++){
+            if(den.getSnake(s).isAlive()){
+                living++;
+            }
+        }
+        return living;
+    }
+
+    /**
+     * runs every check and exits with status 1 if any failed. The argument
+     * is the number of ticks to count, a million by default.
+     */
+    public static void main(String[] args) {
+        if(System.getProperty("java.awt.headless")==null){
+            System.setProperty("java.awt.headless","true");
+        }
+        long ticks=args.length>0 ? Long.parseLong(args[0]) : 1000000;
+        AllocationCheck check=new AllocationCheck();
+        check.checkTicks("WeightedSnake",WeightedSnake::new,4,ticks);
+        check.checkTicks("MctsSnake",(row,column,color,length) -> new MctsSnake(row,column,color,length,50,10),2,ticks/1000);
+        check.checkFrames(ticks/100);
+        if(check.getFailures()>0){
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,190 @@
+import java.awt.*;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Paint backend that counts the calls made to it, by kind, and passes them
+ * on to another backend. It is meant for checking what game code draws, for
+ * example that a den of 30 by 20 cells draws 600 cell images a frame.
+ * Counts may be read from any thread.
+ */
+public class CountingPaintBackend implements PaintBackend {
+  /** Kinds of calls counted */
+  public static final int SET_COLOR = 0, SET_FONT = 1, GET_FONT_METRICS = 2,
+    DRAW_STRING = 3, DRAW_LINE = 4, DRAW_RECT = 5, FILL_RECT = 6,
+    DRAW_OVAL = 7, FILL_OVAL = 8, DRAW_ROUND_RECT = 9, FILL_ROUND_RECT = 10,
+    DRAW_ARC = 11, FILL_ARC = 12, DRAW_POLYGON = 13, FILL_POLYGON = 14,
+    DRAW_TRIANGLE = 15, FILL_TRIANGLE = 16, DRAW_IMAGE = 17, CLEAR = 18,
+    SET_AUTO_REPAINT = 19, PAINT = 20;
+
+  /** Number of kinds of calls */
+  public static final int KINDS = 21;
+
+  /** Backend the calls are passed on to */
+  private final PaintBackend target;
+
+  /** Calls of each kind */
+  private final AtomicLongArray counts = new AtomicLongArray(KINDS);
+
+  /**
+   * CountingPaintBackend constructor that throws the drawing away
+   */
+  public CountingPaintBackend () {
+    this(new NullPaintBackend());
+  }
+
+  /**
+   * CountingPaintBackend constructor
+   *
+   * @param target
+   *          backend to pass the calls on to
+   */
+  public CountingPaintBackend ( PaintBackend target ) {
+    this.target = target;
+  }
+
+  /**
+   * Get the number of calls of a kind
+   *
+   * @param kind
+   *          kind of call, such as DRAW_IMAGE
+   * @return the number of calls since the last reset
+   */
+  public long getCount ( int kind ) {
+    return counts.get(kind);
+  }
+
+  /**
+   * Get the number of shapes, strings and images drawn
+   *
+   * @return the number of calls from DRAW_STRING to DRAW_IMAGE since the
+   *         last reset
+   */
+  public long getDrawCount () {
+    long draws = 0;
+    for ( int kind = DRAW_STRING ; kind <= DRAW_IMAGE ; kind++ )
+      draws += counts.get(kind);
+    return draws;
+  }
+
+  /**
+   * Set every count back to zero
+   */
+  public void reset () {
+    for ( int kind = 0 ; kind < KINDS ; kind++ )
+      counts.set(kind,0);
+  }
+
+  public void setColor ( Color c ) {
+    counts.incrementAndGet(SET_COLOR);
+    target.setColor(c);
+  }
+
+  public void setColor ( int r, int g, int b ) {
+    counts.incrementAndGet(SET_COLOR);
+    target.setColor(r,g,b);
+  }
+
+  public void setFont ( String name, int style, int size ) {
+    counts.incrementAndGet(SET_FONT);
+    target.setFont(name,style,size);
+  }
+
+  public FontMetrics getFontMetrics () {
+    counts.incrementAndGet(GET_FONT_METRICS);
+    return target.getFontMetrics();
+  }
+
+  public void drawString ( String str, int x, int y ) {
+    counts.incrementAndGet(DRAW_STRING);
+    target.drawString(str,x,y);
+  }
+
+  public void drawLine ( int x1, int y1, int x2, int y2 ) {
+    counts.incrementAndGet(DRAW_LINE);
+    target.drawLine(x1,y1,x2,y2);
+  }
+
+  public void drawRect ( int x, int y, int width, int height ) {
+    counts.incrementAndGet(DRAW_RECT);
+    target.drawRect(x,y,width,height);
+  }
+
+  public void fillRect ( int x, int y, int width, int height ) {
+    counts.incrementAndGet(FILL_RECT);
+    target.fillRect(x,y,width,height);
+  }
+
+  public void drawOval ( int x, int y, int width, int height ) {
+    counts.incrementAndGet(DRAW_OVAL);
+    target.drawOval(x,y,width,height);
+  }
+
+  public void fillOval ( int x, int y, int width, int height ) {
+    counts.incrementAndGet(FILL_OVAL);
+    target.fillOval(x,y,width,height);
+  }
+
+  public void drawRoundRect ( int x, int y, int width, int height, int xdiam,
+			      int ydiam ) {
+    counts.incrementAndGet(DRAW_ROUND_RECT);
+    target.drawRoundRect(x,y,width,height,xdiam,ydiam);
+  }
+
+  public void fillRoundRect ( int x, int y, int width, int height, int xdiam,
+			      int ydiam ) {
+    counts.incrementAndGet(FILL_ROUND_RECT);
+    target.fillRoundRect(x,y,width,height,xdiam,ydiam);
+  }
+
+  public void drawArc ( int x, int y, int width, int height, int startAngle,
+			int arcAngle ) {
+    counts.incrementAndGet(DRAW_ARC);
+    target.drawArc(x,y,width,height,startAngle,arcAngle);
+  }
+
+  public void fillArc ( int x, int y, int width, int height, int startAngle,
+			int arcAngle ) {
+    counts.incrementAndGet(FILL_ARC);
+    target.fillArc(x,y,width,height,startAngle,arcAngle);
+  }
+
+  public void drawPolygon ( int[] xPoints, int[] yPoints, int nPoints ) {
+    counts.incrementAndGet(DRAW_POLYGON);
+    target.drawPolygon(xPoints,yPoints,nPoints);
+  }
+
+  public void fillPolygon ( int[] xPoints, int[] yPoints, int nPoints ) {
+    counts.incrementAndGet(FILL_POLYGON);
+    target.fillPolygon(xPoints,yPoints,nPoints);
+  }
+
+  public void drawTriangle ( int x1, int y1, int x2, int y2, int x3, int y3 ) {
+    counts.incrementAndGet(DRAW_TRIANGLE);
+    target.drawTriangle(x1,y1,x2,y2,x3,y3);
+  }
+
+  public void fillTriangle ( int x1, int y1, int x2, int y2, int x3, int y3 ) {
+    counts.incrementAndGet(FILL_TRIANGLE);
+    target.fillTriangle(x1,y1,x2,y2,x3,y3);
+  }
+
+  public void drawImage ( Image image, int x, int y ) {
+    counts.incrementAndGet(DRAW_IMAGE);
+    target.drawImage(image,x,y);
+  }
+
+  public void clear () {
+    counts.incrementAndGet(CLEAR);
+    target.clear();
+  }
+
+  public boolean setAutoRepaint ( boolean auto ) {
+    counts.incrementAndGet(SET_AUTO_REPAINT);
+    return target.setAutoRepaint(auto);
+  }
+
+  public void paint () {
+    counts.incrementAndGet(PAINT);
+    target.paint();
+  }
+}
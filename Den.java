@@ -1,54 +1,149 @@
 //Raja Hammad Mehmood
 //Making the den class
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
 import java.util.Scanner;
 import java.awt.*;
 import java.awt.event.*;
 import javax.swing.*;
      
  public class Den {
+    private static final Color DIRT_COLOR=new Color(153,76,0);// color of dirt cells
+    
+    /** Distance distanceField gives cells it cannot reach, rocks included */
+    public static final int UNREACHED = 1 << 30;
+    
+    static final DenBulk BULK=DenBulk.load();// full grid passes, on vectors if they load
+    
+    /**
+     * Is told about changes to a den as they happen, on the thread that
+     * changes the den
+     */
+    public interface Listener {
+        /** a cell now has this content (1 dirt, 2 rock, 3 food) */
+        void cellChanged(int row, int column, int content);
+
+        /** the head of a snake arrived on a cell */
+        void snakeMoved(Snake snake, int row, int column);
+
+        /** a snake died, freeing its cells */
+        void snakeDied(Snake snake);
+    }
+    
     private int row_;//row for the snake segmentcolumn for the snake segment
     private int column_;//column for the snake segment
     private int[][] contentsOfDen_;// 2d array for the grid
+    private boolean[] ownRows_;// rows copied from the layout, the rest are shared
+    private DenMapFile map_;// cells of a den kept in a map file, null if on the heap
+    private int[] rowScratch_;// a row read from the map file, made on first use
+    private int[] sweeps_;// per row, sweeps when it last got lower and pulled from its neighbors
+    private int rows_;// number of rows in the grid
+    private int columns_;// number of columns in the grid
+    private Snake[] snakes_;// snakes living in the den
+    private int snakeCount_;// number of snakes in the den
+    private Random random_;// where new rocks and food are put
+    private long hash_;// zobrist hash of the rocks and food
+    private long layoutHash_;// zobrist hash of the rocks alone
+    private long ticks_;// ticks run so far
+    private DenChangeLog changeLog_;// records each tick's changes, may be null
+    private ByteBuffer lastChanges_;// record of the last tick, may be null
+    private boolean timePhases_;// whether tick() times its two phases
+    private long lastDecideNanos_;// time spent in getNextMove in the last tick
+    private long lastCommitNanos_;// time spent moving snakes in the last tick
+    private DenReachability reachability_;// made on first use, may be null
+    private PathCache pathCache_;// made on first use, may be null
+    private Listener[] listeners_;// told about every change
+    private int listenerCount_;// number of listeners
     
      public Den(){ //constructor for den
-        contentsOfDen_=new int [30][20];
-        for(int count=0;count<30;count++){
-         for (int i=0;i<20;i++){
-            contentsOfDen_[count][i]=1; //setting all of them to dirt. Later the first layer would be overwritten by the rocks
-            }  
-        }
-        
-         for(int count=0;count<30;count++){ // rocks top layer
-         for (int i=0;i<20;i=i+19){
-            contentsOfDen_[count][i]=2; 
-            }  
-        }
-        
-        for(int count=0;count<30;count=count+29){ //rocks side layer
-         for (int i=0;i<20;i++){
-            contentsOfDen_[count][i]=2; 
-            }  
-        }
-        
-        for(int count=0;count<20;){ // random rocks 
-         int x=(int)(Math.random()*29)+1;
-         int y=(int)(Math.random()*19)+1;
-            if ( contentsOfDen_[x][y]!=2 ){
-            contentsOfDen_[x][y]=2;
-            count++;
-            }
+        this(30,20,new Random().nextLong());
+     }
+     
+     /**
+     * Constructor for a 30 by 20 den whose rocks and food come from a seed.
+     * Dens built with the same seed are identical and stay identical as long
+     * as the same snakes make the same moves.
+     * @param1 is the seed
+     */
+     public Den(long seed){
+        this(30,20,seed);
+     }
+     
+     /**
+     * Constructor for a den of any size. There is one random rock and one
+     * piece of food for every 30 cells, which is 20 of each on the 30 by 20 den.
+     * @param1 is the number of rows
+     * @param2 is the number of columns
+     * @param3 is the seed
+     */
+     public Den(int rows, int columns, long seed){
+        this(DenLayout.build(rows,columns,seed),true);
+     }
+     
+     /**
+     * Constructor for a den with a map made elsewhere, such as by
+     * DenGenerator. The grid is copied.
+     * @param1 is the content of every cell (1 dirt, 2 rock, 3 food), by row
+     * @param2 is the seed for where eaten food comes back
+     */
+     public Den(int[][] contents, long seed){
+        this(DenLayout.of(contents,seed),true);
+     }
+     
+     /**
+     * Constructor for a den that starts from a layout. The den shares the
+     * rows of the layout and copies a row the first time a cell in it
+     * changes, so dens made from a cached layout cost almost nothing.
+     * @param1 is the layout, for example from DenLayout.forSeed
+     */
+     public Den(DenLayout layout){
+        this(layout,false);
+     }
+     
+     /**
+     * Constructor for a den that starts from a layout, taking the rows over
+     * when the layout was built for this den alone and nothing else holds it
+     * @param1 is the layout
+     * @param2 is true if the den owns the rows of the layout
+     */
+     Den(DenLayout layout, boolean owned){
+        rows_=layout.getRows();
+        columns_=layout.getColumns();
+        random_=layout.newRandom();
+        snakes_=new Snake[4];
+        snakeCount_=0;
+        listeners_=new Listener[2];
+        listenerCount_=0;
+        contentsOfDen_=new int[rows_][];
+        for(int row=0;row<rows_;row++){
+            contentsOfDen_[row]=layout.row(row);
         }
-        
-        
-        for(int count=0;count<20;){ // random food
-         int x=(int)(Math.random()*29)+1;
-         int y=(int)(Math.random()*19)+1;
-            if ( contentsOfDen_[x][y]!=2 &&  contentsOfDen_[x][y]!=3){
-            contentsOfDen_[x][y]=3;
-            count++;
-            }
+        ownRows_=new boolean[rows_];
+        if(owned){
+            Arrays.fill(ownRows_,true);
         }
-        
+        hash_=layout.getHash();
+        layoutHash_=layout.getLayoutHash();
+     }
+     
+     /**
+     * Constructor for a den whose cells stay in a memory-mapped map file.
+     * Nothing is read until it is used, so an arena of any size opens at
+     * once. Food drops start from the seed in the file each time it is opened.
+     * @param1 is the map, from DenMapFile.open or DenMapFile.create
+     */
+     public Den(DenMapFile map){
+        rows_=map.getRows();
+        columns_=map.getColumns();
+        random_=new Random(map.getSeed());
+        snakes_=new Snake[4];
+        snakeCount_=0;
+        listeners_=new Listener[2];
+        listenerCount_=0;
+        map_=map;
+        hash_=map.getHash();
+        layoutHash_=map.getLayoutHash();
      }
      
       /**
@@ -56,6 +151,9 @@ import javax.swing.*;
      */
 
     public int getContent(int a, int b) {
+        if(map_!=null){
+            return map_.getContent(a,b);
+        }
         return contentsOfDen_[a][b];
     }
     
@@ -64,7 +162,7 @@ import javax.swing.*;
      */
 
     public boolean withinBound(int row, int column) {
-        if (row>=0 && row<=30 && column >=0 && column<=20){
+        if (row>=0 && row<rows_ && column >=0 && column<columns_){
             return true;
         }
         else{
@@ -73,13 +171,557 @@ import javax.swing.*;
     
     }
     
+    /**
+     * getter for the number of rows
+     * @return is the number of rows
+     */
+    public int getRows() {
+        return rows_;
+    }
+    
+    /**
+     * getter for the number of columns
+     * @return is the number of columns
+     */
+    public int getColumns() {
+        return columns_;
+    }
+    
     
      /**
-     
+     * adds a snake to the den. The snake moves on every tick from now on.
+     * @param1 is the snake
      */
 
-    public void addSnakeInDen() {
-        
+    public void addSnakeInDen(Snake snake) {
+        if(snakeCount_==snakes_.length){
+            Snake[] bigger=new Snake[snakes_.length*2];
+            System.arraycopy(snakes_,0,bigger,0,snakeCount_);
+            snakes_=bigger;
+        }
+        snakes_[snakeCount_++]=snake;
+    }
+    
+    /**
+     * getter for the number of snakes
+     * @return is the number of snakes
+     */
+    public int getSnakeCount() {
+        return snakeCount_;
+    }
+    
+    /**
+     * getter for the ith snake
+     * @return is the ith snake
+     */
+    public Snake getSnake(int i) {
+        return snakes_[i];
+    }
+    
+    /**
+     * checks if any snake has a segment on the cell
+     * @return is true if a segment is there
+     */
+    public boolean isSnakeAt(int row, int column) {
+        for(int s=0;s<snakeCount_;s++){
+            Snake snake=snakes_[s];
+            if(snake.isAlive()==false){
+                continue;
+            }
+            for(int i=0;i<snake.getLength();i++){
+                SnakeSegment segment=snake.getIthSegment(i);
+                if(segment.getRow()==row && segment.getColumn()==column){
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * turns the food on the cell into dirt and drops new food on a random
+     * free cell so the den always has the same amount of food
+     */
+    public void eatFood(int row, int column) {
+        setContent(row,column,1);
+        for(long tries=0;tries<(long)rows_*columns_;tries++){
+            int x=random_.nextInt(rows_-2)+1;
+            int y=random_.nextInt(columns_-2)+1;
+            if(getContent(x,y)==1 && (x!=row || y!=column) && isSnakeAt(x,y)==false){
+                setContent(x,y,3);
+                return;
+            }
+        }
+    }
+    
+    /**
+     * copies every row still shared with the layout, so no later change to
+     * a cell allocates. Does nothing for a den kept in a map file.
+     */
+    void copyRows() {
+        if(map_!=null){
+            return;
+        }
+        for(int row=0;row<rows_;row++){
+            if(ownRows_[row]==false){
+                contentsOfDen_[row]=contentsOfDen_[row].clone();
+                ownRows_[row]=true;
+            }
+        }
+    }
+    
+    /**
+     * changes the content of a cell and keeps the hash up to date
+     */
+    private void setContent(int row, int column, int content) {
+        int old=getContent(row,column);
+        hash_^=Zobrist.key(row,column,old)^Zobrist.key(row,column,content);
+        if((old==2)!=(content==2)){
+            layoutHash_^=Zobrist.key(row,column,2);
+        }
+        if(map_!=null){
+            map_.setContent(row,column,content);
+        }
+        else{
+            if(ownRows_[row]==false){
+                contentsOfDen_[row]=contentsOfDen_[row].clone();
+                ownRows_[row]=true;
+            }
+            contentsOfDen_[row][column]=content;
+        }
+        if(reachability_!=null){
+            reachability_.cellChanged(row,column,content);
+        }
+        if(changeLog_!=null){
+            changeLog_.cellChanged(row,column,content);
+        }
+        for(int i=0;i<listenerCount_;i++){
+            listeners_[i].cellChanged(row,column,content);
+        }
+    }
+    
+    /**
+     * called by a snake after it moved
+     * @param1 is the snake
+     * @param2 is the direction it moved in
+     * @param3 is true if it ate and grew instead of moving its tail
+     */
+    public void snakeMoved(Snake snake, int direction, boolean grew) {
+        if(changeLog_!=null){
+            changeLog_.snakeMoved(indexOf(snake),direction,grew==false);
+        }
+        if(listenerCount_>0){
+            SnakeSegment head=snake.getHeadSegment();
+            for(int i=0;i<listenerCount_;i++){
+                listeners_[i].snakeMoved(snake,head.getRow(),head.getColumn());
+            }
+        }
+    }
+    
+    /**
+     * called by a snake when it dies
+     * @param1 is the snake
+     */
+    public void snakeDied(Snake snake) {
+        if(changeLog_!=null){
+            changeLog_.snakeDied(indexOf(snake));
+        }
+        for(int i=0;i<listenerCount_;i++){
+            listeners_[i].snakeDied(snake);
+        }
+    }
+    
+    /**
+     * adds a listener, told about every change from now on
+     * @param1 is the listener
+     */
+    public void addListener(Listener listener) {
+        if(listenerCount_==listeners_.length){
+            Listener[] bigger=new Listener[listeners_.length*2];
+            System.arraycopy(listeners_,0,bigger,0,listenerCount_);
+            listeners_=bigger;
+        }
+        listeners_[listenerCount_++]=listener;
+    }
+    
+    /**
+     * removes a listener
+     * @param1 is the listener
+     */
+    public void removeListener(Listener listener) {
+        for(int i=0;i<listenerCount_;i++){
+            if(listeners_[i]==listener){
+                System.arraycopy(listeners_,i+1,listeners_,i,listenerCount_-i-1);
+                listeners_[--listenerCount_]=null;
+                return;
+            }
+        }
+    }
+    
+    /**
+     * getter for the path cache of the den, made on first use. Pathfinding
+     * snakes keep their routes in it.
+     * @return is the path cache
+     */
+    public PathCache getPathCache() {
+        if(pathCache_==null){
+            pathCache_=new PathCache(this);
+        }
+        return pathCache_;
+    }
+    
+    /**
+     * finds the index of a snake
+     * @return is the index, or -1 if it is not in the den
+     */
+    public int indexOf(Snake snake) {
+        for(int s=0;s<snakeCount_;s++){
+            if(snakes_[s]==snake){
+                return s;
+            }
+        }
+        return -1;
+    }
+    
+    /**
+     * starts or stops recording the changes of every tick
+     * @param1 is true to record
+     */
+    public void setRecordChanges(boolean record) {
+        changeLog_=record ? new DenChangeLog(columns_) : null;
+        lastChanges_=null;
+    }
+    
+    /**
+     * getter for the changes of the last tick, see DenChangeLog for the format
+     * @return is the encoded record, valid until the next tick, or null if
+     * changes are not being recorded
+     */
+    public ByteBuffer getLastChanges() {
+        return lastChanges_;
+    }
+    
+    /**
+     * starts or stops timing the two phases of every tick: snakes deciding
+     * on a move and the moves being made
+     * @param1 is true to time them
+     */
+    public void setTimePhases(boolean time) {
+        timePhases_=time;
+        lastDecideNanos_=0;
+        lastCommitNanos_=0;
+    }
+    
+    /**
+     * getter for the decide phase of the last tick
+     * @return is the nanoseconds the snakes spent in getNextMove, or 0 if
+     * phases are not being timed
+     */
+    public long getLastDecideNanos() {
+        return lastDecideNanos_;
+    }
+    
+    /**
+     * getter for the commit phase of the last tick
+     * @return is the nanoseconds spent moving the snakes, or 0 if phases are
+     * not being timed
+     */
+    public long getLastCommitNanos() {
+        return lastCommitNanos_;
+    }
+    
+    /**
+     * getter for the number of ticks
+     * @return is the number of ticks run so far
+     */
+    public long getTickCount() {
+        return ticks_;
+    }
+    
+    /**
+     * getter for the zobrist hash of the den: its rocks and food and the
+     * segments and heads of its living snakes. Dens that look the same have
+     * the same hash.
+     * @return is the hash
+     */
+    public long getHash() {
+        long hash=hash_;
+        for(int s=0;s<snakeCount_;s++){
+            if(snakes_[s].isAlive()){
+                hash^=snakes_[s].getHash();
+            }
+        }
+        return hash;
+    }
+    
+    /**
+     * measures, for each direction a snake could move in, how many cells it
+     * could reach from the cell it would move to, going around rocks and the
+     * bodies of living snakes as they are now. A direction with a region
+     * shorter than the snake is likely a trap.
+     * @param1 is the snake
+     * @param2 is an array of at least 4 sizes to fill, indexed by direction;
+     * a direction the snake cannot move in gets 0
+     */
+    public void reachableRegions(Snake snake, int[] sizes) {
+        reachability().regionSizes(this,snake,sizes);
+    }
+    
+    /**
+     * measures the region of free cells reachable from a cell
+     * @param1 is the row
+     * @param2 is the column
+     * @return is the number of cells, or 0 if the cell is not free
+     */
+    public int reachableFrom(int row, int column) {
+        return reachability().regionSize(this,row,column);
+    }
+    
+    /**
+     * counts the cells holding a content
+     * @param1 is the content (1 dirt, 2 rock, 3 food)
+     * @return is the number of cells
+     */
+    public long countContent(int content) {
+        long count=0;
+        for(int row=0;row<rows_;row++){
+            count+=BULK.count(rowCells(row),0,columns_,content);
+        }
+        return count;
+    }
+    
+    /**
+     * finds the first cell holding a content, going along the rows from a
+     * cell. The column may be getColumns(), which starts on the next row.
+     * @param1 is the content (1 dirt, 2 rock, 3 food)
+     * @param2 is the row to start on
+     * @param3 is the column to start on
+     * @return is the cell as row*columns+column, or -1 if there is none
+     */
+    public long findContent(int content, int row, int column) {
+        for(int r=row;r<rows_;r++){
+            int c=BULK.indexOf(rowCells(r),r==row ? column : 0,columns_,content);
+            if(c>=0){
+                return (long)r*columns_+c;
+            }
+        }
+        return -1;
+    }
+    
+    /**
+     * changes every cell holding a content to another, keeping the hashes
+     * up to date and telling the listeners about each cell
+     * @param1 is the content to change (1 dirt, 2 rock, 3 food)
+     * @param2 is the content to change it to
+     * @return is the number of cells changed
+     */
+    public long replaceContent(int content, int replacement) {
+        long replaced=0;
+        for(long cell=findContent(content,0,0);cell>=0;){
+            int row=(int)(cell/columns_);
+            int column=(int)(cell%columns_);
+            setContent(row,column,replacement);
+            replaced++;
+            cell=findContent(content,row,column+1);
+        }
+        return replaced;
+    }
+    
+    /**
+     * fills in the length of the shortest way from a cell to every cell,
+     * around rocks but not snakes, by relaxing the distances of whole rows
+     * against the rows above and below and along each row until none gets
+     * lower. Sweeps go down and up the den in turn, and a row is relaxed
+     * against a neighbor only if the neighbor got lower since the last time,
+     * so most of a sweep skips the rows far from where distances are still
+     * changing. Cells that cannot be reached and rocks get UNREACHED.
+     * @param1 is the row
+     * @param2 is the column
+     * @param3 is the distances to fill, as row*columns+column
+     * @return is the number of cells reached, 0 if the cell is rock
+     */
+    public int distanceField(int row, int column, int[] distances) {
+        if((long)rows_*columns_>distances.length){
+            throw new IllegalArgumentException("a "+rows_+"x"+columns_+" den needs "+(long)rows_*columns_+" distances");
+        }
+        int cells=rows_*columns_;
+        Arrays.fill(distances,0,cells,UNREACHED);
+        if(getContent(row,column)==2){
+            return 0;
+        }
+        distances[row*columns_+column]=0;
+        BULK.scan(distances,row*columns_,rowCells(row),0,columns_);
+        if(sweeps_==null || sweeps_.length<3*rows_){
+            sweeps_=new int[3*rows_];
+        }
+        // per row: sweep it last got lower in, then last pulled from above, from below
+        Arrays.fill(sweeps_,0,3*rows_,-1);
+        sweeps_[3*row]=0;
+        // a row that got lower is pulled from by the next sweep each way
+        int lastChange=0;
+        for(int sweep=1;sweep-lastChange<=2;sweep++){
+            boolean down=(sweep&1)==1;
+            for(int i=1;i<rows_;i++){
+                int r=down ? i : rows_-1-i;
+                int neighbor=down ? r-1 : r+1;
+                int pulled=3*r+(down ? 1 : 2);
+                if(sweeps_[3*neighbor]<=sweeps_[pulled]){
+                    continue;
+                }
+                sweeps_[pulled]=sweep;
+                int[] rowCells=rowCells(r);
+                if(BULK.relax(distances,r*columns_,neighbor*columns_,rowCells,0,columns_)){
+                    BULK.scan(distances,r*columns_,rowCells,0,columns_);
+                    sweeps_[3*r]=sweep;
+                    lastChange=sweep;
+                }
+            }
+        }
+        return cells-BULK.count(distances,0,cells,UNREACHED);
+    }
+    
+    /**
+     * getter for the cells of a row as a flat array, which must not be
+     * changed. A row of a map file is read into scratch space.
+     */
+    private int[] rowCells(int row) {
+        if(map_==null){
+            return contentsOfDen_[row];
+        }
+        if(rowScratch_==null){
+            rowScratch_=new int[columns_];
+        }
+        map_.getRow(row,rowScratch_);
+        return rowScratch_;
+    }
+    
+    /**
+     * getter for the reachability of the den, made on first use
+     */
+    private DenReachability reachability() {
+        if(reachability_==null){
+            reachability_=new DenReachability(this);
+        }
+        return reachability_;
+    }
+    
+    /**
+     * getter for the layout hash of the den: the zobrist hash of its rocks.
+     * Dens of the same size with the same hash have the same map, whatever
+     * their food and snakes.
+     * @return is the hash
+     */
+    public long getLayoutHash() {
+        return layoutHash_;
+    }
+    
+    /**
+     * checks if a snake of the given length fits with its head on the cell and
+     * its body going down the rows, on dirt and away from other snakes
+     * @param1 is the row of the head
+     * @param2 is the column of the head
+     * @param3 is the length of the snake
+     * @return is true if the snake fits
+     */
+    public boolean canPlaceSnake(int row, int column, int length) {
+        for(int i=0;i<length;i++){
+            if(withinBound(row+i,column)==false || getContent(row+i,column)!=1 || isSnakeAt(row+i,column)){
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * moves every living snake once, in the order they were added
+     */
+    public void tick() {
+        SnakeEvents.Tick event=null;
+        if(SnakeEvents.TICK.isEnabled()){
+            event=new SnakeEvents.Tick();
+            event.begin();
+        }
+        if(changeLog_!=null){
+            changeLog_.beginTick(ticks_);
+        }
+        if(timePhases_){
+            long decide=0;
+            long commit=0;
+            for(int s=0;s<snakeCount_;s++){
+                Snake snake=snakes_[s];
+                if(snake.isAlive()==false){
+                    continue;
+                }
+                long start=System.nanoTime();
+                int direction=decide(s);
+                long decided=System.nanoTime();
+                snake.moveSnake(this,direction);
+                long moved=System.nanoTime();
+                decide+=decided-start;
+                commit+=moved-decided;
+            }
+            lastDecideNanos_=decide;
+            lastCommitNanos_=commit;
+        }
+        else if(SnakeEvents.DECISION.isEnabled()){
+            for(int s=0;s<snakeCount_;s++){
+                if(snakes_[s].isAlive()){
+                    snakes_[s].moveSnake(this,decide(s));
+                }
+            }
+        }
+        else{
+            for(int s=0;s<snakeCount_;s++){
+                snakes_[s].moveSnake(this);
+            }
+        }
+        if(event!=null){
+            event.end();
+            if(event.shouldCommit()){
+                event.tick=ticks_;
+                event.snakes=snakeCount_;
+                event.commit();
+            }
+        }
+        ticks_++;
+        if(changeLog_!=null){
+            lastChanges_=changeLog_.endTick();
+        }
+    }
+    
+    /**
+     * asks a living snake for its next move, recording a decision event if a
+     * flight recording wants them
+     * @param1 is the index of the snake
+     * @return is the direction the snake chose
+     */
+    private int decide(int s) {
+        Snake snake=snakes_[s];
+        if(SnakeEvents.DECISION.isEnabled()==false){
+            return snake.getNextMove(this);
+        }
+        SnakeEvents.Decision event=new SnakeEvents.Decision();
+        event.begin();
+        int direction=snake.getNextMove(this);
+        event.end();
+        if(event.shouldCommit()){
+            event.tick=ticks_;
+            event.snake=s;
+            event.snakeClass=snake.getClass().getName();
+            event.direction=direction;
+            event.commit();
+        }
+        return direction;
+    }
+    
+    /**
+     * copies the grid and the snakes into an immutable snapshot that other
+     * threads can read while the den keeps changing
+     * @param1 is the tick number of the snapshot
+     * @return is the snapshot
+     */
+    public DenSnapshot snapshot(long tick) {
+        return new DenSnapshot(this,tick);
     }
     
     
@@ -88,25 +730,51 @@ import javax.swing.*;
      */
 
     public void paint() {
-        for(int count=0;count<30;count++){ 
-         for (int i=0;i<20;i++){
-           if (contentsOfDen_[count][i]==1){
-            Paint.setColor(153,76,0);
-            Paint.fillRect(count*20+5, i*20+5, 15, 15);
+        SnakeEvents.DenPaint event=null;
+        if(SnakeEvents.DEN_PAINT.isEnabled()){
+            event=new SnakeEvents.DenPaint();
+            event.begin();
+        }
+        for(int count=0;count<rows_;count++){ 
+         for (int i=0;i<columns_;i++){
+            paintCell(count,i,getContent(count,i));
+            }  
+        }
+        if(event!=null){
+            event.end();
+            if(event.shouldCommit()){
+                event.cells=rows_*columns_;
+                event.commit();
+            }
+        }
+    }
+    
+    /**
+     * paints one cell of a den with a tile from the default sprite atlas
+     * @param1 is the row
+     * @param2 is the column
+     * @param3 is the content of the cell
+     */
+    public static void paintCell(int row, int column, int content) {
+           Color color;
+           if (content==1){
+            color=DIRT_COLOR;
            }
            
-           else if (contentsOfDen_[count][i]==2){
-            Paint.setColor(Color.BLACK);
-            Paint.fillRect(count*20+5, i*20+5, 15, 15);
+           else if (content==2){
+            color=Color.BLACK;
            }
            
-            else if (contentsOfDen_[count][i]==3){
-            Paint.setColor(Color.GREEN);
-            Paint.fillRect(count*20+5, i*20+5, 15, 15);
+            else if (content==3){
+            color=Color.GREEN;
            }
-           
-            }  
-        }
+           else{
+            return;
+           }
+           SpriteAtlas atlas=SpriteAtlas.getDefault();
+           int size=atlas.getCellSize();
+           int inset=atlas.getCellInset();
+           Paint.drawImage(atlas.tile(SpriteAtlas.CELL,color), row*size+inset, column*size+inset);
     }
     
     
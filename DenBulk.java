@@ -0,0 +1,117 @@
+// Making the den bulk interface
+/**
+ * Operations on whole rows of cells at once, which Den uses for its full
+ * grid passes: counting and finding a content, and the min-plus relaxation
+ * of distance fields. Rows are flat int arrays, as Den keeps them.
+ *
+ * load picks the fastest implementation there is. VectorDenBulk, in the
+ * vector directory, works on as many cells at once as the processor's
+ * vectors hold using the incubating jdk.incubator.vector API. It needs that
+ * module both to build and to run:
+ *
+ *   javac --add-modules jdk.incubator.vector -cp . -d . vector/VectorDenBulk.java
+ *   java --add-modules jdk.incubator.vector ...
+ *
+ * Without it, or with -Dsnakeden.scalar=true, ScalarDenBulk does one cell at
+ * a time and gives the same results.
+ */
+public interface DenBulk {
+    /**
+     * counts the cells holding a value
+     * @param1 is the cells
+     * @param2 is the first cell to look at
+     * @param3 is one past the last cell to look at
+     * @param4 is the value
+     * @return is the number of cells
+     */
+    int count(int[] cells, int from, int to, int value);
+
+    /**
+     * finds the first cell holding a value
+     * @param1 is the cells
+     * @param2 is the first cell to look at
+     * @param3 is one past the last cell to look at
+     * @param4 is the value
+     * @return is the index of the cell, or -1 if there is none
+     */
+    int indexOf(int[] cells, int from, int to, int value);
+
+    /**
+     * lowers each distance of a row to one more than the distance next to it
+     * in a neighboring row, where the cell of the row is not rock
+     * @param1 is the distances
+     * @param2 is the index of the first distance of the row
+     * @param3 is the index of the first distance of the neighboring row
+     * @param4 is the cells of the row
+     * @param5 is the index of the first cell of the row
+     * @param6 is the length of the row
+     * @return is true if a distance was lowered
+     */
+    boolean relax(int[] distances, int at, int from, int[] cells, int cellsAt, int length);
+
+    /**
+     * lowers each distance of a row to one more than the distances beside it
+     * in the row, going both ways so a distance crosses the row in one call.
+     * Rock cells are left as they are and stop the distances.
+     * @param1 is the distances
+     * @param2 is the index of the first distance of the row
+     * @param3 is the cells of the row
+     * @param4 is the index of the first cell of the row
+     * @param5 is the length of the row
+     * @return is true if a distance was lowered
+     */
+    boolean scan(int[] distances, int at, int[] cells, int cellsAt, int length);
+
+    /**
+     * makes the fastest implementation that loads
+     * @return is a VectorDenBulk if the vector API and the class are there,
+     * otherwise a ScalarDenBulk
+     */
+    static DenBulk load() {
+        if(Boolean.getBoolean("snakeden.scalar")==false){
+            try{
+                return (DenBulk)Class.forName("VectorDenBulk").getDeclaredConstructor().newInstance();
+            } catch(ReflectiveOperationException | LinkageError e){
+                // not built, or run without the vector module
+            }
+        }
+        return new ScalarDenBulk();
+    }
+
+    /**
+     * times the full grid passes of Den on a big den. Run it with and
+     * without -Dsnakeden.scalar=true to compare. Arguments are the rows, the
+     * columns and the number of times each pass is made.
+     */
+    static void main(String[] args) {
+        int rows=args.length>0 ? Integer.parseInt(args[0]) : 2000;
+        int columns=args.length>1 ? Integer.parseInt(args[1]) : 2000;
+        int times=args.length>2 ? Integer.parseInt(args[2]) : 50;
+        Den den=new Den(rows,columns,1);
+        int[] distances=new int[rows*columns];
+        long found=0;
+        for(int round=0;round<2;round++){
+            long start=System.nanoTime();
+            for(int i=0;i<times;i++){
+                found+=den.countContent(3);
+            }
+            double countMillis=(System.nanoTime()-start)/1e6/times;
+            start=System.nanoTime();
+            for(int i=0;i<times;i++){
+                for(long cell=den.findContent(3,0,0);cell>=0;cell=den.findContent(3,(int)(cell/columns),(int)(cell%columns)+1)){
+                    found++;
+                }
+            }
+            double findMillis=(System.nanoTime()-start)/1e6/times;
+            start=System.nanoTime();
+            for(int i=0;i<times;i++){
+                found+=den.distanceField(rows/2,columns/2,distances);
+            }
+            double fieldMillis=(System.nanoTime()-start)/1e6/times;
+            if(round==1){
+                System.out.printf("%s on %dx%d: count %.3f ms, find all %.3f ms, distance field %.2f ms (%d)%n",
+                                  Den.BULK.getClass().getName(),rows,columns,countMillis,findMillis,fieldMillis,found);
+            }
+        }
+    }
+}
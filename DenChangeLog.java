@@ -0,0 +1,275 @@
+// Making the den change log class
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Compact record of what changed in a den during one tick, written by Den and
+ * Snake as the changes happen so nobody has to compare whole grids. A record
+ * holds the cells whose content changed and, for each snake that moved or
+ * died, the direction of its move and whether its tail moved up.
+ *
+ * Records are encoded into one reusable ByteBuffer:
+ *
+ *   varint tick
+ *   varint number of runs, then per run: varint distance from the end of the
+ *     previous run (row*columns+column indices), varint run length, byte
+ *     content; a run is consecutive cells given the same content
+ *   varint number of snake events, then per event: varint snake index and a
+ *     byte with the direction in bits 0-1, TAIL_DROPPED and DIED
+ *
+ * Records can be concatenated and read back with read().
+ */
+public final class DenChangeLog {
+    /** Event bit: the tail moved up, so the snake did not grow */
+    public static final int TAIL_DROPPED = 4;
+
+    /** Event bit: the snake died; no direction */
+    public static final int DIED = 8;
+
+    /**
+     * Receives the contents of records from read()
+     */
+    public interface Visitor {
+        /** a record for this tick starts */
+        void tick(long tick);
+
+        /** a cell now has this content (1 dirt, 2 rock, 3 food) */
+        void cell(int row, int column, int content);
+
+        /** a snake moved one cell in a direction */
+        void snakeMoved(int snake, int direction, boolean tailDropped);
+
+        /** a snake died */
+        void snakeDied(int snake);
+    }
+
+    private final int columns_;// columns of the den, for cell indices
+    private long[] cells_;// index<<8 | content per cell change, in the order made
+    private long[] scratch_;// second array for sorting the cell changes
+    private int cellCount_;// cell changes this tick
+    private int[] events_;// snake<<8 | code per snake event
+    private int eventCount_;// snake events this tick
+    private long tick_;// tick being recorded
+    private boolean open_;// between beginTick and endTick
+    private ByteBuffer buffer_;// encoded record
+
+    /**
+     * Constructor for den change log
+     * @param1 is the number of columns of the den
+     */
+    public DenChangeLog(int columns) {
+        columns_=columns;
+        cells_=new long[64];
+        scratch_=new long[64];
+        events_=new int[16];
+        buffer_=ByteBuffer.allocate(256);
+    }
+
+    /**
+     * starts recording a tick
+     * @param1 is the tick number
+     */
+    public void beginTick(long tick) {
+        tick_=tick;
+        cellCount_=0;
+        eventCount_=0;
+        open_=true;
+    }
+
+    /**
+     * records a cell change. Outside a tick, for example when a den is set
+     * up, changes are ignored.
+     */
+    public void cellChanged(int row, int column, int content) {
+        if(open_==false){
+            return;
+        }
+        if(cellCount_==cells_.length){
+            cells_=Arrays.copyOf(cells_,cellCount_*2);
+        }
+        long index=(long)row*columns_+column;
+        cells_[cellCount_]=(index<<8)|(content&0xFF);
+        cellCount_++;
+    }
+
+    /**
+     * records a snake move
+     * @param1 is the index of the snake in the den
+     * @param2 is the direction
+     * @param3 is true if the tail moved up (the snake did not eat)
+     */
+    public void snakeMoved(int snake, int direction, boolean tailDropped) {
+        event(snake,(direction&3)|(tailDropped ? TAIL_DROPPED : 0));
+    }
+
+    /**
+     * records a snake dying
+     * @param1 is the index of the snake in the den
+     */
+    public void snakeDied(int snake) {
+        event(snake,DIED);
+    }
+
+    /**
+     * finishes the tick and encodes it
+     * @return is the encoded record, ready to read. It stays valid until the
+     * next endTick.
+     */
+    public ByteBuffer endTick() {
+        open_=false;
+        // a cell changed twice in a tick only keeps its last content
+        sortByCell(cellCount_);
+        int kept=0;
+        for(int i=0;i<cellCount_;i++){
+            if(i+1<cellCount_ && (cells_[i+1]>>>8)==(cells_[i]>>>8)){
+                continue;
+            }
+            cells_[kept++]=cells_[i];
+        }
+        int runs=0;
+        for(int i=0;i<kept;i++){
+            if(i==0 || (cells_[i]>>>8)!=(cells_[i-1]>>>8)+1 || (cells_[i]&0xFF)!=(cells_[i-1]&0xFF)){
+                runs++;
+            }
+        }
+        buffer_=ensure(buffer_,10+10+kept*16+10+eventCount_*6);
+        putVarLong(buffer_,tick_);
+        putVarLong(buffer_,runs);
+        long end=0;
+        for(int i=0;i<kept;){
+            long start=cells_[i]>>>8;
+            int content=(int)(cells_[i]&0xFF);
+            int length=1;
+            while(i+length<kept && (cells_[i+length]>>>8)==start+length && (cells_[i+length]&0xFF)==content){
+                length++;
+            }
+            putVarLong(buffer_,start-end);
+            putVarLong(buffer_,length);
+            buffer_.put((byte)content);
+            end=start+length;
+            i+=length;
+        }
+        putVarLong(buffer_,eventCount_);
+        for(int i=0;i<eventCount_;i++){
+            putVarLong(buffer_,events_[i]>>>8);
+            buffer_.put((byte)events_[i]);
+        }
+        buffer_.flip();
+        return buffer_;
+    }
+
+    /**
+     * sorts the first changes by cell, keeping the changes to one cell in
+     * the order they were made, with a merge sort through scratch_
+     * @param1 is the number of changes
+     */
+    private void sortByCell(int count) {
+        if(scratch_.length<count){
+            scratch_=new long[cells_.length];
+        }
+        long[] from=cells_;
+        long[] to=scratch_;
+        for(int width=1;width<count;width*=2){
+            for(int low=0;low<count;low+=2*width){
+                int middle=Math.min(low+width,count);
+                int high=Math.min(low+2*width,count);
+                int i=low;
+                int j=middle;
+                int k=low;
+                while(i<middle && j<high){
+                    // ties take the left run first, so the sort is stable
+                    to[k++]=(from[j]>>>8)<(from[i]>>>8) ? from[j++] : from[i++];
+                }
+                while(i<middle){
+                    to[k++]=from[i++];
+                }
+                while(j<high){
+                    to[k++]=from[j++];
+                }
+            }
+            long[] swap=from;
+            from=to;
+            to=swap;
+        }
+        if(from!=cells_){
+            System.arraycopy(from,0,cells_,0,count);
+        }
+    }
+
+    /**
+     * reads every record in a buffer, from its position to its limit
+     * @param1 is the buffer, whose position is moved to its limit
+     * @param2 is the number of columns of the den
+     * @param3 is the visitor
+     */
+    public static void read(ByteBuffer buffer, int columns, Visitor visitor) {
+        while(buffer.hasRemaining()){
+            visitor.tick(getVarLong(buffer));
+            long runs=getVarLong(buffer);
+            long end=0;
+            for(long r=0;r<runs;r++){
+                long start=end+getVarLong(buffer);
+                long length=getVarLong(buffer);
+                int content=buffer.get();
+                for(long index=start;index<start+length;index++){
+                    visitor.cell((int)(index/columns),(int)(index%columns),content);
+                }
+                end=start+length;
+            }
+            long events=getVarLong(buffer);
+            for(long e=0;e<events;e++){
+                int snake=(int)getVarLong(buffer);
+                int code=buffer.get();
+                if((code&DIED)!=0){
+                    visitor.snakeDied(snake);
+                }
+                else{
+                    visitor.snakeMoved(snake,code&3,(code&TAIL_DROPPED)!=0);
+                }
+            }
+        }
+    }
+
+    /**
+     * writes an unsigned varint, seven bits per byte, low bits first
+     */
+    static void putVarLong(ByteBuffer buffer, long value) {
+        while((value&~0x7FL)!=0){
+            buffer.put((byte)((value&0x7F)|0x80));
+            value>>>=7;
+        }
+        buffer.put((byte)value);
+    }
+
+    /**
+     * reads an unsigned varint
+     */
+    static long getVarLong(ByteBuffer buffer) {
+        long value=0;
+        for(int shift=0;;shift+=7){
+            byte b=buffer.get();
+            value|=(long)(b&0x7F)<<shift;
+            if(b>=0){
+                return value;
+            }
+        }
+    }
+
+    private void event(int snake, int code) {
+        if(open_==false){
+            return;
+        }
+        if(eventCount_==events_.length){
+            events_=Arrays.copyOf(events_,eventCount_*2);
+        }
+        events_[eventCount_++]=(snake<<8)|code;
+    }
+
+    private static ByteBuffer ensure(ByteBuffer buffer, int size) {
+        if(buffer.capacity()<size){
+            return ByteBuffer.allocate(Math.max(size,buffer.capacity()*2));
+        }
+        buffer.clear();
+        return buffer;
+    }
+}
@@ -0,0 +1,364 @@
+// Making the den generator class
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Builds dens of any size with a chosen rock density and amount of food, in
+ * which every free cell can be reached from every other, so no food is ever
+ * walled off and no snake starts in a pocket.
+ *
+ * A map is built in square tiles of TILE_SIZE cells. Each tile scatters its
+ * rocks from its own random stream and joins its free cells with a union
+ * find, and the tiles are done in parallel on a thread pool. The tiles are
+ * then joined along their edges and the groups of free cells are connected:
+ * a rock between two groups is turned into dirt, which repeats until one
+ * group is left or no single rock joins two groups, and whatever is still
+ * cut off is filled with rock. Connecting takes out a few rocks, so the
+ * density of a finished map is a little below the one asked for. Food is
+ * dropped last, on random free cells.
+ *
+ * The map of a seed does not depend on the number of threads. Many dens are
+ * generated at once with generate(long[]), which spreads the dens over the
+ * pool instead of the tiles.
+ */
+public class DenGenerator {
+    /** Rows and columns of the tiles built in parallel */
+    public static final int TILE_SIZE = 64;
+
+    private final int rows_;// rows of the dens
+    private final int columns_;// columns of the dens
+    private final double rockDensity_;// chance of a rock on each inner cell
+    private final int food_;// food per den
+    private final ExecutorService pool_;// builds tiles or whole dens
+
+    /**
+     * Constructor for den generator
+     * @param1 is the number of rows
+     * @param2 is the number of columns
+     * @param3 is the rock density, the chance of each inner cell being rock
+     * @param4 is the amount of food, at most a quarter of the free cells
+     * @param5 is the number of threads
+     */
+    public DenGenerator(int rows, int columns, double rockDensity, int food, int threads) {
+        if(rows<3 || columns<3){
+            throw new IllegalArgumentException("a den needs at least 3 rows and 3 columns");
+        }
+        if(rockDensity<0 || rockDensity>=1 || food<0 || threads<1){
+            throw new IllegalArgumentException("density must be in [0,1), food at least 0 and threads positive");
+        }
+        rows_=rows;
+        columns_=columns;
+        rockDensity_=rockDensity;
+        food_=food;
+        pool_=Executors.newFixedThreadPool(threads,r -> {
+            Thread thread=new Thread(r,"den-generator");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * builds one den, its tiles in parallel
+     * @param1 is the seed of the map, also used for food dropped later
+     * @return is the den
+     */
+    public Den generate(long seed) throws InterruptedException {
+        return new Den(generateMap(seed),seed);
+    }
+
+    /**
+     * builds one den per seed, the dens in parallel
+     * @param1 is the seeds
+     * @return is the dens, in the order of the seeds
+     */
+    public List<Den> generate(long[] seeds) throws InterruptedException {
+        List<Callable<Den>> tasks=new ArrayList<Callable<Den>>();
+        for(long seed : seeds){
+            tasks.add(() -> new Den(build(seed,false),seed));
+        }
+        List<Den> dens=new ArrayList<Den>();
+        for(Future<Den> result : pool_.invokeAll(tasks)){
+            dens.add(get(result));
+        }
+        return dens;
+    }
+
+    /**
+     * builds the map of a den, its tiles in parallel
+     * @param1 is the seed
+     * @return is the content of every cell (1 dirt, 2 rock, 3 food), by row
+     */
+    public int[][] generateMap(long seed) throws InterruptedException {
+        return build(seed,true);
+    }
+
+    /**
+     * stops the threads
+     */
+    public void shutdown() {
+        pool_.shutdownNow();
+    }
+
+    /**
+     * builds a map
+     * @param1 is the seed
+     * @param2 is true to build the tiles on the pool, false to build them
+     * on this thread
+     * @return is the map
+     */
+    private int[][] build(long seed, boolean parallel) throws InterruptedException {
+        int[] cells=new int[rows_*columns_];
+        int[] parent=new int[rows_*columns_];
+        int tileRows=(rows_+TILE_SIZE-1)/TILE_SIZE;
+        int tileColumns=(columns_+TILE_SIZE-1)/TILE_SIZE;
+        int tiles=tileRows*tileColumns;
+        if(parallel && tiles>1){
+            List<Callable<Void>> tasks=new ArrayList<Callable<Void>>();
+            for(int t=0;t<tiles;t++){
+                int tile=t;
+                tasks.add(() -> {
+                    buildTile(cells,parent,seed,tile/tileColumns,tile%tileColumns);
+                    return null;
+                });
+            }
+            for(Future<Void> result : pool_.invokeAll(tasks)){
+                get(result);
+            }
+        }
+        else{
+            for(int t=0;t<tiles;t++){
+                buildTile(cells,parent,seed,t/tileColumns,t%tileColumns);
+            }
+        }
+        // join the tiles along their edges
+        for(int row=0;row<rows_;row++){
+            for(int column=TILE_SIZE;column<columns_;column+=TILE_SIZE){
+                int cell=row*columns_+column;
+                if(cells[cell]!=2 && cells[cell-1]!=2){
+                    union(parent,cell,cell-1);
+                }
+            }
+        }
+        for(int row=TILE_SIZE;row<rows_;row+=TILE_SIZE){
+            for(int column=0;column<columns_;column++){
+                int cell=row*columns_+column;
+                if(cells[cell]!=2 && cells[cell-columns_]!=2){
+                    union(parent,cell,cell-columns_);
+                }
+            }
+        }
+        connect(cells,parent);
+        dropFood(cells,new SplittableRandom(seed^0x5DEECE66DL));
+        int[][] map=new int[rows_][columns_];
+        for(int row=0;row<rows_;row++){
+            System.arraycopy(cells,row*columns_,map[row],0,columns_);
+        }
+        return map;
+    }
+
+    /**
+     * scatters the rocks of a tile and joins its free cells. Only the cells
+     * of the tile are written, so tiles can be built at the same time.
+     * @param1 is the cells of the map
+     * @param2 is the union find parents of the map
+     * @param3 is the seed of the map
+     * @param4 is the tile row
+     * @param5 is the tile column
+     */
+    private void buildTile(int[] cells, int[] parent, long seed, int tileRow, int tileColumn) {
+        SplittableRandom random=new SplittableRandom(seed+(tileRow*0x9E3779B97F4A7C15L)+(tileColumn*0xC2B2AE3D27D4EB4FL));
+        int firstRow=tileRow*TILE_SIZE;
+        int firstColumn=tileColumn*TILE_SIZE;
+        int lastRow=Math.min(rows_,firstRow+TILE_SIZE);
+        int lastColumn=Math.min(columns_,firstColumn+TILE_SIZE);
+        for(int row=firstRow;row<lastRow;row++){
+            for(int column=firstColumn;column<lastColumn;column++){
+                int cell=row*columns_+column;
+                boolean edge=row==0 || row==rows_-1 || column==0 || column==columns_-1;
+                cells[cell]=edge || random.nextDouble()<rockDensity_ ? 2 : 1;
+                parent[cell]=cell;
+                if(cells[cell]==2){
+                    continue;
+                }
+                if(column>firstColumn && cells[cell-1]!=2){
+                    union(parent,cell,cell-1);
+                }
+                if(row>firstRow && cells[cell-columns_]!=2){
+                    union(parent,cell,cell-columns_);
+                }
+            }
+        }
+    }
+
+    /**
+     * connects the groups of free cells by turning rocks between two groups
+     * into dirt, then fills every group but the largest with rock
+     * @param1 is the cells of the map
+     * @param2 is the union find parents of the map
+     */
+    private void connect(int[] cells, int[] parent) {
+        int groups=0;
+        for(int cell=0;cell<cells.length;cell++){
+            if(cells[cell]!=2 && find(parent,cell)==cell){
+                groups++;
+            }
+        }
+        int[] steps={-columns_,columns_,-1,1};
+        boolean carved=true;
+        while(groups>1 && carved){
+            carved=false;
+            for(int row=1;row<rows_-1;row++){
+                for(int column=1;column<columns_-1;column++){
+                    int cell=row*columns_+column;
+                    if(cells[cell]!=2){
+                        continue;
+                    }
+                    int joined=0;
+                    int first=-1;
+                    for(int step : steps){
+                        int neighbor=cell+step;
+                        if(cells[neighbor]==2){
+                            continue;
+                        }
+                        if(first<0){
+                            first=neighbor;
+                        }
+                        else if(find(parent,first)!=find(parent,neighbor)){
+                            union(parent,first,neighbor);
+                            joined++;
+                        }
+                    }
+                    if(joined>0){
+                        cells[cell]=1;
+                        parent[cell]=cell;
+                        union(parent,cell,first);
+                        groups-=joined;
+                        carved=true;
+                    }
+                }
+            }
+        }
+        if(groups>1){
+            int[] size=new int[cells.length];
+            int largest=-1;
+            for(int cell=0;cell<cells.length;cell++){
+                if(cells[cell]!=2){
+                    int root=find(parent,cell);
+                    size[root]++;
+                    if(largest<0 || size[root]>size[largest]){
+                        largest=root;
+                    }
+                }
+            }
+            for(int cell=0;cell<cells.length;cell++){
+                if(cells[cell]!=2 && find(parent,cell)!=largest){
+                    cells[cell]=2;
+                }
+            }
+        }
+    }
+
+    /**
+     * drops the food on random free cells
+     * @param1 is the cells of the map
+     * @param2 is the random stream for the food
+     */
+    private void dropFood(int[] cells, SplittableRandom random) {
+        int free=0;
+        for(int cell=0;cell<cells.length;cell++){
+            if(cells[cell]!=2){
+                free++;
+            }
+        }
+        int food=Math.min(food_,free/4);
+        for(int count=0;count<food;){
+            int cell=random.nextInt(cells.length);
+            if(cells[cell]==1){
+                cells[cell]=3;
+                count++;
+            }
+        }
+    }
+
+    /**
+     * finds the root of a cell's group, halving the path on the way
+     */
+    private static int find(int[] parent, int cell) {
+        while(parent[cell]!=cell){
+            parent[cell]=parent[parent[cell]];
+            cell=parent[cell];
+        }
+        return cell;
+    }
+
+    /**
+     * joins the groups of two cells
+     */
+    private static void union(int[] parent, int a, int b) {
+        int rootA=find(parent,a);
+        int rootB=find(parent,b);
+        if(rootA!=rootB){
+            parent[Math.max(rootA,rootB)]=Math.min(rootA,rootB);
+        }
+    }
+
+    /**
+     * gets the result of a task, passing on what it threw
+     */
+    private static <T> T get(Future<T> result) throws InterruptedException {
+        try{
+            return result.get();
+        } catch(ExecutionException e){
+            throw new RuntimeException("den generation failed",e.getCause());
+        }
+    }
+
+    /**
+     * generates dens and prints how long it took. Arguments are the rows,
+     * the columns, the rock density, the food, the number of dens and the
+     * first seed.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int rows=args.length>0 ? Integer.parseInt(args[0]) : 512;
+        int columns=args.length>1 ? Integer.parseInt(args[1]) : 512;
+        double density=args.length>2 ? Double.parseDouble(args[2]) : 0.3;
+        int food=args.length>3 ? Integer.parseInt(args[3]) : rows*columns/30;
+        int count=args.length>4 ? Integer.parseInt(args[4]) : 100;
+        long seed=args.length>5 ? Long.parseLong(args[5]) : System.nanoTime();
+        int threads=Runtime.getRuntime().availableProcessors();
+        DenGenerator generator=new DenGenerator(rows,columns,density,food,threads);
+        try{
+            long start=System.nanoTime();
+            Den one=generator.generate(seed);
+            double oneMillis=(System.nanoTime()-start)/1e6;
+            long[] seeds=new long[count];
+            for(int i=0;i<count;i++){
+                seeds[i]=seed+i+1;
+            }
+            start=System.nanoTime();
+            List<Den> dens=generator.generate(seeds);
+            double manyMillis=(System.nanoTime()-start)/1e6;
+            long rocks=0;
+            for(Den den : dens){
+                for(int row=0;row<rows;row++){
+                    for(int column=0;column<columns;column++){
+                        if(den.getContent(row,column)==2){
+                            rocks++;
+                        }
+                    }
+                }
+            }
+            System.out.printf("one %dx%d den, tiles on %d threads: %.1f ms (hash %x)%n",rows,columns,threads,oneMillis,one.getLayoutHash());
+            System.out.printf("%d dens in parallel: %.1f ms, %.2f ms per den, %.1f%% rock%n",count,manyMillis,manyMillis/count,
+                              100.0*rocks/((double)count*rows*columns));
+        } finally{
+            generator.shutdown();
+        }
+    }
+}
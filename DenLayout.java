@@ -0,0 +1,288 @@
+// Making the den layout class
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Random;
+
+/**
+ * The starting map of a den: the content of every cell, its hashes, and
+ * where the random numbers for food dropped later carry on from. Layouts
+ * are immutable, so one layout can start any number of dens, in any number
+ * of threads. A den started from a layout shares its rows and copies a row
+ * only when a cell in it changes, which on the usual den is a handful of
+ * rows over a whole game.
+ *
+ * Tournaments and training play the same seeds over and over, so forSeed
+ * keeps the CACHE_SIZE layouts used most recently, keyed by size and seed,
+ * and a den made from a cached layout costs an array of row references
+ * instead of building the map again. A den made from a layout plays exactly
+ * like one made with new Den(rows,columns,seed).
+ */
+public final class DenLayout {
+    /** Most layouts kept by forSeed */
+    public static final int CACHE_SIZE = 1024;
+
+    /** Cached layouts, least recently used first; lock it to use it */
+    private static final LinkedHashMap<Key,DenLayout> CACHE=new LinkedHashMap<Key,DenLayout>(64,0.75f,true);
+
+    private final int rows_;// number of rows
+    private final int columns_;// number of columns
+    private final int[][] contents_;// content of every cell, never changed
+    private final long randomSeed_;// seed that carries on the random numbers
+    private final long hash_;// zobrist hash of the rocks and food
+    private final long layoutHash_;// zobrist hash of the rocks
+
+    /**
+     * Constructor for den layout. The grid is not copied.
+     */
+    private DenLayout(int[][] contents, long randomSeed) {
+        rows_=contents.length;
+        columns_=contents[0].length;
+        contents_=contents;
+        randomSeed_=randomSeed;
+        long hash=0;
+        long layoutHash=0;
+        for(int row=0;row<rows_;row++){
+            for(int column=0;column<columns_;column++){
+                hash^=Zobrist.key(row,column,contents[row][column]);
+                if(contents[row][column]==2){
+                    layoutHash^=Zobrist.key(row,column,2);
+                }
+            }
+        }
+        hash_=hash;
+        layoutHash_=layoutHash;
+    }
+
+    /**
+     * gets the layout of a seed from the cache, building it if it is not
+     * there
+     * @param1 is the number of rows
+     * @param2 is the number of columns
+     * @param3 is the seed
+     * @return is the layout
+     */
+    public static DenLayout forSeed(int rows, int columns, long seed) {
+        Key key=new Key(rows,columns,seed);
+        synchronized(CACHE){
+            DenLayout layout=CACHE.get(key);
+            if(layout!=null){
+                return layout;
+            }
+        }
+        // built outside the lock so other threads are not held up
+        DenLayout layout=build(rows,columns,seed);
+        synchronized(CACHE){
+            CACHE.put(key,layout);
+            if(CACHE.size()>CACHE_SIZE){
+                Iterator<Key> eldest=CACHE.keySet().iterator();
+                eldest.next();
+                eldest.remove();
+            }
+        }
+        return layout;
+    }
+
+    /**
+     * builds the layout of a seed without the cache. There is one random
+     * rock and one piece of food for every 30 cells, which is 20 of each on
+     * the 30 by 20 den.
+     * @param1 is the number of rows
+     * @param2 is the number of columns
+     * @param3 is the seed
+     * @return is the layout
+     */
+    public static DenLayout build(int rows, int columns, long seed) {
+        if(rows<3 || columns<3){
+            throw new IllegalArgumentException("a den needs at least 3 rows and 3 columns");
+        }
+        TrackedRandom random=new TrackedRandom(seed);
+        int[][] contentsOfDen=new int [rows][columns];
+        for(int count=0;count<rows;count++){
+         for (int i=0;i<columns;i++){
+            contentsOfDen[count][i]=1; //setting all of them to dirt. Later the first layer would be overwritten by the rocks
+            }
+        }
+
+         for(int count=0;count<rows;count++){ // rocks top layer
+         for (int i=0;i<columns;i=i+columns-1){
+            contentsOfDen[count][i]=2;
+            }
+        }
+
+        for(int count=0;count<rows;count=count+rows-1){ //rocks side layer
+         for (int i=0;i<columns;i++){
+            contentsOfDen[count][i]=2;
+            }
+        }
+
+        int inside=(rows-2)*(columns-2);
+        int rocks=Math.min(rows*columns/30,inside/2);
+        int food=Math.min(rows*columns/30,inside/4);
+        for(int count=0;count<rocks;){ // random rocks
+         int x=random.nextInt(rows-2)+1;
+         int y=random.nextInt(columns-2)+1;
+            if ( contentsOfDen[x][y]!=2 ){
+            contentsOfDen[x][y]=2;
+            count++;
+            }
+        }
+
+
+        for(int count=0;count<food;){ // random food
+         int x=random.nextInt(rows-2)+1;
+         int y=random.nextInt(columns-2)+1;
+            if ( contentsOfDen[x][y]!=2 &&  contentsOfDen[x][y]!=3){
+            contentsOfDen[x][y]=3;
+            count++;
+            }
+        }
+        return new DenLayout(contentsOfDen,random.carryOn());
+    }
+
+    /**
+     * makes a layout of a map made elsewhere, such as by DenGenerator. The
+     * grid is copied.
+     * @param1 is the content of every cell (1 dirt, 2 rock, 3 food), by row
+     * @param2 is the seed for where eaten food comes back
+     * @return is the layout
+     */
+    public static DenLayout of(int[][] contents, long seed) {
+        if(contents.length<3 || contents[0].length<3){
+            throw new IllegalArgumentException("a den needs at least 3 rows and 3 columns");
+        }
+        int[][] copy=new int[contents.length][];
+        for(int row=0;row<contents.length;row++){
+            if(contents[row].length!=contents[0].length){
+                throw new IllegalArgumentException("row "+row+" has "+contents[row].length+" cells, not "+contents[0].length);
+            }
+            copy[row]=contents[row].clone();
+        }
+        return new DenLayout(copy,seed);
+    }
+
+    /**
+     * getter for the number of rows
+     * @return is the number of rows
+     */
+    public int getRows() {
+        return rows_;
+    }
+
+    /**
+     * getter for the number of columns
+     * @return is the number of columns
+     */
+    public int getColumns() {
+        return columns_;
+    }
+
+    /**
+     * getter for the content of a cell
+     * @param1 is the row
+     * @param2 is the column
+     * @return is the content (1 dirt, 2 rock, 3 food)
+     */
+    public int getContent(int row, int column) {
+        return contents_[row][column];
+    }
+
+    /**
+     * getter for the hash of the rocks and food
+     * @return is the hash
+     */
+    public long getHash() {
+        return hash_;
+    }
+
+    /**
+     * getter for the hash of the rocks
+     * @return is the hash
+     */
+    public long getLayoutHash() {
+        return layoutHash_;
+    }
+
+    /**
+     * getter for a row, shared with every den made from the layout. It must
+     * not be changed.
+     * @param1 is the row
+     * @return is the row
+     */
+    int[] row(int row) {
+        return contents_[row];
+    }
+
+    /**
+     * makes the random numbers a den made from the layout drops food with
+     * @return is a Random that carries on where building the layout stopped
+     */
+    Random newRandom() {
+        return new Random(randomSeed_);
+    }
+
+    /**
+     * getter for the seed a den made from the layout drops food with
+     * @return is the seed
+     */
+    long randomSeed() {
+        return randomSeed_;
+    }
+
+    /**
+     * Size and seed of a cached layout
+     */
+    private static final class Key {
+        private final int rows_;// number of rows
+        private final int columns_;// number of columns
+        private final long seed_;// seed
+
+        Key(int rows, int columns, long seed) {
+            rows_=rows;
+            columns_=columns;
+            seed_=seed;
+        }
+
+        public int hashCode() {
+            return Long.hashCode(seed_*31+rows_*0x9E3779B97F4A7C15L+columns_);
+        }
+
+        public boolean equals(Object o) {
+            if(o instanceof Key==false){
+                return false;
+            }
+            Key other=(Key)o;
+            return rows_==other.rows_ && columns_==other.columns_ && seed_==other.seed_;
+        }
+    }
+
+    /**
+     * Random that keeps a copy of its state, so a new Random can carry on
+     * from where it is. The state follows the linear congruential generator
+     * that Random is specified to use.
+     */
+    static final class TrackedRandom extends Random {
+        private static final long serialVersionUID = 1L;
+        private static final long MULTIPLIER = 0x5DEECE66DL;
+        private static final long MASK = (1L<<48)-1;
+
+        private long state_;// state of the generator
+
+        TrackedRandom(long seed) {
+            super(seed);
+            state_=(seed^MULTIPLIER)&MASK;
+        }
+
+        protected int next(int bits) {
+            state_=(state_*MULTIPLIER+0xBL)&MASK;
+            return super.next(bits);
+        }
+
+        /**
+         * getter for a seed that starts a Random at the current state
+         * @return is the seed
+         */
+        long carryOn() {
+            return state_^MULTIPLIER;
+        }
+    }
+}
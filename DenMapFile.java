@@ -0,0 +1,320 @@
+// Making the den map file class
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+/**
+ * A den map kept in a file and memory-mapped, for arenas far too big to
+ * load onto the heap. Opening a map only maps the file, so a 100000 by
+ * 100000 arena opens at once and the pages a game touches are read in when
+ * it touches them. A den made with new Den(map) reads and writes its cells
+ * straight through the mapping.
+ *
+ * The file starts with a HEADER_SIZE byte header: MAGIC, VERSION, the rows
+ * and the columns (ints), then the seed food is dropped with, the zobrist
+ * hash of the rocks and food and the zobrist hash of the rocks (longs), all
+ * big endian. After the header comes one byte per cell, row by row, holding
+ * the content minus one (0 dirt, 1 rock, 2 food), so a sparse file reads as
+ * all dirt and a new arena costs disk space only for its rocks and food.
+ * Changes keep the hashes in the header up to date, so opening never scans
+ * the cells.
+ *
+ * A mapping holds at most 2^30 bytes, so the cells are mapped in blocks of
+ * whole rows, a power of two rows to a block. A map opened to write back
+ * changes them in the file; otherwise they stay in memory and the file is
+ * left as it was.
+ */
+public final class DenMapFile {
+    /** First int of every den map file */
+    public static final int MAGIC = 0x534E4D50;
+
+    /** Version of the layout written */
+    public static final int VERSION = 1;
+
+    /** Bytes before the first cell */
+    public static final int HEADER_SIZE = 64;
+
+    /** Most bytes in one block of rows */
+    private static final int BLOCK_SIZE = 1 << 30;
+
+    private static final int ROWS = 8;// header offset of the rows
+    private static final int COLUMNS = 12;// header offset of the columns
+    private static final int SEED = 16;// header offset of the food seed
+    private static final int HASH = 24;// header offset of the hash
+    private static final int LAYOUT_HASH = 32;// header offset of the rock hash
+
+    private final Path file_;// file mapped
+    private final int rows_;// number of rows
+    private final int columns_;// number of columns
+    private final MappedByteBuffer header_;// mapped header
+    private final MappedByteBuffer[] blocks_;// mapped cells, a block of rows each
+    private final int blockShift_;// log2 of the rows in a block
+    private final int blockMask_;// rows in a block minus one
+
+    /**
+     * Constructor for den map file. The channel may be closed afterwards.
+     */
+    private DenMapFile(Path file, FileChannel channel, FileChannel.MapMode mode, int rows, int columns) throws IOException {
+        file_=file;
+        rows_=rows;
+        columns_=columns;
+        header_=channel.map(mode,0,HEADER_SIZE);
+        int blockRows=Integer.highestOneBit(Math.max(1,BLOCK_SIZE/columns));
+        blockShift_=Integer.numberOfTrailingZeros(blockRows);
+        blockMask_=blockRows-1;
+        blocks_=new MappedByteBuffer[(rows+blockRows-1)>>>blockShift_];
+        for(int block=0;block<blocks_.length;block++){
+            int first=block<<blockShift_;
+            long size=(long)Math.min(blockRows,rows-first)*columns;
+            blocks_[block]=channel.map(mode,HEADER_SIZE+(long)first*columns,size);
+        }
+    }
+
+    /**
+     * opens a den map file
+     * @param1 is the file
+     * @param2 is true to write changes back to the file, false to keep them
+     * in memory. The file must be writable either way.
+     * @return is the map
+     */
+    public static DenMapFile open(Path file, boolean writeBack) throws IOException {
+        try(FileChannel channel=FileChannel.open(file,StandardOpenOption.READ,StandardOpenOption.WRITE)){
+            ByteBuffer header=ByteBuffer.allocate(HEADER_SIZE);
+            while(header.hasRemaining() && channel.read(header)>=0){
+                // a file channel stops short only at the end of the file
+            }
+            if(header.position()<HEADER_SIZE || header.getInt(0)!=MAGIC){
+                throw new IOException(file+" is not a den map");
+            }
+            if(header.getInt(4)!=VERSION){
+                throw new IOException(file+" is a version "+header.getInt(4)+" den map, not "+VERSION);
+            }
+            int rows=header.getInt(ROWS);
+            int columns=header.getInt(COLUMNS);
+            if(rows<3 || columns<3 || channel.size()!=HEADER_SIZE+(long)rows*columns){
+                throw new IOException(file+" is cut short or has a bad header");
+            }
+            return new DenMapFile(file,channel,writeBack ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.PRIVATE,rows,columns);
+        }
+    }
+
+    /**
+     * makes a den map file of a seed, laid out exactly like
+     * DenLayout.build(rows,columns,seed): rock all around, and one random
+     * rock and one piece of food for every 30 cells. Only the rocks and food
+     * are written. An existing file is replaced.
+     * @param1 is the file
+     * @param2 is the number of rows
+     * @param3 is the number of columns
+     * @param4 is the seed
+     * @return is the map, open to write back
+     */
+    public static DenMapFile create(Path file, int rows, int columns, long seed) throws IOException {
+        DenMapFile map=newFile(file,rows,columns);
+        for(int row=0;row<rows;row++){
+            map.setContent(row,0,2);
+            map.setContent(row,columns-1,2);
+        }
+        for(int column=1;column<columns-1;column++){
+            map.setContent(0,column,2);
+            map.setContent(rows-1,column,2);
+        }
+        DenLayout.TrackedRandom random=new DenLayout.TrackedRandom(seed);
+        long inside=(long)(rows-2)*(columns-2);
+        long rocks=Math.min((long)rows*columns/30,inside/2);
+        long food=Math.min((long)rows*columns/30,inside/4);
+        for(long count=0;count<rocks;){
+            int x=random.nextInt(rows-2)+1;
+            int y=random.nextInt(columns-2)+1;
+            if(map.getContent(x,y)!=2){
+                map.setContent(x,y,2);
+                count++;
+            }
+        }
+        for(long count=0;count<food;){
+            int x=random.nextInt(rows-2)+1;
+            int y=random.nextInt(columns-2)+1;
+            if(map.getContent(x,y)==1){
+                map.setContent(x,y,3);
+                count++;
+            }
+        }
+        map.header_.putLong(SEED,random.carryOn());
+        return map;
+    }
+
+    /**
+     * makes a den map file of a layout, such as one of DenLayout.of for a
+     * map made by DenGenerator. An existing file is replaced.
+     * @param1 is the file
+     * @param2 is the layout
+     * @return is the map, open to write back
+     */
+    public static DenMapFile create(Path file, DenLayout layout) throws IOException {
+        DenMapFile map=newFile(file,layout.getRows(),layout.getColumns());
+        for(int row=0;row<map.rows_;row++){
+            int[] cells=layout.row(row);
+            for(int column=0;column<map.columns_;column++){
+                if(cells[column]!=1){
+                    map.setContent(row,column,cells[column]);
+                }
+            }
+        }
+        map.header_.putLong(SEED,layout.randomSeed());
+        return map;
+    }
+
+    /**
+     * makes an all dirt map file with its header written
+     */
+    private static DenMapFile newFile(Path file, int rows, int columns) throws IOException {
+        if(rows<3 || columns<3 || columns>BLOCK_SIZE){
+            throw new IllegalArgumentException("a den needs at least 3 rows and 3 columns, and at most 2^30 columns");
+        }
+        try(FileChannel channel=FileChannel.open(file,StandardOpenOption.CREATE,StandardOpenOption.TRUNCATE_EXISTING,
+                                                 StandardOpenOption.READ,StandardOpenOption.WRITE)){
+            DenMapFile map=new DenMapFile(file,channel,FileChannel.MapMode.READ_WRITE,rows,columns);
+            map.header_.putInt(0,MAGIC);
+            map.header_.putInt(4,VERSION);
+            map.header_.putInt(ROWS,rows);
+            map.header_.putInt(COLUMNS,columns);
+            return map;
+        }
+    }
+
+    /**
+     * getter for the file
+     * @return is the file
+     */
+    public Path getFile() {
+        return file_;
+    }
+
+    /**
+     * getter for the number of rows
+     * @return is the number of rows
+     */
+    public int getRows() {
+        return rows_;
+    }
+
+    /**
+     * getter for the number of columns
+     * @return is the number of columns
+     */
+    public int getColumns() {
+        return columns_;
+    }
+
+    /**
+     * getter for the seed food is dropped with
+     * @return is the seed
+     */
+    public long getSeed() {
+        return header_.getLong(SEED);
+    }
+
+    /**
+     * getter for the hash of the rocks and food
+     * @return is the hash
+     */
+    public long getHash() {
+        return header_.getLong(HASH);
+    }
+
+    /**
+     * getter for the hash of the rocks
+     * @return is the hash
+     */
+    public long getLayoutHash() {
+        return header_.getLong(LAYOUT_HASH);
+    }
+
+    /**
+     * getter for the content of a cell
+     * @param1 is the row
+     * @param2 is the column
+     * @return is the content (1 dirt, 2 rock, 3 food)
+     */
+    public int getContent(int row, int column) {
+        return blocks_[row>>>blockShift_].get((row&blockMask_)*columns_+column)+1;
+    }
+
+    /**
+     * getter for a whole row
+     * @param1 is the row
+     * @param2 is the array to fill with the content of each cell
+     */
+    void getRow(int row, int[] cells) {
+        MappedByteBuffer block=blocks_[row>>>blockShift_];
+        int at=(row&blockMask_)*columns_;
+        for(int column=0;column<columns_;column++){
+            cells[column]=block.get(at+column)+1;
+        }
+    }
+
+    /**
+     * changes the content of a cell and the hashes in the header. Only the
+     * den playing on the map changes it.
+     * @param1 is the row
+     * @param2 is the column
+     * @param3 is the content (1 dirt, 2 rock, 3 food)
+     */
+    void setContent(int row, int column, int content) {
+        int old=getContent(row,column);
+        header_.putLong(HASH,getHash()^Zobrist.key(row,column,old)^Zobrist.key(row,column,content));
+        if((old==2)!=(content==2)){
+            header_.putLong(LAYOUT_HASH,getLayoutHash()^Zobrist.key(row,column,2));
+        }
+        blocks_[row>>>blockShift_].put((row&blockMask_)*columns_+column,(byte)(content-1));
+    }
+
+    /**
+     * writes the changes made so far to the disk, if the map was opened to
+     * write them back
+     */
+    public void force() {
+        header_.force();
+        for(MappedByteBuffer block : blocks_){
+            block.force();
+        }
+    }
+
+    /**
+     * makes an arena file if it is not there, opens it and reads random
+     * cells, printing how long each took. Arguments are the file, the rows,
+     * the columns and the seed.
+     */
+    public static void main(String[] args) throws IOException {
+        Path file=Paths.get(args.length>0 ? args[0] : "arena.den");
+        int rows=args.length>1 ? Integer.parseInt(args[1]) : 20000;
+        int columns=args.length>2 ? Integer.parseInt(args[2]) : 20000;
+        long seed=args.length>3 ? Long.parseLong(args[3]) : 1;
+        if(Files.exists(file)==false){
+            long start=System.nanoTime();
+            DenMapFile.create(file,rows,columns,seed).force();
+            System.out.printf("made %s (%dx%d) in %.1f s%n",file,rows,columns,(System.nanoTime()-start)/1e9);
+        }
+        long start=System.nanoTime();
+        Den den=new Den(DenMapFile.open(file,false));
+        double openMillis=(System.nanoTime()-start)/1e6;
+        Random random=new Random(seed);
+        int reads=1000000;
+        long rocks=0;
+        start=System.nanoTime();
+        for(int i=0;i<reads;i++){
+            if(den.getContent(random.nextInt(den.getRows()),random.nextInt(den.getColumns()))==2){
+                rocks++;
+            }
+        }
+        double readNanos=(double)(System.nanoTime()-start)/reads;
+        System.out.printf("opened %dx%d den in %.2f ms (hash %x), random reads %.0f ns, %.1f%% rock%n",den.getRows(),den.getColumns(),
+                          openMillis,den.getLayoutHash(),readNanos,100.0*rocks/reads);
+    }
+}
@@ -0,0 +1,262 @@
+// Making the den reachability class
+import java.util.Arrays;
+
+/**
+ * Measures the regions of free cells in a den: how many cells a snake could
+ * reach from a cell, moving through dirt and food and around rocks and the
+ * current bodies of living snakes. Snakes use it to avoid moving into
+ * pockets too small to live in.
+ *
+ * The den is kept as bitsets, one row of longs per den row with a bit per
+ * column: the cells that are not rock, updated by the den as cells change,
+ * and scratch rows for the free cells and the region being filled. A region
+ * is filled a whole row at a time. Each row spreads the region sideways
+ * through its free runs with shifts (a Kogge-Stone fill, 6 steps per word),
+ * takes in the region of the rows above and below, and sweeps down and then
+ * up the den until nothing changes. Most regions settle in a few sweeps, so
+ * measuring all four directions takes a couple of microseconds on a 30 by 20
+ * den and tens of microseconds on a 200 by 200 one, and nothing is allocated
+ * after construction.
+ *
+ * A reachability belongs to one den and is not thread safe, like the den.
+ */
+public final class DenReachability {
+    private final int rows_;// rows of the den
+    private final int columns_;// columns of the den
+    private final int words_;// longs per row
+    private final long[] open_;// cells that are not rock
+    private final long[] free_;// open cells without a snake on them, scratch
+    private final long[] region_;// region being filled, scratch
+
+    /**
+     * Constructor for den reachability. The den tells it about later changes
+     * through cellChanged.
+     * @param1 is the den
+     */
+    public DenReachability(Den den) {
+        rows_=den.getRows();
+        columns_=den.getColumns();
+        words_=(columns_+63)>>>6;
+        open_=new long[rows_*words_];
+        free_=new long[rows_*words_];
+        region_=new long[rows_*words_];
+        for(int row=0;row<rows_;row++){
+            for(int column=0;column<columns_;column++){
+                cellChanged(row,column,den.getContent(row,column));
+            }
+        }
+    }
+
+    /**
+     * keeps the open cells up to date when a cell of the den changes
+     * @param1 is the row
+     * @param2 is the column
+     * @param3 is the new content
+     */
+    public void cellChanged(int row, int column, int content) {
+        int word=row*words_+(column>>>6);
+        if(content==2){
+            open_[word]&=~(1L<<column);
+        }
+        else{
+            open_[word]|=1L<<column;
+        }
+    }
+
+    /**
+     * measures, for each direction, the region reachable from the cell a
+     * snake's head would move to
+     * @param1 is the den
+     * @param2 is the snake
+     * @param3 is an array of at least 4 sizes to fill, indexed by direction;
+     * a direction the snake cannot move in gets 0
+     */
+    public void regionSizes(Den den, Snake snake, int[] sizes) {
+        markFree(den);
+        int headRow=snake.getHeadSegment().getRow();
+        int headColumn=snake.getHeadSegment().getColumn();
+        for(int direction=Paint.UP;direction<=Paint.RIGHT;direction++){
+            sizes[direction]=-1;
+        }
+        for(int direction=Paint.UP;direction<=Paint.RIGHT;direction++){
+            if(sizes[direction]>=0){
+                continue;
+            }
+            int row=headRow+rowStep(direction);
+            int column=headColumn+columnStep(direction);
+            if(isSet(free_,row,column)==false){
+                sizes[direction]=0;
+                continue;
+            }
+            int size=fill(row,column);
+            sizes[direction]=size;
+            // the other directions into the same region have the same size
+            for(int other=direction+1;other<=Paint.RIGHT;other++){
+                if(sizes[other]<0 && isSet(region_,headRow+rowStep(other),headColumn+columnStep(other))){
+                    sizes[other]=size;
+                }
+            }
+        }
+    }
+
+    /**
+     * measures the region reachable from a cell
+     * @param1 is the den
+     * @param2 is the row
+     * @param3 is the column
+     * @return is the number of cells in the region, including the cell
+     * itself, or 0 if the cell is outside the den, a rock or a snake
+     */
+    public int regionSize(Den den, int row, int column) {
+        markFree(den);
+        if(isSet(free_,row,column)==false){
+            return 0;
+        }
+        return fill(row,column);
+    }
+
+    /**
+     * copies the open cells into free_ and takes out the living snakes
+     */
+    private void markFree(Den den) {
+        System.arraycopy(open_,0,free_,0,open_.length);
+        for(int s=0;s<den.getSnakeCount();s++){
+            Snake snake=den.getSnake(s);
+            if(snake.isAlive()==false){
+                continue;
+            }
+            for(int i=0;i<snake.getLength();i++){
+                SnakeSegment segment=snake.getIthSegment(i);
+                int column=segment.getColumn();
+                free_[segment.getRow()*words_+(column>>>6)]&=~(1L<<column);
+            }
+        }
+    }
+
+    /**
+     * checks a bit of a bitset, treating cells outside the den as unset
+     */
+    private boolean isSet(long[] bits, int row, int column) {
+        if(row<0 || row>=rows_ || column<0 || column>=columns_){
+            return false;
+        }
+        return (bits[row*words_+(column>>>6)]&(1L<<column))!=0;
+    }
+
+    /**
+     * fills region_ with the free cells reachable from a free cell
+     * @return is the size of the region
+     */
+    private int fill(int row, int column) {
+        Arrays.fill(region_,0);
+        region_[row*words_+(column>>>6)]=1L<<column;
+        spreadRow(row);
+        boolean changed=true;
+        while(changed){
+            changed=false;
+            for(int r=1;r<rows_;r++){
+                changed|=takeIn(r,r-1);
+            }
+            for(int r=rows_-2;r>=0;r--){
+                changed|=takeIn(r,r+1);
+            }
+        }
+        int size=0;
+        for(int i=0;i<region_.length;i++){
+            size+=Long.bitCount(region_[i]);
+        }
+        return size;
+    }
+
+    /**
+     * adds the free cells of a row next to the region in a neighboring row
+     * and spreads them along the row
+     * @return is true if the row gained cells
+     */
+    private boolean takeIn(int row, int from) {
+        int base=row*words_;
+        int fromBase=from*words_;
+        boolean grew=false;
+        for(int w=0;w<words_;w++){
+            long seeds=region_[fromBase+w]&free_[base+w]&~region_[base+w];
+            if(seeds!=0){
+                region_[base+w]|=seeds;
+                grew=true;
+            }
+        }
+        if(grew){
+            spreadRow(row);
+        }
+        return grew;
+    }
+
+    /**
+     * spreads the region of a row through the free runs it touches, up the
+     * columns and across words, then down
+     */
+    private void spreadRow(int row) {
+        int base=row*words_;
+        long carry=0;
+        for(int w=0;w<words_;w++){
+            long free=free_[base+w];
+            long bits=fillUp(region_[base+w]|(carry&free),free);
+            region_[base+w]=bits;
+            carry=bits>>>63;
+        }
+        carry=0;
+        for(int w=words_-1;w>=0;w--){
+            long free=free_[base+w];
+            long bits=fillDown(region_[base+w]|(carry&free),free);
+            region_[base+w]=bits;
+            carry=(bits&1)<<63;
+        }
+    }
+
+    /**
+     * spreads set bits toward the high bits through runs of free bits
+     */
+    private static long fillUp(long bits, long free) {
+        bits|=free&(bits<<1);
+        free&=free<<1;
+        bits|=free&(bits<<2);
+        free&=free<<2;
+        bits|=free&(bits<<4);
+        free&=free<<4;
+        bits|=free&(bits<<8);
+        free&=free<<8;
+        bits|=free&(bits<<16);
+        free&=free<<16;
+        return bits|(free&(bits<<32));
+    }
+
+    /**
+     * spreads set bits toward the low bits through runs of free bits
+     */
+    private static long fillDown(long bits, long free) {
+        bits|=free&(bits>>>1);
+        free&=free>>>1;
+        bits|=free&(bits>>>2);
+        free&=free>>>2;
+        bits|=free&(bits>>>4);
+        free&=free>>>4;
+        bits|=free&(bits>>>8);
+        free&=free>>>8;
+        bits|=free&(bits>>>16);
+        free&=free>>>16;
+        return bits|(free&(bits>>>32));
+    }
+
+    /**
+     * row step of a direction
+     */
+    private static int rowStep(int direction) {
+        return direction==Paint.UP ? -1 : direction==Paint.DOWN ? 1 : 0;
+    }
+
+    /**
+     * column step of a direction
+     */
+    private static int columnStep(int direction) {
+        return direction==Paint.LEFT ? -1 : direction==Paint.RIGHT ? 1 : 0;
+    }
+}
@@ -0,0 +1,151 @@
+// Making the den snapshot class
+import java.awt.Color;
+
+/**
+ * Immutable copy of a den and its snakes at the end of one tick. The
+ * simulation thread builds one per published frame and the render thread
+ * paints it, so the two never share mutable state.
+ */
+public final class DenSnapshot {
+    private final long tick_;// tick the snapshot was taken at
+    private final int rows_;// number of rows in the grid
+    private final int columns_;// number of columns in the grid
+    private final int[] cells_;// grid contents, row by row
+    private final int[][] bodies_;// row,column pairs for each snake, head first
+    private final Color[] colors_;// color of each snake
+    private final boolean[] alive_;// whether each snake is alive
+
+    /**
+     * Constructor for den snapshot
+     * @param1 is the den to copy
+     * @param2 is the tick number
+     */
+    DenSnapshot(Den den, long tick) {
+        tick_=tick;
+        rows_=den.getRows();
+        columns_=den.getColumns();
+        cells_=new int[rows_*columns_];
+        for(int row=0;row<rows_;row++){
+            for(int column=0;column<columns_;column++){
+                cells_[row*columns_+column]=den.getContent(row,column);
+            }
+        }
+        int count=den.getSnakeCount();
+        bodies_=new int[count][];
+        colors_=new Color[count];
+        alive_=new boolean[count];
+        for(int s=0;s<count;s++){
+            Snake snake=den.getSnake(s);
+            int[] body=new int[snake.getLength()*2];
+            for(int i=0;i<snake.getLength();i++){
+                SnakeSegment segment=snake.getIthSegment(i);
+                body[2*i]=segment.getRow();
+                body[2*i+1]=segment.getColumn();
+            }
+            bodies_[s]=body;
+            colors_[s]=snake.getColor();
+            alive_[s]=snake.isAlive();
+        }
+    }
+
+    /**
+     * getter for the tick
+     * @return is the tick the snapshot was taken at
+     */
+    public long getTick() {
+        return tick_;
+    }
+
+    /**
+     * getter for the number of rows
+     * @return is the number of rows
+     */
+    public int getRows() {
+        return rows_;
+    }
+
+    /**
+     * getter for the number of columns
+     * @return is the number of columns
+     */
+    public int getColumns() {
+        return columns_;
+    }
+
+    /**
+     * getter for the content of a cell
+     * @return is the content (1 dirt, 2 rock, 3 food)
+     */
+    public int getContent(int row, int column) {
+        return cells_[row*columns_+column];
+    }
+
+    /**
+     * getter for the number of snakes
+     * @return is the number of snakes
+     */
+    public int getSnakeCount() {
+        return bodies_.length;
+    }
+
+    /**
+     * getter for the length of a snake
+     * @return is the number of segments
+     */
+    public int getSnakeLength(int snake) {
+        return bodies_[snake].length/2;
+    }
+
+    /**
+     * getter for the row of a segment
+     * @return is the row of segment i of the snake
+     */
+    public int getSegmentRow(int snake, int i) {
+        return bodies_[snake][2*i];
+    }
+
+    /**
+     * getter for the column of a segment
+     * @return is the column of segment i of the snake
+     */
+    public int getSegmentColumn(int snake, int i) {
+        return bodies_[snake][2*i+1];
+    }
+
+    /**
+     * getter for the color of a snake
+     * @return is the color
+     */
+    public Color getSnakeColor(int snake) {
+        return colors_[snake];
+    }
+
+    /**
+     * checks if a snake was alive
+     * @return is true if alive
+     */
+    public boolean isSnakeAlive(int snake) {
+        return alive_[snake];
+    }
+
+    /**
+     * paints the den and the living snakes, allocating nothing
+     */
+    public void paint() {
+        for(int row=0;row<rows_;row++){
+            for(int column=0;column<columns_;column++){
+                Den.paintCell(row,column,cells_[row*columns_+column]);
+            }
+        }
+        for(int s=0;s<bodies_.length;s++){
+            if(alive_[s]==false){
+                continue;
+            }
+            int[] body=bodies_[s];
+            for(int i=body.length-2;i>=0;i-=2){
+                SnakeSegment.paintSegment(body[i],body[i+1],colors_[s]);
+            }
+            SnakeSegment.highlightSegment(body[0],body[1]);
+        }
+    }
+}
@@ -0,0 +1,192 @@
+// Making the frame exporter class
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.imageio.ImageIO;
+
+/**
+ * Saves frames of a canvas as a numbered sequence of PNG files
+ * (prefix000000.png, prefix000001.png, ...). Capturing a frame only draws the
+ * canvas into a free offscreen image; the PNG encoding and writing happen on
+ * a small background pool.
+ *
+ * There is a fixed number of images, two by default. When all of them are
+ * still waiting to be encoded, capture returns false at once and the frame
+ * is dropped, so a slow disk never holds up the thread that is capturing.
+ * Dropped frames do not use up a number, so the files on disk always form an
+ * unbroken sequence.
+ */
+public class FrameExporter {
+    private final File directory_;// where the files go
+    private final String prefix_;// start of each file name
+    private final int width_;// width of a frame
+    private final int height_;// height of a frame
+    private final BlockingQueue<BufferedImage> free_;// images ready to draw into
+    private final ThreadPoolExecutor encoders_;// writes the files
+    private final AtomicLong written_;// frames written so far
+    private final AtomicLong dropped_;// frames dropped so far
+    private final AtomicLong failed_;// frames that could not be written
+    private long next_;// number of the next frame
+    private volatile IOException lastError_;// last write failure
+
+    /**
+     * Constructor for frame exporter with two images and one encoding thread
+     * @param1 is the directory to write to, created if missing
+     * @param2 is the start of each file name
+     * @param3 is the width of a frame
+     * @param4 is the height of a frame
+     */
+    public FrameExporter(File directory, String prefix, int width, int height) {
+        this(directory,prefix,width,height,2,1);
+    }
+
+    /**
+     * Constructor for frame exporter
+     * @param1 is the directory to write to, created if missing
+     * @param2 is the start of each file name
+     * @param3 is the width of a frame
+     * @param4 is the height of a frame
+     * @param5 is the number of images, and so of frames waiting at once
+     * @param6 is the number of encoding threads
+     */
+    public FrameExporter(File directory, String prefix, int width, int height, int images, int threads) {
+        if(width<=0 || height<=0 || images<1 || threads<1){
+            throw new IllegalArgumentException("sizes, images and threads must be positive");
+        }
+        if(directory.isDirectory()==false && directory.mkdirs()==false){
+            throw new IllegalArgumentException("cannot create "+directory);
+        }
+        directory_=directory;
+        prefix_=prefix;
+        width_=width;
+        height_=height;
+        free_=new ArrayBlockingQueue<BufferedImage>(images);
+        for(int i=0;i<images;i++){
+            free_.add(new BufferedImage(width,height,BufferedImage.TYPE_INT_RGB));
+        }
+        // at most 'images' frames can be waiting, so the queue never fills
+        encoders_=new ThreadPoolExecutor(threads,threads,0,TimeUnit.MILLISECONDS,
+                                         new ArrayBlockingQueue<Runnable>(images),r -> {
+                                             Thread thread=new Thread(r,"frame-exporter");
+                                             thread.setDaemon(true);
+                                             return thread;
+                                         });
+        written_=new AtomicLong();
+        dropped_=new AtomicLong();
+        failed_=new AtomicLong();
+    }
+
+    /**
+     * captures the canvas the static Paint methods draw on. Only a canvas
+     * can be captured, so the Paint backend must be a PaintCanvas.
+     * @return is true if the frame was queued, false if it was dropped
+     */
+    public boolean capture() {
+        PaintBackend backend=Paint.getBackend();
+        if((backend instanceof PaintCanvas)==false){
+            throw new IllegalStateException("Paint draws on "+(backend==null ? "nothing" : backend.getClass().getName())
+                                            +", not a PaintCanvas, so there is nothing to capture");
+        }
+        return capture((PaintCanvas)backend);
+    }
+
+    /**
+     * captures a canvas. Safe to call from the thread drawing the canvas or
+     * from the event dispatch thread. Frames captured after close are
+     * dropped.
+     * @param1 is the canvas
+     * @return is true if the frame was queued, false if it was dropped
+     */
+    public boolean capture(PaintCanvas canvas) {
+        BufferedImage image=free_.poll();
+        if(image==null || encoders_.isShutdown()){
+            if(image!=null){
+                free_.add(image);
+            }
+            dropped_.incrementAndGet();
+            return false;
+        }
+        Graphics2D g=image.createGraphics();
+        try{
+            canvas.renderTo(g,width_,height_);
+        } finally{
+            g.dispose();
+        }
+        final File file;
+        synchronized(this){
+            file=new File(directory_,String.format("%s%06d.png",prefix_,next_++));
+        }
+        try{
+            encoders_.execute(() -> write(image,file));
+        } catch(RejectedExecutionException e){
+            // closed while this frame was drawn
+            free_.add(image);
+            dropped_.incrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * getter for the frames written
+     * @return is the number of files written so far
+     */
+    public long getWrittenFrames() {
+        return written_.get();
+    }
+
+    /**
+     * getter for the frames dropped
+     * @return is the number of frames dropped because every image was busy
+     * or the exporter was closed
+     */
+    public long getDroppedFrames() {
+        return dropped_.get();
+    }
+
+    /**
+     * getter for the frames that failed
+     * @return is the number of frames that could not be written
+     */
+    public long getFailedFrames() {
+        return failed_.get();
+    }
+
+    /**
+     * getter for the last error
+     * @return is the last write failure, or null if there was none
+     */
+    public IOException getLastError() {
+        return lastError_;
+    }
+
+    /**
+     * writes the frames still waiting and stops the encoding threads
+     */
+    public void close() throws InterruptedException {
+        encoders_.shutdown();
+        encoders_.awaitTermination(Long.MAX_VALUE,TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * encodes one frame and gives its image back
+     */
+    private void write(BufferedImage image, File file) {
+        try{
+            ImageIO.write(image,"png",file);
+            written_.incrementAndGet();
+        } catch(IOException e){
+            lastError_=e;
+            failed_.incrementAndGet();
+        } finally{
+            free_.add(image);
+        }
+    }
+}
@@ -0,0 +1,242 @@
+// Making the game loop class
+import java.nio.ByteBuffer;
+import java.util.concurrent.locks.LockSupport;
+import javax.swing.Timer;
+
+/**
+ * Runs a den at a fixed tick rate on its own thread and paints it on the
+ * event dispatch thread at the display rate. The simulation thread publishes
+ * an immutable DenSnapshot after every batch of ticks; the renderer only ever
+ * paints the latest one. A slow paint therefore just skips snapshots, and a
+ * slow tick just repaints the previous snapshot.
+ *
+ * When the simulation falls behind it runs up to maxCatchUpTicks ticks back
+ * to back without publishing in between. If it is still behind after that,
+ * the missing ticks are dropped so the loop does not spiral.
+ */
+public class GameLoop {
+    /** Default number of ticks run back to back when behind */
+    public static final int DEFAULT_MAX_CATCH_UP_TICKS = 5;
+
+    private final Den den_;// den being simulated
+    private final long tickNanos_;// length of one tick
+    private final int maxCatchUpTicks_;// most ticks run without publishing
+    private volatile DenSnapshot latest_;// last published snapshot
+    private volatile boolean running_;// cleared by stop()
+    private volatile long ticks_;// ticks run so far
+    private volatile long skippedTicks_;// ticks dropped while behind
+    private Thread simulation_;// thread running the ticks
+    private Timer renderTimer_;// swing timer painting on the EDT
+    private DenSnapshot rendered_;// last snapshot painted, EDT only
+    private volatile FrameExporter exporter_;// saves painted frames, may be null
+    private volatile SpectatorServer spectators_;// streams snapshots, may be null
+    private boolean recording_;// den records changes, simulation thread only
+    private boolean chained_;// changes_ covers every tick since the last publish
+    private ByteBuffer changes_;// change records since the last publish
+
+    /**
+     * Constructor for game loop
+     * @param1 is the den
+     * @param2 is the number of ticks per second
+     */
+    public GameLoop(Den den, int ticksPerSecond) {
+        this(den,ticksPerSecond,DEFAULT_MAX_CATCH_UP_TICKS);
+    }
+
+    /**
+     * Constructor for game loop
+     * @param1 is the den
+     * @param2 is the number of ticks per second
+     * @param3 is the most ticks run back to back when behind
+     */
+    public GameLoop(Den den, int ticksPerSecond, int maxCatchUpTicks) {
+        if(ticksPerSecond<=0 || maxCatchUpTicks<=0){
+            throw new IllegalArgumentException("tick rate and catch up ticks must be positive");
+        }
+        den_=den;
+        tickNanos_=1000000000L/ticksPerSecond;
+        maxCatchUpTicks_=maxCatchUpTicks;
+        latest_=den.snapshot(0);
+    }
+
+    /**
+     * starts the simulation thread without painting. Snapshots are still
+     * published and can be read with getLatestSnapshot.
+     */
+    public synchronized void start() {
+        if(running_){
+            return;
+        }
+        running_=true;
+        simulation_=new Thread(this::runSimulation,"den-simulation");
+        simulation_.setDaemon(true);
+        simulation_.start();
+    }
+
+    /**
+     * starts the simulation thread and paints the latest snapshot with Paint
+     * on the event dispatch thread. Paint.buildWindow must have been called.
+     * @param1 is the number of frames per second
+     */
+    public synchronized void start(int framesPerSecond) {
+        start();
+        if(renderTimer_==null){
+            renderTimer_=new Timer(Math.max(1,1000/framesPerSecond),e -> render());
+            renderTimer_.setCoalesce(true);
+            Paint.setAutoRepaint(false);
+            renderTimer_.start();
+        }
+    }
+
+    /**
+     * stops the simulation and the painting and waits for the simulation
+     * thread to finish its current tick
+     */
+    public void stop() {
+        Thread simulation;
+        synchronized(this){
+            running_=false;
+            if(renderTimer_!=null){
+                renderTimer_.stop();
+                renderTimer_=null;
+            }
+            simulation=simulation_;
+            simulation_=null;
+        }
+        if(simulation!=null && simulation!=Thread.currentThread()){
+            LockSupport.unpark(simulation);
+            try{
+                simulation.join();
+            } catch(InterruptedException e){
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * saves every frame painted from now on. Frames are dropped rather than
+     * slowing the painting down when the exporter falls behind.
+     * @param1 is the exporter, or null to stop saving frames
+     */
+    public void setFrameExporter(FrameExporter exporter) {
+        exporter_=exporter;
+    }
+
+    /**
+     * streams every snapshot published from now on to spectators, along with
+     * the den's change records so spectators get only what changed
+     * @param1 is the server, or null to stop streaming
+     */
+    public void setSpectatorServer(SpectatorServer server) {
+        spectators_=server;
+    }
+
+    /**
+     * getter for the latest snapshot
+     * @return is the last snapshot published by the simulation
+     */
+    public DenSnapshot getLatestSnapshot() {
+        return latest_;
+    }
+
+    /**
+     * getter for the number of ticks
+     * @return is the number of ticks run so far
+     */
+    public long getTickCount() {
+        return ticks_;
+    }
+
+    /**
+     * getter for the number of skipped ticks
+     * @return is the number of ticks dropped because the loop was behind
+     */
+    public long getSkippedTicks() {
+        return skippedTicks_;
+    }
+
+    /**
+     * checks if the loop is running
+     * @return is true between start and stop
+     */
+    public boolean isRunning() {
+        return running_;
+    }
+
+    /**
+     * body of the simulation thread
+     */
+    private void runSimulation() {
+        long next=System.nanoTime();
+        while(running_){
+            long now=System.nanoTime();
+            if(now<next){
+                LockSupport.parkNanos(next-now);
+                continue;
+            }
+            SpectatorServer spectators=spectators_;
+            if(spectators!=null && recording_==false){
+                den_.setRecordChanges(true);
+                recording_=true;
+                chained_=false;
+                changes_=ByteBuffer.allocate(1024);
+            }
+            int ran=0;
+            while(ran<maxCatchUpTicks_ && now>=next && running_){
+                den_.tick();
+                if(recording_){
+                    keepChanges(den_.getLastChanges());
+                }
+                ticks_++;
+                next+=tickNanos_;
+                ran++;
+            }
+            if(now>=next){
+                long behind=(now-next)/tickNanos_+1;
+                skippedTicks_+=behind;
+                next+=behind*tickNanos_;
+            }
+            DenSnapshot snapshot=den_.snapshot(ticks_);
+            latest_=snapshot;
+            if(spectators!=null){
+                changes_.flip();
+                spectators.publish(snapshot,chained_ ? changes_ : null);
+                changes_.clear();
+                chained_=true;
+            }
+        }
+    }
+
+    /**
+     * appends the change record of a tick to changes_
+     */
+    private void keepChanges(ByteBuffer record) {
+        if(changes_.remaining()<record.remaining()){
+            ByteBuffer bigger=ByteBuffer.allocate(Math.max(changes_.capacity()*2,changes_.position()+record.remaining()));
+            changes_.flip();
+            bigger.put(changes_);
+            changes_=bigger;
+        }
+        int position=record.position();
+        changes_.put(record);
+        record.position(position);
+    }
+
+    /**
+     * paints the latest snapshot if it has not been painted yet
+     */
+    private void render() {
+        DenSnapshot snapshot=latest_;
+        if(snapshot==rendered_){
+            return;
+        }
+        rendered_=snapshot;
+        Paint.clear();
+        snapshot.paint();
+        Paint.paint();
+        FrameExporter exporter=exporter_;
+        if(exporter!=null){
+            exporter.capture();
+        }
+    }
+}
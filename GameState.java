@@ -0,0 +1,427 @@
+// Making the game state class
+/**
+ * Compact copy of a den and the snakes in it for search. Cells are one byte
+ * each (1 dirt, 2 rock, 3 food, 4 snake body) and every snake is a ring of
+ * cell indices. Moves are written to an undo log, so a search can take a
+ * mark, play a line of moves and roll back to the mark at a cost of the
+ * cells that changed rather than copying the whole state.
+ *
+ * Snakes move one at a time in the order they were added, like Den.tick().
+ * Eaten food reappears on a random dirt cell chosen by the state's own
+ * random numbers.
+ *
+ * The state keeps the same Zobrist hash as Den.getHash() up to date through
+ * moves and undo, for use with a TranspositionTable.
+ */
+public final class GameState {
+    /** Cell content of a snake segment */
+    public static final byte BODY = (byte)Zobrist.BODY;
+
+    private static final int CELL = 0;// undo entry: index, old content
+    private static final int SNAKE = 1;// undo entry: snake, old head, old length
+    private static final int DEATH = 2;// undo entry: snake
+
+    private final int rows_;// number of rows
+    private final int columns_;// number of columns
+    private final byte[] cells_;// contents, row by row
+    private final int[][] bodies_;// ring of cell indices per snake
+    private final int[] head_;// position of the head in each ring
+    private final int[] length_;// length of each snake
+    private final boolean[] alive_;// whether each snake is alive
+    private final int[] eaten_;// food eaten by each snake
+    private int[] log_;// undo log, four ints per entry
+    private int logSize_;// ints used in the undo log
+    private long random_;// state of the xorshift generator
+    private long hash_;// zobrist hash of the position
+
+    /**
+     * Constructor for game state. Copies the den and its living snakes.
+     * @param1 is the den
+     * @param2 is the seed for food placement and random moves
+     */
+    public GameState(Den den, long seed) {
+        rows_=den.getRows();
+        columns_=den.getColumns();
+        cells_=new byte[rows_*columns_];
+        int count=den.getSnakeCount();
+        bodies_=new int[count][];
+        head_=new int[count];
+        length_=new int[count];
+        alive_=new boolean[count];
+        eaten_=new int[count];
+        log_=new int[256];
+        load(den,seed);
+    }
+
+    /**
+     * Constructor for an independent copy of another state with an empty
+     * undo log, for searching the same position on another thread
+     */
+    private GameState(GameState other, long seed) {
+        rows_=other.rows_;
+        columns_=other.columns_;
+        cells_=other.cells_.clone();
+        bodies_=new int[other.bodies_.length][];
+        for(int s=0;s<bodies_.length;s++){
+            bodies_[s]=other.bodies_[s].clone();
+        }
+        head_=other.head_.clone();
+        length_=other.length_.clone();
+        alive_=other.alive_.clone();
+        eaten_=other.eaten_.clone();
+        log_=new int[256];
+        random_=seed==0 ? 0x9E3779B97F4A7C15L : seed;
+        hash_=other.hash_;
+    }
+
+    /**
+     * checks if load can copy a den into this state
+     * @return is true if the den has the same size and number of snakes
+     */
+    public boolean fits(Den den) {
+        return den.getRows()==rows_ && den.getColumns()==columns_ && den.getSnakeCount()==bodies_.length;
+    }
+
+    /**
+     * copies a den and its living snakes into this state, reusing its
+     * arrays, and empties the undo log. A search that loads every decision
+     * into the same state allocates nothing once the snakes stop growing.
+     * @param1 is the den, which must fit
+     * @param2 is the seed for food placement and random moves
+     */
+    public void load(Den den, long seed) {
+        if(fits(den)==false){
+            throw new IllegalArgumentException("den does not fit the game state");
+        }
+        int size=cells_.length;
+        for(int row=0;row<rows_;row++){
+            for(int column=0;column<columns_;column++){
+                cells_[row*columns_+column]=(byte)den.getContent(row,column);
+            }
+        }
+        for(int s=0;s<bodies_.length;s++){
+            Snake snake=den.getSnake(s);
+            int length=snake.getLength();
+            if(bodies_[s]==null || bodies_[s].length<length){
+                bodies_[s]=new int[Math.max(size,length)];
+            }
+            int[] body=bodies_[s];
+            // the ring runs tail to head so the head is at length-1
+            for(int i=0;i<length;i++){
+                SnakeSegment segment=snake.getIthSegment(i);
+                body[length-1-i]=segment.getRow()*columns_+segment.getColumn();
+            }
+            head_[s]=length-1;
+            length_[s]=length;
+            alive_[s]=snake.isAlive();
+            eaten_[s]=0;
+            if(alive_[s]){
+                for(int i=0;i<length;i++){
+                    cells_[body[i]]=BODY;
+                }
+            }
+        }
+        logSize_=0;
+        random_=seed==0 ? 0x9E3779B97F4A7C15L : seed;
+        hash_=0;
+        for(int cell=0;cell<size;cell++){
+            hash_^=key(cell,cells_[cell]);
+        }
+        for(int s=0;s<bodies_.length;s++){
+            if(alive_[s]){
+                hash_^=key(getHead(s),Zobrist.HEAD);
+            }
+        }
+    }
+
+    /**
+     * makes room in the undo log so moves do not have to grow it
+     * @param1 is the number of entries to make room for
+     */
+    public void reserve(int entries) {
+        if(entries*4>log_.length){
+            int[] bigger=new int[entries*4];
+            System.arraycopy(log_,0,bigger,0,logSize_);
+            log_=bigger;
+        }
+    }
+
+    /**
+     * copies the state
+     * @param1 is the seed of the copy's random numbers
+     * @return is an independent copy with an empty undo log
+     */
+    public GameState copy(long seed) {
+        return new GameState(this,seed);
+    }
+
+    /**
+     * getter for the number of rows
+     * @return is the number of rows
+     */
+    public int getRows() {
+        return rows_;
+    }
+
+    /**
+     * getter for the number of columns
+     * @return is the number of columns
+     */
+    public int getColumns() {
+        return columns_;
+    }
+
+    /**
+     * getter for a cell
+     * @return is the content of the cell (1 dirt, 2 rock, 3 food, 4 body)
+     */
+    public int getContent(int row, int column) {
+        return cells_[row*columns_+column];
+    }
+
+    /**
+     * getter for the number of snakes
+     * @return is the number of snakes
+     */
+    public int getSnakeCount() {
+        return bodies_.length;
+    }
+
+    /**
+     * checks if a snake is alive
+     * @return is true if alive
+     */
+    public boolean isAlive(int snake) {
+        return alive_[snake];
+    }
+
+    /**
+     * getter for the length of a snake
+     * @return is the length
+     */
+    public int getLength(int snake) {
+        return length_[snake];
+    }
+
+    /**
+     * getter for the food a snake has eaten since the state was made
+     * @return is the number of pieces of food
+     */
+    public int getEaten(int snake) {
+        return eaten_[snake];
+    }
+
+    /**
+     * getter for the head of a snake
+     * @return is the head as row*columns+column
+     */
+    public int getHead(int snake) {
+        return bodies_[snake][head_[snake]];
+    }
+
+    /**
+     * getter for the hash
+     * @return is the zobrist hash of the position, as Den.getHash() would
+     * give for a den that looked the same
+     */
+    public long getHash() {
+        return hash_;
+    }
+
+    /**
+     * takes a mark that undo can roll back to
+     * @return is the mark
+     */
+    public int mark() {
+        return logSize_;
+    }
+
+    /**
+     * rolls back every move made since the mark was taken
+     * @param1 is the mark
+     */
+    public void undo(int mark) {
+        while(logSize_>mark){
+            logSize_-=4;
+            int kind=log_[logSize_];
+            int a=log_[logSize_+1];
+            if(kind==CELL){
+                hash_^=key(a,cells_[a])^key(a,log_[logSize_+2]);
+                cells_[a]=(byte)log_[logSize_+2];
+            }
+            else if(kind==SNAKE){
+                if(length_[a]>log_[logSize_+3]){
+                    eaten_[a]--;
+                }
+                hash_^=key(getHead(a),Zobrist.HEAD);
+                head_[a]=log_[logSize_+2];
+                length_[a]=log_[logSize_+3];
+                hash_^=key(getHead(a),Zobrist.HEAD);
+            }
+            else{
+                alive_[a]=true;
+                hash_^=key(getHead(a),Zobrist.HEAD);
+            }
+        }
+    }
+
+    /**
+     * finds the cell a snake's head would move to
+     * @param1 is the snake
+     * @param2 is the direction
+     * @return is the cell as row*columns+column, or -1 if it is off the den
+     */
+    public int target(int snake, int direction) {
+        int head=getHead(snake);
+        int row=head/columns_;
+        int column=head-row*columns_;
+        if(direction==Paint.UP){
+            return row>0 ? head-columns_ : -1;
+        }
+        else if(direction==Paint.DOWN){
+            return row<rows_-1 ? head+columns_ : -1;
+        }
+        else if(direction==Paint.LEFT){
+            return column>0 ? head-1 : -1;
+        }
+        else if(direction==Paint.RIGHT){
+            return column<columns_-1 ? head+1 : -1;
+        }
+        return -1;
+    }
+
+    /**
+     * checks if a snake can move in a direction without dying
+     * @return is true if the target cell is dirt or food
+     */
+    public boolean canMove(int snake, int direction) {
+        int target=target(snake,direction);
+        return target>=0 && (cells_[target]==1 || cells_[target]==3);
+    }
+
+    /**
+     * moves a snake one cell. It grows on food and dies if it cannot move.
+     * @param1 is the snake
+     * @param2 is the direction
+     */
+    public void move(int snake, int direction) {
+        if(alive_[snake]==false){
+            return;
+        }
+        int target=target(snake,direction);
+        if(target<0 || (cells_[target]!=1 && cells_[target]!=3)){
+            log(DEATH,snake,0,0);
+            alive_[snake]=false;
+            hash_^=key(getHead(snake),Zobrist.HEAD);
+            // dead snakes leave the den, as in Den.isSnakeAt
+            int[] body=bodies_[snake];
+            for(int i=0,at=head_[snake];i<length_[snake];i++){
+                setCell(body[at],(byte)1);
+                at=at==0 ? body.length-1 : at-1;
+            }
+            return;
+        }
+        int[] body=bodies_[snake];
+        log(SNAKE,snake,head_[snake],length_[snake]);
+        boolean food=cells_[target]==3;
+        if(food){
+            length_[snake]++;
+            eaten_[snake]++;
+        }
+        else{
+            int tail=head_[snake]-length_[snake]+1;
+            if(tail<0){
+                tail+=body.length;
+            }
+            setCell(body[tail],(byte)1);
+        }
+        int head=head_[snake]+1;
+        if(head==body.length){
+            head=0;
+        }
+        hash_^=key(body[head_[snake]],Zobrist.HEAD)^key(target,Zobrist.HEAD);
+        head_[snake]=head;
+        body[head]=target;
+        setCell(target,BODY);
+        if(food){
+            dropFood();
+        }
+    }
+
+    /**
+     * moves a snake in a random direction it can move in, or straight up
+     * (and so to its death) if there is none
+     * @param1 is the snake
+     * @return is the direction moved
+     */
+    public int moveRandomly(int snake) {
+        int start=nextInt(4);
+        for(int i=0;i<4;i++){
+            int direction=(start+i)&3;
+            if(canMove(snake,direction)){
+                move(snake,direction);
+                return direction;
+            }
+        }
+        move(snake,Paint.UP);
+        return Paint.UP;
+    }
+
+    /**
+     * returns a random number below bound from the state's own generator
+     */
+    public int nextInt(int bound) {
+        long x=random_;
+        x^=x<<13;
+        x^=x>>>7;
+        x^=x<<17;
+        random_=x;
+        return (int)((x>>>33)%bound);
+    }
+
+    /**
+     * puts food on a random dirt cell, giving up after a few tries on a full den
+     */
+    private void dropFood() {
+        for(int tries=0;tries<64;tries++){
+            int cell=nextInt(cells_.length);
+            if(cells_[cell]==1){
+                setCell(cell,(byte)3);
+                return;
+            }
+        }
+    }
+
+    /**
+     * changes a cell and logs its old content
+     */
+    private void setCell(int cell, byte content) {
+        log(CELL,cell,cells_[cell],0);
+        hash_^=key(cell,cells_[cell])^key(cell,content);
+        cells_[cell]=content;
+    }
+
+    /**
+     * getter for the zobrist key of a cell index
+     */
+    private long key(int cell, int content) {
+        int row=cell/columns_;
+        return Zobrist.key(row,cell-row*columns_,content);
+    }
+
+    /**
+     * appends an entry to the undo log
+     */
+    private void log(int kind, int a, int b, int c) {
+        if(logSize_+4>log_.length){
+            int[] bigger=new int[log_.length*2];
+            System.arraycopy(log_,0,bigger,0,logSize_);
+            log_=bigger;
+        }
+        log_[logSize_]=kind;
+        log_[logSize_+1]=a;
+        log_[logSize_+2]=b;
+        log_[logSize_+3]=c;
+        logSize_+=4;
+    }
+}
@@ -0,0 +1,369 @@
+// Making the hamiltonian cycle class
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * A cycle through the free cells of a den map, for snakes that survive by
+ * following it. A snake that stays on a cycle can never run into itself, and
+ * one whose cycle covers the den can grow until it fills the den.
+ *
+ * Finding a Hamiltonian cycle around random rocks is hard in general, so the
+ * cycle is built the usual practical way. The den is cut into 2 by 2 blocks;
+ * the blocks without a rock are joined by a spanning tree, and the cycle is
+ * the walk around that tree, which passes every cell of those blocks. Then
+ * free cells the walk missed are spliced in two at a time wherever the cycle
+ * runs past a free pair of them. All four ways of lining the blocks up with
+ * the den are tried and the longest cycle kept; on the usual den it covers
+ * nearly every free cell.
+ *
+ * Cycles depend only on the size of the den and its rocks, so forDen keeps
+ * the CACHE_SIZE cycles used most recently, keyed by the layout hash of the
+ * den, and games played again on the same map reuse them. Cycles are
+ * immutable and shared by every snake and thread that asks for them.
+ */
+public final class HamiltonianCycle {
+    /** Most cycles kept by forDen */
+    public static final int CACHE_SIZE = 32;
+
+    /** Cycles by layout key, least recently used first; lock it to use it */
+    private static final LinkedHashMap<Long,HamiltonianCycle> CACHE=new LinkedHashMap<Long,HamiltonianCycle>(16,0.75f,true);
+
+    private final int rows_;// rows of the den
+    private final int columns_;// columns of the den
+    private final long layoutHash_;// layout hash of the den
+    private final int[] next_;// next cell per cell, -1 if not on the cycle
+    private final int[] order_;// place on the cycle per cell, -1 if not on it
+    private final int length_;// cells on the cycle
+
+    /**
+     * Constructor for hamiltonian cycle
+     */
+    private HamiltonianCycle(int rows, int columns, long layoutHash, int[] next) {
+        rows_=rows;
+        columns_=columns;
+        layoutHash_=layoutHash;
+        next_=next;
+        order_=new int[next.length];
+        Arrays.fill(order_,-1);
+        int length=0;
+        int start=-1;
+        for(int cell=0;cell<next.length && start<0;cell++){
+            if(next[cell]>=0){
+                start=cell;
+            }
+        }
+        if(start>=0){
+            int cell=start;
+            do{
+                order_[cell]=length++;
+                cell=next[cell];
+            }while(cell!=start);
+        }
+        length_=length;
+    }
+
+    /**
+     * gets the cycle of a den's map, building it if it is not in the cache
+     * @param1 is the den
+     * @return is the cycle
+     */
+    public static HamiltonianCycle forDen(Den den) {
+        Long key=den.getLayoutHash()^den.getRows()*0x9E3779B97F4A7C15L^den.getColumns()*0xC2B2AE3D27D4EB4FL;
+        synchronized(CACHE){
+            HamiltonianCycle cycle=CACHE.get(key);
+            if(cycle!=null && cycle.matches(den)){
+                return cycle;
+            }
+        }
+        // built outside the lock so other threads are not held up; two
+        // threads may both build a cycle for a new map, which does no harm
+        HamiltonianCycle cycle=build(den);
+        synchronized(CACHE){
+            CACHE.put(key,cycle);
+            if(CACHE.size()>CACHE_SIZE){
+                Iterator<Long> eldest=CACHE.keySet().iterator();
+                eldest.next();
+                eldest.remove();
+            }
+        }
+        return cycle;
+    }
+
+    /**
+     * builds the cycle of a den's map without the cache
+     * @param1 is the den
+     * @return is the cycle
+     */
+    public static HamiltonianCycle build(Den den) {
+        int rows=den.getRows();
+        int columns=den.getColumns();
+        boolean[] free=new boolean[rows*columns];
+        for(int row=0;row<rows;row++){
+            for(int column=0;column<columns;column++){
+                free[row*columns+column]=den.getContent(row,column)!=2;
+            }
+        }
+        int[] best=null;
+        int bestLength=0;
+        for(int offset=0;offset<4;offset++){
+            int[] next=blockCycle(free,rows,columns,offset>>1,offset&1);
+            if(next==null){
+                continue;
+            }
+            int length=splice(next,free,rows,columns);
+            if(length>bestLength){
+                best=next;
+                bestLength=length;
+            }
+        }
+        if(best==null){
+            best=new int[rows*columns];
+            Arrays.fill(best,-1);
+        }
+        return new HamiltonianCycle(rows,columns,den.getLayoutHash(),best);
+    }
+
+    /**
+     * builds the walk around a spanning tree of the rock free 2 by 2 blocks
+     * in the largest group of them
+     * @param1 is the free cells
+     * @param2 is the number of rows
+     * @param3 is the number of columns
+     * @param4 is the row the blocks start at, 0 or 1
+     * @param5 is the column the blocks start at, 0 or 1
+     * @return is the next cell per cell, -1 off the cycle, or null if there
+     * are no free blocks
+     */
+    private static int[] blockCycle(boolean[] free, int rows, int columns, int rowOffset, int columnOffset) {
+        int blockRows=(rows-rowOffset)/2;
+        int blockColumns=(columns-columnOffset)/2;
+        int blocks=blockRows*blockColumns;
+        if(blocks==0){
+            return null;
+        }
+        boolean[] open=new boolean[blocks];
+        for(int b=0;b<blocks;b++){
+            int cell=(rowOffset+2*(b/blockColumns))*columns+columnOffset+2*(b%blockColumns);
+            open[b]=free[cell] && free[cell+1] && free[cell+columns] && free[cell+columns+1];
+        }
+        // breadth first trees of every group of blocks, keeping the largest
+        int[] parent=new int[blocks];
+        int[] group=new int[blocks];
+        Arrays.fill(group,-1);
+        int[] queue=new int[blocks];
+        int bestRoot=-1;
+        int bestSize=0;
+        for(int root=0;root<blocks;root++){
+            if(open[root]==false || group[root]>=0){
+                continue;
+            }
+            parent[root]=-1;
+            group[root]=root;
+            int head=0;
+            int tail=0;
+            queue[tail++]=root;
+            while(head<tail){
+                int b=queue[head++];
+                int bRow=b/blockColumns;
+                int bColumn=b%blockColumns;
+                for(int direction=Paint.UP;direction<=Paint.RIGHT;direction++){
+                    int nRow=bRow+rowStep(direction);
+                    int nColumn=bColumn+columnStep(direction);
+                    if(nRow<0 || nRow>=blockRows || nColumn<0 || nColumn>=blockColumns){
+                        continue;
+                    }
+                    int n=nRow*blockColumns+nColumn;
+                    if(open[n] && group[n]<0){
+                        parent[n]=b;
+                        group[n]=root;
+                        queue[tail++]=n;
+                    }
+                }
+            }
+            if(tail>bestSize){
+                bestSize=tail;
+                bestRoot=root;
+            }
+        }
+        if(bestRoot<0){
+            return null;
+        }
+        // each block starts as a loop around its 4 cells, and every tree
+        // edge opens the two loops it joins into one
+        int[] links=new int[rows*columns];
+        for(int b=0;b<blocks;b++){
+            if(group[b]!=bestRoot){
+                continue;
+            }
+            int cell=(rowOffset+2*(b/blockColumns))*columns+columnOffset+2*(b%blockColumns);
+            links[cell]|=bit(Paint.RIGHT)|bit(Paint.DOWN);
+            links[cell+1]|=bit(Paint.LEFT)|bit(Paint.DOWN);
+            links[cell+columns]|=bit(Paint.RIGHT)|bit(Paint.UP);
+            links[cell+columns+1]|=bit(Paint.LEFT)|bit(Paint.UP);
+        }
+        for(int b=0;b<blocks;b++){
+            if(group[b]!=bestRoot || parent[b]<0){
+                continue;
+            }
+            int p=parent[b];
+            int upper=Math.min(p,b);
+            int lower=Math.max(p,b);
+            int cell=(rowOffset+2*(upper/blockColumns))*columns+columnOffset+2*(upper%blockColumns);
+            if(upper/blockColumns==lower/blockColumns){
+                // side by side: the facing sides open and the rows join
+                links[cell+1]^=bit(Paint.DOWN)|bit(Paint.RIGHT);
+                links[cell+columns+1]^=bit(Paint.UP)|bit(Paint.RIGHT);
+                links[cell+2]^=bit(Paint.DOWN)|bit(Paint.LEFT);
+                links[cell+columns+2]^=bit(Paint.UP)|bit(Paint.LEFT);
+            }
+            else{
+                // one above the other: the facing sides open and the columns join
+                links[cell+columns]^=bit(Paint.RIGHT)|bit(Paint.DOWN);
+                links[cell+columns+1]^=bit(Paint.LEFT)|bit(Paint.DOWN);
+                links[cell+2*columns]^=bit(Paint.RIGHT)|bit(Paint.UP);
+                links[cell+2*columns+1]^=bit(Paint.LEFT)|bit(Paint.UP);
+            }
+        }
+        // follow the links once around to get the next cell of each cell
+        int[] next=new int[rows*columns];
+        Arrays.fill(next,-1);
+        int start=(rowOffset+2*(bestRoot/blockColumns))*columns+columnOffset+2*(bestRoot%blockColumns);
+        int previous=-1;
+        int cell=start;
+        do{
+            int following=-1;
+            for(int direction=Paint.UP;direction<=Paint.RIGHT;direction++){
+                if((links[cell]&bit(direction))!=0){
+                    int neighbor=cell+rowStep(direction)*columns+columnStep(direction);
+                    if(neighbor!=previous){
+                        following=neighbor;
+                        break;
+                    }
+                }
+            }
+            next[cell]=following;
+            previous=cell;
+            cell=following;
+        }while(cell!=start);
+        return next;
+    }
+
+    /**
+     * splices free cells missed by the cycle into it, two at a time: where
+     * the cycle steps from a to b and the two cells beside a and b on the
+     * same side are free and missed, a to b becomes a, c, d, b
+     * @return is the length of the cycle
+     */
+    private static int splice(int[] next, boolean[] free, int rows, int columns) {
+        int start=-1;
+        int length=0;
+        for(int cell=0;cell<next.length;cell++){
+            if(next[cell]>=0){
+                length++;
+                start=cell;
+            }
+        }
+        boolean changed=true;
+        while(changed){
+            changed=false;
+            int a=start;
+            do{
+                int b=next[a];
+                int aRow=a/columns;
+                int aColumn=a%columns;
+                int bColumn=b%columns;
+                for(int side=-1;side<=1;side+=2){
+                    int cRow=aRow==b/columns ? aRow+side : aRow;
+                    int cColumn=aColumn==bColumn ? aColumn+side : aColumn;
+                    int dRow=cRow+b/columns-aRow;
+                    int dColumn=cColumn+bColumn-aColumn;
+                    if(cRow<0 || cRow>=rows || cColumn<0 || cColumn>=columns
+                       || dRow<0 || dRow>=rows || dColumn<0 || dColumn>=columns){
+                        continue;
+                    }
+                    int c=cRow*columns+cColumn;
+                    int d=dRow*columns+dColumn;
+                    if(free[c] && free[d] && next[c]<0 && next[d]<0){
+                        next[a]=c;
+                        next[c]=d;
+                        next[d]=b;
+                        length+=2;
+                        changed=true;
+                        break;
+                    }
+                }
+                a=next[a];
+            }while(a!=start);
+        }
+        return length;
+    }
+
+    /**
+     * link bit of a direction
+     */
+    private static int bit(int direction) {
+        return 1<<direction;
+    }
+
+    /**
+     * row step of a direction
+     */
+    private static int rowStep(int direction) {
+        return direction==Paint.UP ? -1 : direction==Paint.DOWN ? 1 : 0;
+    }
+
+    /**
+     * column step of a direction
+     */
+    private static int columnStep(int direction) {
+        return direction==Paint.LEFT ? -1 : direction==Paint.RIGHT ? 1 : 0;
+    }
+
+    /**
+     * checks if the cycle was built for a den's map
+     * @param1 is the den
+     * @return is true if the den has the size and rocks of the cycle
+     */
+    public boolean matches(Den den) {
+        return den.getRows()==rows_ && den.getColumns()==columns_ && den.getLayoutHash()==layoutHash_;
+    }
+
+    /**
+     * getter for the length
+     * @return is the number of cells on the cycle
+     */
+    public int getLength() {
+        return length_;
+    }
+
+    /**
+     * getter for the next cell, cells being numbered row*columns+column
+     * @param1 is the cell
+     * @return is the next cell on the cycle, or -1 if the cell is not on it
+     */
+    public int next(int cell) {
+        return next_[cell];
+    }
+
+    /**
+     * getter for the place of a cell on the cycle
+     * @param1 is the cell
+     * @return is the place, from 0 to getLength()-1, or -1 if the cell is not
+     * on the cycle
+     */
+    public int order(int cell) {
+        return order_[cell];
+    }
+
+    /**
+     * counts the steps along the cycle from one cell to another, both on it
+     * @param1 is the cell to start from
+     * @param2 is the cell to get to
+     * @return is the number of steps, from 0 to getLength()-1
+     */
+    public int distance(int from, int to) {
+        int steps=order_[to]-order_[from];
+        return steps<0 ? steps+length_ : steps;
+    }
+}
@@ -0,0 +1,189 @@
+// Making the hamiltonian snake class
+import java.awt.Color;
+
+/**
+ * A snake for survival games that follows a HamiltonianCycle of its den.
+ * Once its whole body lies along the cycle it cannot run into itself, so it
+ * lives until the den is full or another snake gets in its way. While it is
+ * short it takes shortcuts: it jumps ahead along the cycle to a neighboring
+ * cell, as long as the cell lies between its head and its tail with room to
+ * grow and not past the food it is going for, which keeps its body in cycle
+ * order. It stops taking shortcuts once it fills SHORTCUT_FILL of the cycle.
+ *
+ * Off the cycle, or while its body is not yet laid along it, it moves to the
+ * neighbor with the most room, going by Den.reachableRegions, and joins the
+ * cycle when it can. Each move looks at the four neighbors only; the den is
+ * scanned for food only when the food it was going for is gone. The cycle is
+ * looked up once per den map and shared with every other snake on it.
+ */
+public class HamiltonianSnake extends Snake {
+    /** Part of the cycle the snake may fill and still take shortcuts */
+    public static final double SHORTCUT_FILL = 0.5;
+
+    /** Cells kept free between the head and the tail when taking shortcuts */
+    public static final int SHORTCUT_ROOM = 4;
+
+    private HamiltonianCycle cycle_;// cycle of the den last moved in
+    private final int[] sizes_;// scratch space for reachableRegions
+    private int onCycle_;// moves made along the cycle in a row
+    private int food_;// cell of the food being gone for, -1 if none
+
+    /**
+     * Constructor for hamiltonian snake
+     * @param1 is the row of the head
+     * @param2 is the column of the head
+     * @param3 is the color
+     * @param4 is the length
+     */
+    public HamiltonianSnake(int row, int column, Color color, int length) {
+        super(row,column,color,length);
+        sizes_=new int[4];
+        food_=-1;
+    }
+
+    /**
+     * follows the cycle, taking a shortcut when it is safe, or makes for the
+     * cycle when the snake is not on it
+     * @param1 is the den
+     * @return is the direction
+     */
+    public int getNextMove(Den den) {
+        if(cycle_==null || cycle_.matches(den)==false){
+            cycle_=HamiltonianCycle.forDen(den);
+            onCycle_=0;
+            food_=-1;
+        }
+        int columns=den.getColumns();
+        int head=getHeadSegment().getRow()*columns+getHeadSegment().getColumn();
+        int next=cycle_.next(head);
+        if(next>=0 && onCycle_>=length_){
+            int best=next;
+            if(length_<cycle_.getLength()*SHORTCUT_FILL){
+                best=shortcut(den,head,next);
+            }
+            int direction=directionTo(head,best,columns);
+            if(canMove(den,direction)){
+                onCycle_++;
+                return direction;
+            }
+        }
+        else if(next>=0){
+            int direction=directionTo(head,next,columns);
+            if(canMove(den,direction)){
+                onCycle_++;
+                return direction;
+            }
+        }
+        return makeRoom(den,head,columns);
+    }
+
+    /**
+     * picks the cell furthest ahead on the cycle among the next cell and the
+     * neighbors of the head that are safe to jump to
+     * @param1 is the den
+     * @param2 is the head cell
+     * @param3 is the next cell on the cycle
+     * @return is the cell to move to
+     */
+    private int shortcut(Den den, int head, int next) {
+        int columns=den.getColumns();
+        int tail=getTailSegment().getRow()*columns+getTailSegment().getColumn();
+        if(cycle_.order(tail)<0){
+            return next;
+        }
+        int limit=cycle_.distance(head,tail)-SHORTCUT_ROOM;
+        int target=food(den,head);
+        if(target>=0){
+            limit=Math.min(limit,cycle_.distance(head,target));
+        }
+        int best=next;
+        int bestDistance=1;
+        for(int direction=Paint.UP;direction<=Paint.RIGHT;direction++){
+            if(canMove(den,direction)==false){
+                continue;
+            }
+            int cell=nextRow(direction)*columns+nextColumn(direction);
+            if(cycle_.order(cell)<0){
+                continue;
+            }
+            int distance=cycle_.distance(head,cell);
+            if(distance>bestDistance && distance<=limit){
+                best=cell;
+                bestDistance=distance;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * getter for the food being gone for, picking the food nearest ahead on
+     * the cycle when the last one is gone
+     * @param1 is the den
+     * @param2 is the head cell
+     * @return is the cell of the food, or -1 if there is none on the cycle
+     */
+    private int food(Den den, int head) {
+        int columns=den.getColumns();
+        if(food_>=0 && den.getContent(food_/columns,food_%columns)==3){
+            return food_;
+        }
+        food_=-1;
+        int bestDistance=Integer.MAX_VALUE;
+        for(long found=den.findContent(3,0,0);found>=0;){
+            int cell=(int)found;
+            if(cycle_.order(cell)>=0){
+                int distance=cycle_.distance(head,cell);
+                if(distance<bestDistance){
+                    bestDistance=distance;
+                    food_=cell;
+                }
+            }
+            found=den.findContent(3,cell/columns,cell%columns+1);
+        }
+        return food_;
+    }
+
+    /**
+     * moves to the neighbor with the most room, preferring cells on the
+     * cycle, when the cycle cannot be followed
+     * @param1 is the den
+     * @param2 is the head cell
+     * @param3 is the number of columns
+     * @return is the direction
+     */
+    private int makeRoom(Den den, int head, int columns) {
+        onCycle_=0;
+        den.reachableRegions(this,sizes_);
+        int best=Paint.UP;
+        int bestScore=-1;
+        for(int direction=Paint.UP;direction<=Paint.RIGHT;direction++){
+            if(sizes_[direction]==0){
+                continue;
+            }
+            int cell=nextRow(direction)*columns+nextColumn(direction);
+            int score=sizes_[direction]*2+(cycle_.order(cell)>=0 ? 1 : 0);
+            if(score>bestScore){
+                bestScore=score;
+                best=direction;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * direction of a neighboring cell
+     */
+    private static int directionTo(int from, int to, int columns) {
+        int step=to-from;
+        if(step==-columns){
+            return Paint.UP;
+        }
+        else if(step==columns){
+            return Paint.DOWN;
+        }
+        else if(step==-1){
+            return Paint.LEFT;
+        }
+        return Paint.RIGHT;
+    }
+}
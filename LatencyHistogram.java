@@ -0,0 +1,142 @@
+// Making the latency histogram class
+import java.util.Arrays;
+
+/**
+ * Histogram of latencies in nanoseconds with a fixed relative precision, in
+ * the style of HdrHistogram. Values below SUB_BUCKETS are counted exactly;
+ * above that every power of two is split into SUB_BUCKETS/2 equal buckets, so
+ * a reported value is never more than 2/SUB_BUCKETS (under 1%) above the
+ * value recorded. Recording is a few shifts and an array increment and never
+ * allocates, so it can sit on the tick path.
+ *
+ * Not thread safe; give each thread its own histogram and add them up.
+ */
+public final class LatencyHistogram {
+    /** Bits of precision kept for each value */
+    public static final int PRECISION_BITS = 8;
+
+    /** Values counted exactly, and twice the buckets per power of two */
+    public static final int SUB_BUCKETS = 1 << PRECISION_BITS;
+
+    private static final int HALF = SUB_BUCKETS / 2;
+
+    private final long[] counts_;// count per bucket
+    private long count_;// values recorded
+    private long max_;// largest value recorded
+    private double sum_;// sum of the values recorded
+
+    /**
+     * Constructor for an empty latency histogram
+     */
+    public LatencyHistogram() {
+        counts_=new long[(64-PRECISION_BITS)*HALF+SUB_BUCKETS];
+    }
+
+    /**
+     * records a value
+     * @param1 is the value in nanoseconds; negative values count as 0
+     */
+    public void record(long nanos) {
+        if(nanos<0){
+            nanos=0;
+        }
+        counts_[index(nanos)]++;
+        count_++;
+        sum_+=nanos;
+        if(nanos>max_){
+            max_=nanos;
+        }
+    }
+
+    /**
+     * adds the values of another histogram to this one
+     */
+    public void add(LatencyHistogram other) {
+        for(int i=0;i<counts_.length;i++){
+            counts_[i]+=other.counts_[i];
+        }
+        count_+=other.count_;
+        sum_+=other.sum_;
+        max_=Math.max(max_,other.max_);
+    }
+
+    /**
+     * forgets every value recorded
+     */
+    public void reset() {
+        Arrays.fill(counts_,0);
+        count_=0;
+        sum_=0;
+        max_=0;
+    }
+
+    /**
+     * getter for the number of values
+     * @return is the number of values recorded
+     */
+    public long getCount() {
+        return count_;
+    }
+
+    /**
+     * getter for the largest value
+     * @return is the largest value recorded, exactly
+     */
+    public long getMax() {
+        return max_;
+    }
+
+    /**
+     * getter for the mean
+     * @return is the mean of the values recorded, or 0 if there are none
+     */
+    public double getMean() {
+        return count_==0 ? 0 : sum_/count_;
+    }
+
+    /**
+     * finds the value at a percentile
+     * @param1 is the percentile, from 0 to 100
+     * @return is the smallest value that at least that percent of the values
+     * are at or below, to the precision of the histogram, or 0 if empty
+     */
+    public long getPercentile(double percentile) {
+        if(count_==0){
+            return 0;
+        }
+        long rank=Math.max(1,(long)Math.ceil(Math.min(100,percentile)/100*count_));
+        long seen=0;
+        for(int i=0;i<counts_.length;i++){
+            seen+=counts_[i];
+            if(seen>=rank){
+                return Math.min(highestValue(i),max_);
+            }
+        }
+        return max_;
+    }
+
+    /**
+     * finds the bucket of a value
+     */
+    static int index(long value) {
+        if(value<SUB_BUCKETS){
+            return (int)value;
+        }
+        int shift=64-Long.numberOfLeadingZeros(value)-PRECISION_BITS;
+        return shift*HALF+(int)(value>>>shift);
+    }
+
+    /**
+     * finds the largest value that falls in a bucket
+     */
+    static long highestValue(int index) {
+        if(index<SUB_BUCKETS){
+            return index;
+        }
+        int shift=(index-SUB_BUCKETS)/HALF+1;
+        long sub=index-shift*HALF;
+        long highest=((sub+1)<<shift)-1;
+        // the top bucket reaches past the largest long
+        return highest<0 ? Long.MAX_VALUE : highest;
+    }
+}
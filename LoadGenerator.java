@@ -0,0 +1,329 @@
+// Making the load generator class
+import java.awt.Color;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Stress mode that finds how many snakes a den can tick within a tick
+ * budget. It runs steps of a ramp, each with GROWTH times the snakes of the
+ * one before on a den grown to keep CELLS_PER_SNAKE cells per snake, and
+ * stops after the first step whose 99th percentile tick is over budget. The
+ * last step within budget is the capacity.
+ *
+ * Every step records the latency of whole ticks and of their two phases,
+ * the snakes deciding on moves and the moves being made, in
+ * LatencyHistograms. It also counts the bytes the ticking thread allocates
+ * and the garbage collections that ran. A den is replaced by a fresh one
+ * when half its snakes have died, so the load stays close to the step's
+ * snake count.
+ */
+public class LoadGenerator {
+    /** Length the snakes start with */
+    public static final int START_LENGTH = 3;
+
+    /** Cells of den per snake as the ramp grows */
+    public static final int CELLS_PER_SNAKE = 60;
+
+    /** Factor the snake count grows by from step to step */
+    public static final double GROWTH = 1.5;
+
+    private static final Color[] COLORS = {Color.RED,Color.BLUE,Color.GREEN,Color.ORANGE,Color.MAGENTA,Color.CYAN};
+
+    /**
+     * Results of one step of the ramp
+     */
+    public static final class Step {
+        public final int snakes;// snakes the step asked for
+        public final int rows;// rows of the dens
+        public final int columns;// columns of the dens
+        public final double alive;// mean living snakes per measured tick
+        public final LatencyHistogram tick;// latency of whole ticks
+        public final LatencyHistogram decide;// latency of the decide phase
+        public final LatencyHistogram commit;// latency of the commit phase
+        public final double bytesPerTick;// bytes allocated per tick, -1 if unknown
+        public final long collections;// garbage collections during the step
+        public final long collectionMillis;// time spent in them
+
+        Step(int snakes, int rows, int columns, double alive, LatencyHistogram tick, LatencyHistogram decide,
+             LatencyHistogram commit, double bytesPerTick, long collections, long collectionMillis) {
+            this.snakes=snakes;
+            this.rows=rows;
+            this.columns=columns;
+            this.alive=alive;
+            this.tick=tick;
+            this.decide=decide;
+            this.commit=commit;
+            this.bytesPerTick=bytesPerTick;
+            this.collections=collections;
+            this.collectionMillis=collectionMillis;
+        }
+    }
+
+    private final SnakeTournament.Factory factory_;// makes the snakes
+    private final int ticksPerSecond_;// target tick rate
+    private final long budgetNanos_;// length of one tick at that rate
+    private final int warmupTicks_;// ticks run before measuring
+    private final int measuredTicks_;// ticks measured per step
+    private final long seed_;// seed of the dens
+    private final com.sun.management.ThreadMXBean threads_;// counts allocation, may be null
+
+    /**
+     * Constructor for load generator
+     * @param1 is the factory making the snakes
+     * @param2 is the target number of ticks per second, which sets the budget
+     * @param3 is the number of ticks run before measuring each step
+     * @param4 is the number of ticks measured per step
+     * @param5 is the seed of the dens
+     */
+    public LoadGenerator(SnakeTournament.Factory factory, int ticksPerSecond, int warmupTicks, int measuredTicks, long seed) {
+        if(ticksPerSecond<1 || warmupTicks<0 || measuredTicks<1){
+            throw new IllegalArgumentException("tick rate and measured ticks must be positive");
+        }
+        factory_=factory;
+        ticksPerSecond_=ticksPerSecond;
+        budgetNanos_=1000000000L/ticksPerSecond;
+        warmupTicks_=warmupTicks;
+        measuredTicks_=measuredTicks;
+        seed_=seed;
+        com.sun.management.ThreadMXBean threads=null;
+        if(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean){
+            threads=(com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+            if(threads.isThreadAllocatedMemorySupported()){
+                threads.setThreadAllocatedMemoryEnabled(true);
+            }
+            else{
+                threads=null;
+            }
+        }
+        threads_=threads;
+    }
+
+    /**
+     * getter for the tick budget
+     * @return is the nanoseconds one tick may take at the target rate
+     */
+    public long getBudgetNanos() {
+        return budgetNanos_;
+    }
+
+    /**
+     * runs one step with a number of snakes
+     * @param1 is the number of snakes
+     * @return is the results
+     */
+    public Step measure(int snakes) {
+        int area=Math.max(100,snakes*CELLS_PER_SNAKE);
+        // same shape as the default 30 by 20 den
+        int rows=Math.max(10,(int)Math.ceil(Math.sqrt(area*1.5)));
+        int columns=Math.max(10,(area+rows-1)/rows);
+        LatencyHistogram tick=new LatencyHistogram();
+        LatencyHistogram decide=new LatencyHistogram();
+        LatencyHistogram commit=new LatencyHistogram();
+        long collections=-collectionCount();
+        long collectionMillis=-collectionMillis();
+        long allocated=0;
+        long alive=0;
+        long seed=seed_;
+        int ran=0;
+        while(ran<warmupTicks_+measuredTicks_){
+            Den den=new Den(rows,columns,seed++);
+            den.setTimePhases(true);
+            int placed=place(den,snakes);
+            int living=placed;
+            while(ran<warmupTicks_+measuredTicks_ && living*2>=placed){
+                long bytes=allocatedBytes();
+                long start=System.nanoTime();
+                den.tick();
+                long end=System.nanoTime();
+                if(ran>=warmupTicks_){
+                    allocated+=allocatedBytes()-bytes;
+                    tick.record(end-start);
+                    decide.record(den.getLastDecideNanos());
+                    commit.record(den.getLastCommitNanos());
+                }
+                living=0;
+                for(int s=0;s<den.getSnakeCount();s++){
+                    if(den.getSnake(s).isAlive()){
+                        living++;
+                    }
+                }
+                if(ran>=warmupTicks_){
+                    alive+=living;
+                }
+                ran++;
+            }
+        }
+        collections+=collectionCount();
+        collectionMillis+=collectionMillis();
+        double bytesPerTick=threads_==null ? -1 : (double)allocated/measuredTicks_;
+        return new Step(snakes,rows,columns,(double)alive/measuredTicks_,tick,decide,commit,bytesPerTick,collections,collectionMillis);
+    }
+
+    /**
+     * runs steps with more and more snakes until a step's 99th percentile
+     * tick is over budget, printing each step as it finishes
+     * @param1 is the number of snakes of the first step
+     * @param2 is the most steps to run
+     * @param3 is where to print the steps
+     * @return is the steps run
+     */
+    public List<Step> ramp(int startSnakes, int maxSteps, PrintWriter out) {
+        List<Step> steps=new ArrayList<Step>();
+        writeHeader(out);
+        int snakes=Math.max(1,startSnakes);
+        for(int i=0;i<maxSteps;i++){
+            Step step=measure(snakes);
+            steps.add(step);
+            writeStep(out,step);
+            out.flush();
+            if(step.tick.getPercentile(99)>budgetNanos_){
+                break;
+            }
+            snakes=Math.max(snakes+1,(int)(snakes*GROWTH));
+        }
+        return steps;
+    }
+
+    /**
+     * prints the capacity found by a ramp
+     * @param1 is the steps of the ramp
+     * @param2 is where to print
+     */
+    public void writeCapacity(List<Step> steps, PrintWriter out) {
+        Step capacity=null;
+        Step over=null;
+        for(Step step : steps){
+            if(step.tick.getPercentile(99)<=budgetNanos_){
+                capacity=step;
+            }
+            else if(over==null){
+                over=step;
+            }
+        }
+        out.println();
+        out.printf("tick budget %.1f us (%d ticks per second)%n",budgetNanos_/1e3,ticksPerSecond_);
+        if(capacity==null){
+            out.println("capacity: not even the first step fits the budget at p99");
+        }
+        else{
+            out.printf("capacity: %d snakes on a %d by %d den, p99 tick %.1f us%n",
+                       capacity.snakes,capacity.rows,capacity.columns,capacity.tick.getPercentile(99)/1e3);
+        }
+        if(over!=null){
+            out.printf("over budget from %d snakes on a %d by %d den, p99 tick %.1f us%n",
+                       over.snakes,over.rows,over.columns,over.tick.getPercentile(99)/1e3);
+        }
+        else{
+            out.println("the ramp ended before the budget was exceeded");
+        }
+        out.flush();
+    }
+
+    /**
+     * prints the column headings of the step table
+     */
+    public static void writeHeader(PrintWriter out) {
+        out.printf("%7s  %9s  %7s  %9s  %9s  %9s  %9s  %10s  %10s  %10s  %9s  %9s%n",
+                   "snakes","den","alive","tick p50","p99","p99.9","max","decide p99","commit p99","bytes/tick","MB/s","gc ms");
+        out.printf("%7s  %9s  %7s  %9s  %9s  %9s  %9s  %10s  %10s  %10s  %9s  %9s%n",
+                   "","","","us","us","us","us","us","us","","at rate","");
+    }
+
+    /**
+     * prints one step as a row of the step table
+     */
+    public void writeStep(PrintWriter out, Step step) {
+        out.printf("%7d  %9s  %7.1f  %9.1f  %9.1f  %9.1f  %9.1f  %10.1f  %10.1f  %10s  %9s  %9d%n",
+                   step.snakes,step.rows+"x"+step.columns,step.alive,
+                   step.tick.getPercentile(50)/1e3,step.tick.getPercentile(99)/1e3,
+                   step.tick.getPercentile(99.9)/1e3,step.tick.getMax()/1e3,
+                   step.decide.getPercentile(99)/1e3,step.commit.getPercentile(99)/1e3,
+                   step.bytesPerTick<0 ? "-" : String.format("%.0f",step.bytesPerTick),
+                   step.bytesPerTick<0 ? "-" : String.format("%.2f",step.bytesPerTick*ticksPerSecond_/1e6),
+                   step.collectionMillis);
+    }
+
+    /**
+     * adds snakes to a den on a grid of free cells
+     * @return is the number of snakes placed, which is less than asked for
+     * only if the den is full
+     */
+    private int place(Den den, int snakes) {
+        int placed=0;
+        for(int row=1;row<den.getRows() && placed<snakes;row+=START_LENGTH+1){
+            for(int column=1;column<den.getColumns() && placed<snakes;column+=2){
+                if(den.canPlaceSnake(row,column,START_LENGTH)){
+                    den.addSnakeInDen(factory_.create(row,column,COLORS[placed%COLORS.length],START_LENGTH));
+                    placed++;
+                }
+            }
+        }
+        return placed;
+    }
+
+    /**
+     * getter for the bytes the current thread has allocated, or 0 if unknown
+     */
+    private long allocatedBytes() {
+        return threads_==null ? 0 : threads_.getCurrentThreadAllocatedBytes();
+    }
+
+    private static long collectionCount() {
+        long count=0;
+        for(GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()){
+            count+=Math.max(0,collector.getCollectionCount());
+        }
+        return count;
+    }
+
+    private static long collectionMillis() {
+        long millis=0;
+        for(GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()){
+            millis+=Math.max(0,collector.getCollectionTime());
+        }
+        return millis;
+    }
+
+    /**
+     * ramps the load from the command line and prints a capacity report.
+     * Arguments are ticks per second, snakes of the first step, most steps,
+     * measured ticks per step, the snake class and the file to write the
+     * report to (or - for the console), all optional.
+     */
+    public static void main(String[] args) throws IOException {
+        int ticksPerSecond=args.length>0 ? Integer.parseInt(args[0]) : 60;
+        int startSnakes=args.length>1 ? Integer.parseInt(args[1]) : 2;
+        int maxSteps=args.length>2 ? Integer.parseInt(args[2]) : 20;
+        int measuredTicks=args.length>3 ? Integer.parseInt(args[3]) : 2000;
+        String snakeClass=args.length>4 ? args[4] : "WeightedSnake";
+        String output=args.length>5 ? args[5] : "-";
+        SnakeTournament.Factory factory;
+        try{
+            factory=SnakeTournament.factoryFor(Class.forName(snakeClass).asSubclass(Snake.class));
+        } catch(ClassNotFoundException | ClassCastException e){
+            throw new IllegalArgumentException(snakeClass+" is not a snake class",e);
+        }
+        if(factory==null){
+            throw new IllegalArgumentException(snakeClass+" has no (row, column, color, length) constructor");
+        }
+        LoadGenerator generator=new LoadGenerator(factory,ticksPerSecond,measuredTicks/4,measuredTicks,1);
+        PrintWriter out=output.equals("-") ? new PrintWriter(System.out) : new PrintWriter(new FileWriter(output));
+        try{
+            out.println("load ramp of "+snakeClass);
+            List<Step> steps=generator.ramp(startSnakes,maxSteps,out);
+            generator.writeCapacity(steps,out);
+        } finally{
+            if(output.equals("-")){
+                out.flush();
+            }
+            else{
+                out.close();
+            }
+        }
+    }
+}
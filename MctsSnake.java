@@ -0,0 +1,326 @@
+// Making the monte carlo tree search snake class
+import java.awt.Color;
+
+/**
+ * A snake that picks its moves with Monte Carlo tree search. For each move it
+ * copies the den into a GameState and runs a number of playouts: it walks
+ * down a tree of its own moves by UCT, lets the other snakes move randomly,
+ * finishes the line with random moves and scores how long it lived and how
+ * much it ate. After every playout the state is rolled back with undo, so a
+ * playout costs only the cells it changed. The same GameState is loaded for
+ * every decision, so searching allocates nothing in steady state. The random
+ * moves are seeded from the den's hash, its tick and the snake's place in
+ * it, so a seeded game with MCTS snakes plays the same every time.
+ *
+ * The tree is kept in flat arrays that are reused for every decision. With a
+ * TranspositionTable the reward of every playout is added to the statistics
+ * of each position it reached in the tree. The other snakes move randomly,
+ * so one node stands for many positions, and the statistics are kept by the
+ * position itself, not by the node. A position is keyed by its Zobrist hash
+ * and the head of the searching snake, since the reward is that snake's
+ * own. A new node whose position was already searched by the same snake, in
+ * an earlier decision or on another thread sharing the table, starts from
+ * the stored statistics instead of from nothing.
+ */
+public class MctsSnake extends Snake {
+    /** Exploration constant of UCT */
+    public static final double EXPLORATION = 1.4;
+
+    /** Most visits a node may inherit from the transposition table */
+    public static final int MAX_PRIOR_VISITS = 16;
+
+    /**
+     * Playouts per move of snakes made without a budget. With DEFAULT_DEPTH
+     * a move takes 7 to 15 ms on the default den, so a tournament of snakes
+     * made through the four argument constructor is slow; give a smaller
+     * budget for quick games.
+     */
+    public static final int DEFAULT_PLAYOUTS = 2000;
+
+    /** Ticks looked ahead by snakes made without a budget */
+    public static final int DEFAULT_DEPTH = 30;
+
+    private final int playouts_;// playouts per decision
+    private final int depth_;// ticks looked ahead per playout
+    private final int[] children_;// child node per node and direction, 0 if none
+    private final int[] visits_;// visits per node
+    private final double[] value_;// total reward per node
+    private final int[] path_;// nodes visited by the current playout
+    private final long[] pathHash_;// table key of each position the current playout reached
+    private final TranspositionTable table_;// shared results, may be null
+    private GameState state_;// reloaded for every decision
+    private int nodes_;// nodes in use
+
+    /**
+     * Constructor for mcts snake with the default playouts and depth
+     * @param1 is the row of the head
+     * @param2 is the column of the head
+     * @param3 is the color
+     * @param4 is the length
+     */
+    public MctsSnake(int row, int column, Color color, int length) {
+        this(row,column,color,length,DEFAULT_PLAYOUTS,DEFAULT_DEPTH,null);
+    }
+
+    /**
+     * Constructor for mcts snake
+     * @param1 is the row of the head
+     * @param2 is the column of the head
+     * @param3 is the color
+     * @param4 is the length
+     * @param5 is the number of playouts per move
+     * @param6 is the number of ticks each playout looks ahead
+     */
+    public MctsSnake(int row, int column, Color color, int length, int playouts, int depth) {
+        this(row,column,color,length,playouts,depth,null);
+    }
+
+    /**
+     * Constructor for mcts snake that shares search results through a table
+     * @param1 is the row of the head
+     * @param2 is the column of the head
+     * @param3 is the color
+     * @param4 is the length
+     * @param5 is the number of playouts per move
+     * @param6 is the number of ticks each playout looks ahead
+     * @param7 is the transposition table, or null for none
+     */
+    public MctsSnake(int row, int column, Color color, int length, int playouts, int depth, TranspositionTable table) {
+        super(row,column,color,length);
+        if(playouts<1 || depth<1){
+            throw new IllegalArgumentException("playouts and depth must be positive");
+        }
+        playouts_=playouts;
+        depth_=depth;
+        int capacity=playouts+2;
+        children_=new int[capacity*4];
+        visits_=new int[capacity];
+        value_=new double[capacity];
+        path_=new int[depth+1];
+        pathHash_=new long[depth+1];
+        table_=table;
+    }
+
+    /**
+     * searches for the best move
+     * @param1 is the den
+     * @return is the direction visited most often from the root
+     */
+    public int getNextMove(Den den) {
+        int self=-1;
+        for(int s=0;s<den.getSnakeCount();s++){
+            if(den.getSnake(s)==this){
+                self=s;
+            }
+        }
+        if(self<0){
+            throw new IllegalStateException("snake is not in the den");
+        }
+        long seed=den.getHash()+den.getTickCount()*0x9E3779B97F4A7C15L+self*0xC2B2AE3D27D4EB4FL;
+        if(state_==null || state_.fits(den)==false){
+            state_=new GameState(den,seed);
+            // a tick of a playout logs about four entries per snake, and a
+            // snake dying logs one per cell it covered
+            state_.reserve(depth_*den.getSnakeCount()*4+den.getRows()*den.getColumns());
+        }
+        else{
+            state_.load(den,seed);
+        }
+        search(state_,self);
+        int best=-1;
+        for(int direction=0;direction<4;direction++){
+            int child=children_[direction];
+            if(child!=0 && (best<0 || visits_[child]>visits_[children_[best]])){
+                best=direction;
+            }
+        }
+        return best<0 ? Paint.UP : best;
+    }
+
+    /**
+     * runs the playouts from the root
+     * @param1 is the state, which is left as it was
+     * @param2 is the index of this snake in the state
+     */
+    private void search(GameState state, int self) {
+        nodes_=1;
+        clearNode(0);
+        if(table_!=null){
+            table_.newSearch();
+        }
+        int root=state.mark();
+        int snakes=state.getSnakeCount();
+        for(int p=0;p<playouts_;p++){
+            int node=0;
+            int pathLength=0;
+            path_[pathLength++]=node;
+            int tick=0;
+            // walk down the tree while the nodes have been expanded
+            while(tick<depth_ && state.isAlive(self)){
+                int direction=select(state,self,node);
+                int child=children_[node*4+direction];
+                boolean expand=child==0;
+                if(expand){
+                    if(nodes_==visits_.length){
+                        break;
+                    }
+                    child=nodes_++;
+                    clearNode(child);
+                    children_[node*4+direction]=child;
+                }
+                tick(state,self,snakes,direction,tick==0);
+                tick++;
+                node=child;
+                pathHash_[pathLength]=positionKey(state,self);
+                path_[pathLength++]=node;
+                if(expand){
+                    inherit(node,pathHash_[pathLength-1],depth_-tick);
+                    break;
+                }
+            }
+            // finish the line with random moves
+            while(tick<depth_ && state.isAlive(self)){
+                tick(state,self,snakes,-1,tick==0);
+                tick++;
+            }
+            double reward=0.7*tick/depth_+0.3*Math.min(state.getEaten(self),3)/3.0;
+            for(int i=0;i<pathLength;i++){
+                int visited=path_[i];
+                visits_[visited]++;
+                value_[visited]+=reward;
+                if(table_!=null && i>0){
+                    record(pathHash_[i],reward,depth_-i);
+                }
+            }
+            state.undo(root);
+        }
+    }
+
+    /**
+     * picks a direction from a node: a legal unexpanded one first, then the
+     * legal child with the best UCT score. If nothing is legal it goes up.
+     */
+    private int select(GameState state, int self, int node) {
+        int best=-1;
+        double bestScore=Double.NEGATIVE_INFINITY;
+        double logVisits=Math.log(visits_[node]+1);
+        for(int direction=0;direction<4;direction++){
+            if(state.canMove(self,direction)==false){
+                continue;
+            }
+            int child=children_[node*4+direction];
+            if(child==0){
+                return direction;
+            }
+            double score=value_[child]/visits_[child]+EXPLORATION*Math.sqrt(logVisits/visits_[child]);
+            if(score>bestScore){
+                bestScore=score;
+                best=direction;
+            }
+        }
+        return best<0 ? Paint.UP : best;
+    }
+
+    /**
+     * moves every snake once, this snake in the given direction or randomly
+     * if the direction is -1 and the others randomly. On the first tick of a
+     * playout the snakes before this one have already moved in the den, as
+     * Den.tick moves the snakes in order, so only this one and those after
+     * it move.
+     */
+    private static void tick(GameState state, int self, int snakes, int direction, boolean first) {
+        for(int s=first ? self : 0;s<snakes;s++){
+            if(s==self && direction>=0){
+                state.move(s,direction);
+            }
+            else{
+                state.moveRandomly(s);
+            }
+        }
+    }
+
+    /**
+     * getter for the table key of a position: its hash and the head of the
+     * searching snake
+     */
+    private static long positionKey(GameState state, int self) {
+        int head=state.getHead(self);
+        int columns=state.getColumns();
+        return state.getHash()^Zobrist.key(head/columns,head%columns,Zobrist.SEARCHER);
+    }
+
+    /**
+     * adds the reward of a playout to the table's statistics for a position
+     * it reached. Statistics searched deeper are left alone, and shallower
+     * ones are replaced.
+     * @param1 is the table key of the position
+     * @param2 is the reward
+     * @param3 is the number of ticks the playout looked ahead from it
+     */
+    private void record(long key, double reward, int remaining) {
+        long data=table_.probe(key);
+        if(data==TranspositionTable.MISS || TranspositionTable.depth(data)<remaining){
+            table_.store(key,(float)reward,1,remaining);
+        }
+        else if(TranspositionTable.depth(data)==remaining){
+            int visits=TranspositionTable.visits(data);
+            table_.store(key,(float)((TranspositionTable.value(data)*visits+reward)/(visits+1)),visits+1,remaining);
+        }
+    }
+
+    /**
+     * starts a new node from the table's statistics for its position, if
+     * they were searched at least as deep
+     * @param1 is the node
+     * @param2 is the table key of its position
+     * @param3 is the number of ticks left to look ahead from it
+     */
+    private void inherit(int node, long key, int remaining) {
+        if(table_==null){
+            return;
+        }
+        long data=table_.probe(key);
+        if(data!=TranspositionTable.MISS && TranspositionTable.depth(data)>=remaining){
+            int visits=Math.min(TranspositionTable.visits(data),MAX_PRIOR_VISITS);
+            visits_[node]=visits;
+            value_[node]=TranspositionTable.value(data)*visits;
+        }
+    }
+
+    /**
+     * resets a node before it is used
+     */
+    private void clearNode(int node) {
+        visits_[node]=0;
+        value_[node]=0;
+        children_[node*4]=0;
+        children_[node*4+1]=0;
+        children_[node*4+2]=0;
+        children_[node*4+3]=0;
+    }
+
+    /**
+     * checks that the first tick of a playout leaves the snakes before this
+     * one where the den left them and the next tick moves them, with an
+     * MctsSnake second of two. Exits with status 1 if not.
+     */
+    public static void main(String[] args) {
+        Den den=new Den(1);
+        SnakeTournament.place(den,WeightedSnake::new,den.getRows()/4,Color.RED);
+        SnakeTournament.place(den,MctsSnake::new,den.getRows()*3/4,Color.BLUE);
+        GameState state=new GameState(den,1);
+        int opponent=state.getHead(0);
+        int own=state.getHead(1);
+        tick(state,1,2,-1,true);
+        boolean waited=state.getHead(0)==opponent && state.getHead(1)!=own;
+        tick(state,1,2,-1,false);
+        boolean moved=state.getHead(0)!=opponent || state.isAlive(0)==false;
+        if(waited && moved){
+            System.out.println("ok    the snake before an MctsSnake moves once before its first simulated move");
+        }
+        else{
+            System.out.println("FAIL  the snake before an MctsSnake "+(waited ? "did not move on the second tick" : "moved again before its first simulated move"));
+            System.exit(1);
+        }
+    }
+}
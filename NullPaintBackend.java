@@ -0,0 +1,79 @@
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+/**
+ * Paint backend that throws every drawing away, so game code that paints
+ * can run headless at full simulation speed. It keeps the current font so
+ * getFontMetrics still answers, which text layout code may depend on.
+ */
+public class NullPaintBackend implements PaintBackend {
+  /** Graphics of a tiny image, used only to get font metrics */
+  private static Graphics2D metricsGraphics;
+
+  /** Current font */
+  private volatile Font currentFont = new Font("Dialog",Font.PLAIN,12);
+
+  /** Whether setAutoRepaint was last given true */
+  private boolean repaint_ = true;
+
+  public void setColor ( Color c ) {}
+
+  public void setColor ( int r, int g, int b ) {}
+
+  public void setFont ( String name, int style, int size ) {
+    currentFont = new Font(name,style,size);
+  }
+
+  public FontMetrics getFontMetrics () {
+    synchronized ( NullPaintBackend.class ) {
+      if ( metricsGraphics == null )
+	metricsGraphics =
+	  new BufferedImage(1,1,BufferedImage.TYPE_INT_RGB).createGraphics();
+      return metricsGraphics.getFontMetrics(currentFont);
+    }
+  }
+
+  public void drawString ( String str, int x, int y ) {}
+
+  public void drawLine ( int x1, int y1, int x2, int y2 ) {}
+
+  public void drawRect ( int x, int y, int width, int height ) {}
+
+  public void fillRect ( int x, int y, int width, int height ) {}
+
+  public void drawOval ( int x, int y, int width, int height ) {}
+
+  public void fillOval ( int x, int y, int width, int height ) {}
+
+  public void drawRoundRect ( int x, int y, int width, int height, int xdiam,
+			      int ydiam ) {}
+
+  public void fillRoundRect ( int x, int y, int width, int height, int xdiam,
+			      int ydiam ) {}
+
+  public void drawArc ( int x, int y, int width, int height, int startAngle,
+			int arcAngle ) {}
+
+  public void fillArc ( int x, int y, int width, int height, int startAngle,
+			int arcAngle ) {}
+
+  public void drawPolygon ( int[] xPoints, int[] yPoints, int nPoints ) {}
+
+  public void fillPolygon ( int[] xPoints, int[] yPoints, int nPoints ) {}
+
+  public void drawTriangle ( int x1, int y1, int x2, int y2, int x3, int y3 ) {}
+
+  public void fillTriangle ( int x1, int y1, int x2, int y2, int x3, int y3 ) {}
+
+  public void drawImage ( Image image, int x, int y ) {}
+
+  public void clear () {}
+
+  public synchronized boolean setAutoRepaint ( boolean auto ) {
+    boolean old = repaint_;
+    repaint_ = auto;
+    return old;
+  }
+
+  public void paint () {}
+}
@@ -9,10 +9,12 @@ import javax.swing.*;
  * introduced late. It exports several static methods, which other classes can
  * call to manipulate the window. These methods handle object creation and
  * manipulation, thus hiding it from the other classes. Window is drawn by
- * creating a window (JFrame) and a Paint object (Paint extends JPanel) and
- * setting the Paint object to be the content panel of the window. Paint
- * overrides paintComponent(), which then draws all of the shapes that have been
- * specified via calls to static methods below (e.g., fillRect). Although this
+ * creating a window (JFrame) and a PaintCanvas object (PaintCanvas extends
+ * JPanel) and setting the canvas to be the content panel of the window. The
+ * static methods below (e.g., fillRect) forward to this default canvas, which
+ * draws all of the shapes that have been specified in its paintComponent().
+ * Programs that need more than one window can create PaintCanvas objects
+ * directly and call the same methods on them. Although this
  * class does hide objects, it attempts to make the interface for drawing shapes
  * similar to the actual interface. So the methods are the same (although
  * static) and take the same kinds of arguments for the most part: fillOval,
@@ -23,10 +25,15 @@ import javax.swing.*;
  * e.g., Font.BOLD), and size (int 16). In addition, for convenience, in Paint
  * there are methods for drawing triangles. With the Graphics class, one must
  * use the drawPolygon or fillPolygon methods.
+ *
+ * The drawing methods go to a PaintBackend, which is the default canvas
+ * unless setBackend chose another, such as a NullPaintBackend to run a
+ * simulation headless or a CountingPaintBackend to see what is drawn. The
+ * keyboard methods always use the default canvas.
  * 
  * @author Marc Corliss, minor modifications Stina Bridgeman
  */
-public class Paint extends JPanel implements KeyListener {
+public class Paint {
   /** Constant representing the maximum number of objects allowed */
   public static final int MAX_OBJECTS = 1000000;
 
@@ -49,190 +56,100 @@ public class Paint extends JPanel implements KeyListener {
   public static final int RIGHT = 3;
 
   /*
-   * Note: variables below are 'static' so that programmers using this class do
-   * not have to know about objects. Instead, they can make static calls to the
-   * methods below, which then privately handle object creation and
-   * manipulation.
+   * Note: the default canvas is 'static' so that programmers using this class
+   * do not have to know about objects. Instead, they can make static calls to
+   * the methods below, which then forward them to the default canvas.
    */
 
-  /** Window to draw on */
-  private static JFrame window;
+  /** Default canvas, for keyboard input and windows */
+  private static volatile PaintCanvas content;
 
-  /** Content panel of window (a Paint panel) */
-  private static Paint content;
+  /** Backend the static drawing methods draw on */
+  private static volatile PaintBackend backend;
 
-  /** Array of objects (rectangles, ovals, strings, etc.) */
-  private static DrawObject[] drawObjects;
-
-  /** Number of drawn objects */
-  private static int drawObjectsNum;
-
-  /** Current color to paint with */
-  private static Color currentColor;
-
-  /** Current font to draw strings with */
-  private static Font currentFont;
-
-  /** A string buffer for holding text entered via keyboard */
-  private static StringBuffer keyBuffer;
-
-  /**
-   * An integer holding the direction pushed for the last arrow (NONE means
-   * arrow was not entered)
-   */
-  private static int arrow = NONE;
-
-  /**
-   * If true, every drawRect and similar command results in a repaint after the
-   * command. If false, repaints do not occur until paint() is called (a
-   * one-time repaint) or setAutoRepaint(true) is called.
-   */
-  private static boolean repaint_ = true;
+  /** Paint only has static methods */
+  private Paint () {}
 
   /**
-   * Paint constructor Creates the panel and initializes all variables
+   * Get the default canvas, checking that buildWindow was called
    * 
-   * @param bgColor
-   *          the background color.
+   * @return the default canvas
    */
-  public Paint ( Color bgColor ) {
-    // set this class to listen for keyboard events
-    addKeyListener(this);
-    // set the background color
-    setBackground(bgColor);
-    // copy the color to currentColor
-    currentColor =
-      new Color(bgColor.getRed(),bgColor.getGreen(),bgColor.getBlue());
-    // set the default font
-    currentFont = new Font("Dialog",Font.PLAIN,12);
-    // initialize the objects array and initialize length
-    drawObjects = new DrawObject[MAX_OBJECTS];
-    drawObjectsNum = 0;
-    // initialize the key buffer
-    keyBuffer = new StringBuffer();
+  private static PaintCanvas canvas () {
+    PaintCanvas c = content;
+    // if there is no canvas then buildWindow was not called
+    if ( c == null )
+      throw new RuntimeException("Must call Paint.buildWindow() before "
+				 + "drawing any objects (shapes, strings, etc.) " + "with Paint");
+    return c;
   }
 
   /**
-   * Override paintComponent and draw panel Draws all the objects (rectangles,
-   * ovals, string, etc.) on the window.
+   * Get the backend, checking that buildWindow or setBackend was called
    * 
-   * @param g
-   *          a graphics object
+   * @return the backend
    */
-  public void paintComponent ( Graphics g ) {
-    // call parent paintComponent method - draws background
-    super.paintComponent(g);
-
-    // draw shapes
-    for ( int i = 0 ; i < drawObjectsNum ; i++ )
-      drawObjects[i].draw(g);
-
-    // request the focus for this panel to listen for keys entered
-    requestFocusInWindow();
+  private static PaintBackend backend () {
+    PaintBackend b = backend;
+    if ( b == null )
+      throw new RuntimeException("Must call Paint.buildWindow() or "
+				 + "Paint.setBackend() before drawing any objects (shapes, strings, "
+				 + "etc.) with Paint");
+    return b;
   }
 
   /**
-   * Define the abstract keyReleased method Pushes key events onto the string
-   * buffer
+   * Get the default canvas, for code that wants to hand it to other objects
    * 
-   * @param event
-   *          the key event object
+   * @return the default canvas, or null if buildWindow has not been called
    */
-  public void keyReleased ( KeyEvent event ) {
-    if ( event.getKeyCode() == KeyEvent.VK_UP ) arrow = UP;
-    else if ( event.getKeyCode() == KeyEvent.VK_DOWN ) arrow = DOWN;
-    else if ( event.getKeyCode() == KeyEvent.VK_LEFT ) arrow = LEFT;
-    else if ( event.getKeyCode() == KeyEvent.VK_RIGHT ) arrow = RIGHT;
-    else {
-      arrow = OTHER;
-      keyBuffer.append(event.getKeyChar());
-    }
-    notifyKeypress();
-  }
-
-  private synchronized void notifyKeypress () {
-    notifyAll();
+  public static PaintCanvas getDefaultCanvas () {
+    return content;
   }
 
   /**
-   * Define the abstract keyPressed method (not used)
+   * Make a canvas the target of the static drawing methods and of keyboard
+   * input
    * 
-   * @param event
-   *          the key event object
+   * @param canvas
+   *          the new default canvas
    */
-  public void keyPressed ( KeyEvent event ) {}
-
-  /**
-   * Define the abstract keyTyped method (not used)
-   * 
-   * @param event
-   *          the key event object
-   */
-  public void keyTyped ( KeyEvent event ) {}
+  public static void setDefaultCanvas ( PaintCanvas canvas ) {
+    content = canvas;
+    backend = canvas;
+  }
 
   /**
-   * Pop the characters that were typed from the buffer. Input is buffered until
-   * return is pressed.
+   * Get the backend the static drawing methods draw on
    * 
-   * @return string containing characters that were typed
+   * @return the backend, or null if there is none yet
    */
-  private synchronized String popFromBuffer () {
-    //		System.out.println("pop from buffer: " + keyBuffer.length());
-    // return line of text stopping at a newline
-    if ( keyBuffer.length() != 0 ) {
-      String line = "";
-      int index = keyBuffer.indexOf("\n");
-      if ( index < 0 ) {
-	return ""; // index = keyBuffer.length();
-      }
-      line = keyBuffer.substring(0,index);
-      keyBuffer = keyBuffer.delete(0,index + 1); // delete includes \n
-      return line;
-    } else return "";
+  public static PaintBackend getBackend () {
+    return backend;
   }
 
   /**
-   * Blocks until some input is given via keyboard and returns this input
+   * Make a backend the target of the static drawing methods, leaving the
+   * default canvas for keyboard input. Can be called at any time; drawing
+   * calls already made stay with the old backend.
    * 
-   * @return input entered via the keyboard
+   * @param b
+   *          the new backend, or null to go back to the default canvas
    */
-  private synchronized String waitForText () {
-    // line to return
-    String line = "";
-
-    // loop infinitely until we get a line of text
-    while ( true ) {
-      line = content.popFromBuffer();
-      if ( line.equals("") ) {
-	try {
-	  wait();
-	} catch ( InterruptedException ignored ) {}
-      } else break;
-    }
-
-    // return line
-    return line;
+  public static void setBackend ( PaintBackend b ) {
+    backend = b != null ? b : content;
   }
 
   /**
-   * Blocks until a character is entered via keyboard and returns this input
+   * Set the most times a second the default canvas is repainted after
+   * drawing commands while auto-repaint is on
    * 
-   * @return character entered via the keyboard
+   * @param hz
+   *          most auto repaints a second, or 0 to repaint after every
+   *          drawing command
    */
-  private synchronized char waitForChar () {
-    // wait until there is a character
-    while ( true ) {
-      if ( keyBuffer.length() == 0 ) {
-	try {
-	  wait();
-	} catch ( InterruptedException ignored ) {}
-      } else {
-	break;
-      }
-    }
-    char ch = keyBuffer.charAt(0);
-    keyBuffer.delete(0,1);
-    return ch;
+  public static void setMaxRepaintRate ( int hz ) {
+    canvas().setMaxRepaintRate(hz);
   }
 
   /**
@@ -241,9 +158,7 @@ public class Paint extends JPanel implements KeyListener {
    * @return line of typed text
    */
   public static String getln () {
-    String line = content.waitForText();
-    arrow = NONE; // ignore any arrows pressed while waiting
-    return line;
+    return canvas().getln();
   }
 
   /**
@@ -252,34 +167,7 @@ public class Paint extends JPanel implements KeyListener {
    * @return character typed on keyboard
    */
   public static char getChar () {
-    char ch = content.waitForChar();
-    arrow = NONE; // ignore any arrows pressed while waiting
-    return ch;
-  }
-
-  /**
-   * Blocks until an arrow is entered is given via keyboard and returns the
-   * direction of the arrow
-   * 
-   * @return input entered via the keyboard
-   */
-  private synchronized int waitForArrow () {
-    int direction;
-
-    // loop infinitely until arrow is not NONE
-    while ( true ) {
-      if ( arrow == NONE ) {
-	try {
-	  wait();
-	} catch ( InterruptedException ignored ) {}
-      } else break;
-    }
-
-    direction = arrow;
-    arrow = NONE;
-
-    // return direction
-    return direction;
+    return canvas().getChar();
   }
 
   /**
@@ -288,7 +176,7 @@ public class Paint extends JPanel implements KeyListener {
    * @return direction of arrow as an int (0-up, 1-down, 2-left, 3-right)
    */
   public static int getArrow () {
-    return content.waitForArrow();
+    return canvas().getArrow();
   }
 
   /**
@@ -312,51 +200,12 @@ public class Paint extends JPanel implements KeyListener {
   public static void buildWindow ( String title, int x, int y, int width,
 				   int height, Color bgColor ) {
     // if window was already created then hide it until it's redrawn
-    if ( window != null ) window.setVisible(false);
-
-    // [ssb] made changes to window sizing so that the size of the drawing area
-    // is width by height, to avoid having to account for the windoww title bar
-
-    // create new window and display it
-    window = new JFrame(title);
-    window.setLocation(x,y);
-    // window.setSize(width,height); // ssb
-    window.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-    content = new Paint(bgColor);
-    content.setPreferredSize(new Dimension(width,height)); // ssb
-    content.setMinimumSize(new Dimension(width,height)); // ssb
-    content.setSize(width,height); // ssb
-    window.setContentPane(content);
-    window.pack(); // ssb
-    window.setVisible(true);
-  }
-
-  /**
-   * Add an object to the window
-   * 
-   * @param o
-   *          object to draw (e.g., rectangle)
-   */
-  private static void addObject ( DrawObject o ) {
-    // check if more than MAX_OBJECTS and if so throw an exception
-    // (usually happens when student has an infinite loop)
-    if ( drawObjectsNum >= MAX_OBJECTS )
-      throw new RuntimeException("Can create at most " + MAX_OBJECTS
-				 + " objects (shapes, strings, etc.) with Paint");
-
-    // check if drawObjects array has been initialized, if not then
-    // buildWindow was not called
-    if ( drawObjects == null )
-      throw new RuntimeException("Must call Paint.buildWindow() before "
-				 + "drawing any objects (shapes, strings, etc.) " + "with Paint");
-
-    // otherwise add object to array
-    drawObjects[drawObjectsNum++] = o;
+    PaintCanvas old = content;
+    if ( old != null && old.getWindow() != null )
+      old.getWindow().setVisible(false);
 
-    // repaint window
-    if ( repaint_ ) {
-      content.repaint();
-    }
+    content = PaintCanvas.buildWindow(title,x,y,width,height,bgColor);
+    backend = content;
   }
 
   /**
@@ -366,7 +215,7 @@ public class Paint extends JPanel implements KeyListener {
    *          current color
    */
   public static void setColor ( Color c ) {
-    currentColor = new Color(c.getRed(),c.getGreen(),c.getBlue());
+    backend().setColor(c);
   }
 
   /**
@@ -380,7 +229,7 @@ public class Paint extends JPanel implements KeyListener {
    *          blue magnitude (0-255)
    */
   public static void setColor ( int r, int g, int b ) {
-    currentColor = new Color(r,g,b);
+    backend().setColor(r,g,b);
   }
 
   /**
@@ -395,7 +244,7 @@ public class Paint extends JPanel implements KeyListener {
    *          size of font (e.g., 16)
    */
   public static void setFont ( String name, int style, int size ) {
-    currentFont = new Font(name,style,size);
+    backend().setFont(name,style,size);
   }
 
   /**
@@ -404,69 +253,7 @@ public class Paint extends JPanel implements KeyListener {
    * @return the font metrics for the current font
    */
   public static FontMetrics getFontMetrics () {
-    return content.getGraphics().getFontMetrics();
-  }
-
-  /**
-   * Abstract class for an object on the window
-   * 
-   * @author Marc Corliss
-   */
-  private static abstract class DrawObject {
-    /** Color of the string (initially set using current color) */
-    protected Color c;
-
-    // must define draw() method in subclasses...
-    abstract public void draw ( Graphics g );
-  }
-
-  /**
-   * Class for a string object
-   * 
-   * @author Marc Corliss
-   */
-  private static class DrawString extends DrawObject {
-    /** String to draw */
-    protected String str;
-
-    /** x coordinate of lower, lefthand portion of the string */
-    protected int x;
-
-    /** y coordinate of lower, lefthand portion of the string */
-    protected int y;
-
-    /** Font of the string (initially set using current font) */
-    protected Font f;
-
-    /**
-     * DrawString constructor
-     * 
-     * @param str
-     *          string to draw
-     * @param x
-     *          x coordinate of lower, lefthand portion of the string
-     * @param y
-     *          y coordinate of lower, lefthand portion of the string
-     */
-    public DrawString ( String str, int x, int y ) {
-      this.str = str;
-      this.x = x;
-      this.y = y;
-      this.c = currentColor;
-      this.f = currentFont;
-    }
-
-    /**
-     * Draw the object on the window
-     * 
-     * @param g
-     *          graphics object
-     */
-    public void draw ( Graphics g ) {
-      g.setColor(c);
-      g.setFont(f);
-      g.drawString(str,x,y);
-    }
+    return backend().getFontMetrics();
   }
 
   /**
@@ -480,57 +267,7 @@ public class Paint extends JPanel implements KeyListener {
    *          y coordinate of lower, lefthand portion of the string
    */
   public static void drawString ( String str, int x, int y ) {
-    addObject((DrawObject) new DrawString(str,x,y));
-  }
-
-  /**
-   * Class for a line object
-   * 
-   * @author Marc Corliss
-   */
-  private static class DrawLine extends DrawObject {
-    /** x coordinate of first point */
-    protected int x1;
-
-    /** y coordinate of first point */
-    protected int y1;
-
-    /** x coordinate of second point */
-    protected int x2;
-
-    /** y coordinate of second point */
-    protected int y2;
-
-    /**
-     * DrawLine constructor
-     * 
-     * @param x1
-     *          x coordinate of first point
-     * @param y1
-     *          y coordinate of first point
-     * @param x2
-     *          x coordinate of second point
-     * @param y2
-     *          y coordinate of second point
-     */
-    public DrawLine ( int x1, int y1, int x2, int y2 ) {
-      this.x1 = x1;
-      this.y1 = y1;
-      this.x2 = x2;
-      this.y2 = y2;
-      this.c = currentColor;
-    }
-
-    /**
-     * Draw the object on the window
-     * 
-     * @param g
-     *          graphics object
-     */
-    public void draw ( Graphics g ) {
-      g.setColor(c);
-      g.drawLine(x1,y1,x2,y2);
-    }
+    backend().drawString(str,x,y);
   }
 
   /**
@@ -546,57 +283,7 @@ public class Paint extends JPanel implements KeyListener {
    *          y coordinate of second point
    */
   public static void drawLine ( int x1, int y1, int x2, int y2 ) {
-    addObject((DrawObject) new DrawLine(x1,y1,x2,y2));
-  }
-
-  /**
-   * Class for a rectangle object
-   * 
-   * @author Marc Corliss
-   */
-  private static class DrawRect extends DrawObject {
-    /** x coordinate of upper, lefthand corner of rectangle */
-    protected int x;
-
-    /** y coordinate of upper, lefthand corner of rectangle */
-    protected int y;
-
-    /** Width of rectangle */
-    protected int width;
-
-    /** Height of rectangle */
-    protected int height;
-
-    /**
-     * DrawRect constructor
-     * 
-     * @param x
-     *          x coordinate of upper, lefthand corner of rectangle
-     * @param y
-     *          y coordinate of upper, lefthand corner of rectangle
-     * @param width
-     *          Width of rectangle
-     * @param height
-     *          Height of rectangle
-     */
-    public DrawRect ( int x, int y, int width, int height ) {
-      this.x = x;
-      this.y = y;
-      this.height = height;
-      this.width = width;
-      this.c = currentColor;
-    }
-
-    /**
-     * Draw the object on the window
-     * 
-     * @param g
-     *          graphics object
-     */
-    public void draw ( Graphics g ) {
-      g.setColor(c);
-      g.drawRect(x,y,width,height);
-    }
+    backend().drawLine(x1,y1,x2,y2);
   }
 
   /**
@@ -612,41 +299,7 @@ public class Paint extends JPanel implements KeyListener {
    *          Height of rectangle
    */
   public static void drawRect ( int x, int y, int width, int height ) {
-    addObject((DrawObject) new DrawRect(x,y,width,height));
-  }
-
-  /**
-   * Abstract class for a filled-in rectangle object
-   * 
-   * @author Marc Corliss
-   */
-  private static class FillRect extends DrawRect {
-    /**
-     * FillRect constructor
-     * 
-     * @param x
-     *          x coordinate of upper, lefthand corner of rectangle
-     * @param y
-     *          y coordinate of upper, lefthand corner of rectangle
-     * @param width
-     *          Width of rectangle
-     * @param height
-     *          Height of rectangle
-     */
-    public FillRect ( int x, int y, int width, int height ) {
-      super(x,y,width,height);
-    }
-
-    /**
-     * Draw the object on the window
-     * 
-     * @param g
-     *          graphics object
-     */
-    public void draw ( Graphics g ) {
-      g.setColor(c);
-      g.fillRect(x,y,width,height);
-    }
+    backend().drawRect(x,y,width,height);
   }
 
   /**
@@ -662,57 +315,7 @@ public class Paint extends JPanel implements KeyListener {
    *          Height of rectangle
    */
   public static void fillRect ( int x, int y, int width, int height ) {
-    addObject((DrawObject) new FillRect(x,y,width,height));
-  }
-
-  /**
-   * Class for an oval object
-   * 
-   * @author Marc Corliss
-   */
-  private static class DrawOval extends DrawObject {
-    /** x coordinate of upper-lefthand corner of box that bounds oval */
-    protected int x;
-
-    /** y coordinate of upper-lefthand corner of box that bounds oval */
-    protected int y;
-
-    /** Width of box that bounds oval */
-    protected int width;
-
-    /** Height of box that bounds oval */
-    protected int height;
-
-    /**
-     * DrawOval constructor
-     * 
-     * @param x
-     *          x coordinate of upper-lefthand corner of box that bounds oval
-     * @param y
-     *          y coordinate of upper-lefthand corner of box that bounds oval
-     * @param width
-     *          width of box that bounds oval
-     * @param height
-     *          height of box that bounds oval
-     */
-    public DrawOval ( int x, int y, int width, int height ) {
-      this.x = x;
-      this.y = y;
-      this.height = height;
-      this.width = width;
-      this.c = currentColor;
-    }
-
-    /**
-     * Draw the object on the window
-     * 
-     * @param g
-     *          graphics object
-     */
-    public void draw ( Graphics g ) {
-      g.setColor(c);
-      g.drawOval(x,y,width,height);
-    }
+    backend().fillRect(x,y,width,height);
   }
 
   /**
@@ -728,41 +331,7 @@ public class Paint extends JPanel implements KeyListener {
    *          height of box that bounds oval
    */
   public static void drawOval ( int x, int y, int width, int height ) {
-    addObject((DrawObject) new DrawOval(x,y,width,height));
-  }
-
-  /**
-   * Class for a filled-in oval object
-   * 
-   * @author Marc Corliss
-   */
-  private static class FillOval extends DrawOval {
-    /**
-     * FillOval constructor
-     * 
-     * @param x
-     *          x coordinate of upper-lefthand corner of box that bounds oval
-     * @param y
-     *          y coordinate of upper-lefthand corner of box that bounds oval
-     * @param width
-     *          width of box that bounds oval
-     * @param height
-     *          height of box that bounds oval
-     */
-    public FillOval ( int x, int y, int width, int height ) {
-      super(x,y,width,height);
-    }
-
-    /**
-     * Draw the object on the window
-     * 
-     * @param g
-     *          graphics object
-     */
-    public void draw ( Graphics g ) {
-      g.setColor(c);
-      g.fillOval(x,y,width,height);
-    }
+    backend().drawOval(x,y,width,height);
   }
 
   /**
@@ -778,78 +347,7 @@ public class Paint extends JPanel implements KeyListener {
    *          height of box that bounds oval
    */
   public static void fillOval ( int x, int y, int width, int height ) {
-    addObject((DrawObject) new FillOval(x,y,width,height));
-  }
-
-  /**
-   * Class for a rounded rectangle object
-   * 
-   * @author Marc Corliss
-   */
-  private static class DrawRoundRect extends DrawObject {
-    /**
-     * x coordinate of upper-lefthand corner of box that bounds rounded
-     * rectangle
-     */
-    protected int x;
-
-    /**
-     * y coordinate of upper-lefthand corner of box that bounds rounded
-     * rectangle
-     */
-    protected int y;
-
-    /** Width of rounded rectangle */
-    protected int width;
-
-    /** Height of rounded rectangle */
-    protected int height;
-
-    /** Horizontal diameter of corner arc of elipse */
-    protected int xdiam;
-
-    /** Vertical diameter of corner arc of elipse */
-    protected int ydiam;
-
-    /**
-     * Constructor DrawRoundRect
-     * 
-     * @param x
-     *          x coordinate of upper-lefthand corner of box that bounds rounded
-     *          rectangle
-     * @param y
-     *          y coordinate of upper-lefthand corner of box that bounds rounded
-     *          rectangle
-     * @param width
-     *          width of rounded rectangle
-     * @param height
-     *          height of rounded rectangle
-     * @param xdiam
-     *          horizontal diameter of corner arc of elipse
-     * @param ydiam
-     *          vertical diameter of corner arc of elipse
-     */
-    public DrawRoundRect ( int x, int y, int width, int height, int xdiam,
-			   int ydiam ) {
-      this.x = x;
-      this.y = y;
-      this.height = height;
-      this.width = width;
-      this.xdiam = xdiam;
-      this.ydiam = ydiam;
-      this.c = currentColor;
-    }
-
-    /**
-     * Draw the object on the window
-     * 
-     * @param g
-     *          graphics object
-     */
-    public void draw ( Graphics g ) {
-      g.setColor(c);
-      g.drawRoundRect(x,y,width,height,xdiam,ydiam);
-    }
+    backend().fillOval(x,y,width,height);
   }
 
   /**
@@ -872,48 +370,7 @@ public class Paint extends JPanel implements KeyListener {
    */
   public static void drawRoundRect ( int x, int y, int width, int height,
 				     int xdiam, int ydiam ) {
-    addObject((DrawObject) new DrawRoundRect(x,y,width,height,xdiam,ydiam));
-  }
-
-  /**
-   * Class for a filled-in rounded rectangle object
-   * 
-   * @author Marc Corliss
-   */
-  private static class FillRoundRect extends DrawRoundRect {
-    /**
-     * Constructor FillRoundRect
-     * 
-     * @param x
-     *          x coordinate of upper-lefthand corner of box that bounds rounded
-     *          rectangle
-     * @param y
-     *          y coordinate of upper-lefthand corner of box that bounds rounded
-     *          rectangle
-     * @param width
-     *          width of rounded rectangle
-     * @param height
-     *          height of rounded rectangle
-     * @param xdiam
-     *          horizontal diameter of corner arc of elipse
-     * @param ydiam
-     *          vertical diameter of corner arc of elipse
-     */
-    public FillRoundRect ( int x, int y, int width, int height, int xdiam,
-			   int ydiam ) {
-      super(x,y,width,height,xdiam,ydiam);
-    }
-
-    /**
-     * Draw the object on the window
-     * 
-     * @param g
-     *          graphics object
-     */
-    public void draw ( Graphics g ) {
-      g.setColor(c);
-      g.fillRoundRect(x,y,width,height,xdiam,ydiam);
-    }
+    backend().drawRoundRect(x,y,width,height,xdiam,ydiam);
   }
 
   /**
@@ -936,84 +393,7 @@ public class Paint extends JPanel implements KeyListener {
    */
   public static void fillRoundRect ( int x, int y, int width, int height,
 				     int xdiam, int ydiam ) {
-    addObject((DrawObject) new FillRoundRect(x,y,width,height,xdiam,ydiam));
-  }
-
-  /**
-   * Class for an arc object
-   * 
-   * @author Marc Corliss
-   */
-  private static class DrawArc extends DrawObject {
-    /**
-     * x coordinate of upper-lefthand corner of the box containing the oval,
-     * which the arc is contained within
-     */
-    protected int x;
-
-    /**
-     * y coordinate of upper-lefthand corner of the box containing the oval,
-     * which the arc is contained within
-     */
-    protected int y;
-
-    /** Width of the box containing the oval, which the arc is contained within */
-    protected int width;
-
-    /** Height of the box containing the oval, which the arc is contained within */
-    protected int height;
-
-    /** The starting angle of the arc (0 is at 3 o'clock position) */
-    protected int startAngle;
-
-    /**
-     * The degrees to extend the arc from the starting angle (0 is at 3 o'clock
-     * position)
-     */
-    protected int arcAngle;
-
-    /**
-     * DrawArc constructor
-     * 
-     * @param x
-     *          x coordinate of upper-lefthand corner of the box containing the
-     *          oval, which the arc is contained within
-     * @param y
-     *          y coordinate of upper-lefthand corner of the box containing the
-     *          oval, which the arc is contained within
-     * @param width
-     *          width of the box containing the oval, which the arc is contained
-     *          within
-     * @param height
-     *          height of the box containing the oval, which the arc is
-     *          contained within
-     * @param startAngle
-     *          the starting angle of the arc (0 is at 3 o'clock position)
-     * @param arcAngle
-     *          the degrees to extend the arc from the starting angle (0 is at 3
-     *          o'clock position)
-     */
-    public DrawArc ( int x, int y, int width, int height, int startAngle,
-		     int arcAngle ) {
-      this.x = x;
-      this.y = y;
-      this.height = height;
-      this.width = width;
-      this.startAngle = startAngle;
-      this.arcAngle = arcAngle;
-      this.c = currentColor;
-    }
-
-    /**
-     * Draw the object on the window
-     * 
-     * @param g
-     *          graphics object
-     */
-    public void draw ( Graphics g ) {
-      g.setColor(c);
-      g.drawArc(x,y,width,height,startAngle,arcAngle);
-    }
+    backend().fillRoundRect(x,y,width,height,xdiam,ydiam);
   }
 
   /**
@@ -1039,51 +419,7 @@ public class Paint extends JPanel implements KeyListener {
    */
   public static void drawArc ( int x, int y, int width, int height,
 			       int startAngle, int arcAngle ) {
-    addObject((DrawObject) new DrawArc(x,y,width,height,startAngle,arcAngle));
-  }
-
-  /**
-   * Class for a filled-in arc object
-   * 
-   * @author Marc Corliss
-   */
-  private static class FillArc extends DrawArc {
-    /**
-     * FillArc constructor
-     * 
-     * @param x
-     *          x coordinate of upper-lefthand corner of the box containing the
-     *          oval, which the arc is contained within
-     * @param y
-     *          y coordinate of upper-lefthand corner of the box containing the
-     *          oval, which the arc is contained within
-     * @param width
-     *          width of the box containing the oval, which the arc is contained
-     *          within
-     * @param height
-     *          height of the box containing the oval, which the arc is
-     *          contained within
-     * @param startAngle
-     *          the starting angle of the arc (0 is at 3 o'clock position)
-     * @param arcAngle
-     *          the degrees to extend the arc from the starting angle (0 is at 3
-     *          o'clock position)
-     */
-    public FillArc ( int x, int y, int width, int height, int startAngle,
-		     int arcAngle ) {
-      super(x,y,width,height,startAngle,arcAngle);
-    }
-
-    /**
-     * Draw the object on the window
-     * 
-     * @param g
-     *          graphics object
-     */
-    public void draw ( Graphics g ) {
-      g.setColor(c);
-      g.fillArc(x,y,width,height,startAngle,arcAngle);
-    }
+    backend().drawArc(x,y,width,height,startAngle,arcAngle);
   }
 
   /**
@@ -1109,51 +445,7 @@ public class Paint extends JPanel implements KeyListener {
    */
   public static void fillArc ( int x, int y, int width, int height,
 			       int startAngle, int arcAngle ) {
-    addObject((DrawObject) new FillArc(x,y,width,height,startAngle,arcAngle));
-  }
-
-  /**
-   * Class for a polygon object
-   * 
-   * @author Marc Corliss
-   */
-  private static class DrawPolygon extends DrawObject {
-    /** Array of x coordinates (at least 1 element for each point) */
-    protected int[] xPoints;
-
-    /** Array of y coordinates (at least 1 element for each point) */
-    protected int[] yPoints;
-
-    /** Number of points */
-    protected int nPoints;
-
-    /**
-     * DrawPolygon consructor
-     * 
-     * @param xPoints
-     *          array of x coordinates (at least 1 element for each point)
-     * @param yPoints
-     *          array of y coordinates (at least 1 element for each point)
-     * @param nPoints
-     *          number of points
-     */
-    public DrawPolygon ( int[] xPoints, int[] yPoints, int nPoints ) {
-      this.xPoints = xPoints;
-      this.yPoints = yPoints;
-      this.nPoints = nPoints;
-      this.c = currentColor;
-    }
-
-    /**
-     * Draw the object on the window
-     * 
-     * @param g
-     *          graphics object
-     */
-    public void draw ( Graphics g ) {
-      g.setColor(c);
-      g.drawPolygon(xPoints,yPoints,nPoints);
-    }
+    backend().fillArc(x,y,width,height,startAngle,arcAngle);
   }
 
   /**
@@ -1167,39 +459,7 @@ public class Paint extends JPanel implements KeyListener {
    *          number of points
    */
   public static void drawPolygon ( int[] xPoints, int[] yPoints, int nPoints ) {
-    addObject((DrawObject) new DrawPolygon(xPoints,yPoints,nPoints));
-  }
-
-  /**
-   * Class for a filled-in polygon object
-   * 
-   * @author Marc Corliss
-   */
-  private static class FillPolygon extends DrawPolygon {
-    /**
-     * FillPolygon consructor
-     * 
-     * @param xPoints
-     *          array of x coordinates (at least 1 element for each point)
-     * @param yPoints
-     *          array of y coordinates (at least 1 element for each point)
-     * @param nPoints
-     *          number of points
-     */
-    public FillPolygon ( int[] xPoints, int[] yPoints, int nPoints ) {
-      super(xPoints,yPoints,nPoints);
-    }
-
-    /**
-     * Draw the object on the window
-     * 
-     * @param g
-     *          graphics object
-     */
-    public void draw ( Graphics g ) {
-      g.setColor(c);
-      g.fillPolygon(xPoints,yPoints,nPoints);
-    }
+    backend().drawPolygon(xPoints,yPoints,nPoints);
   }
 
   /**
@@ -1213,69 +473,7 @@ public class Paint extends JPanel implements KeyListener {
    *          number of points
    */
   public static void fillPolygon ( int[] xPoints, int[] yPoints, int nPoints ) {
-    addObject((DrawObject) new FillPolygon(xPoints,yPoints,nPoints));
-  }
-
-  /**
-   * Class for a triangle object
-   * 
-   * @author Marc Corliss
-   */
-  private static class DrawTriangle extends DrawObject {
-    /** x coordinate of first point */
-    protected int x1;
-
-    /** y coordinate of first point */
-    protected int y1;
-
-    /** x coordinate of second point */
-    protected int x2;
-
-    /** y coordinate of second point */
-    protected int y2;
-
-    /** x coordinate of third point */
-    protected int x3;
-
-    /** y coordinate of third point */
-    protected int y3;
-
-    /**
-     * DrawTriangle constructor
-     * 
-     * @param x1
-     *          x coordinate of first point
-     * @param y1
-     *          y coordinate of first point
-     * @param x2
-     *          x coordinate of second point
-     * @param y2
-     *          y coordinate of second point
-     * @param x3
-     *          x coordinate of third point
-     * @param y3
-     *          y coordinate of third point
-     */
-    public DrawTriangle ( int x1, int y1, int x2, int y2, int x3, int y3 ) {
-      this.x1 = x1;
-      this.y1 = y1;
-      this.x2 = x2;
-      this.y2 = y2;
-      this.x3 = x3;
-      this.y3 = y3;
-      this.c = currentColor;
-    }
-
-    /**
-     * Draw the object on the window
-     * 
-     * @param g
-     *          graphics object
-     */
-    public void draw ( Graphics g ) {
-      g.setColor(c);
-      g.drawPolygon(new int[] { x1, x2, x3 },new int[] { y1, y2, y3 },3);
-    }
+    backend().fillPolygon(xPoints,yPoints,nPoints);
   }
 
   /**
@@ -1296,45 +494,7 @@ public class Paint extends JPanel implements KeyListener {
    */
   public static void drawTriangle ( int x1, int y1, int x2, int y2, int x3,
 				    int y3 ) {
-    addObject((DrawObject) new DrawTriangle(x1,y1,x2,y2,x3,y3));
-  }
-
-  /**
-   * Class for a filled-in triangle object
-   * 
-   * @author Marc Corliss
-   */
-  private static class FillTriangle extends DrawTriangle {
-    /**
-     * FillTriangle constructor
-     * 
-     * @param x1
-     *          x coordinate of first point
-     * @param y1
-     *          y coordinate of first point
-     * @param x2
-     *          x coordinate of second point
-     * @param y2
-     *          y coordinate of second point
-     * @param x3
-     *          x coordinate of third point
-     * @param y3
-     *          y coordinate of third point
-     */
-    public FillTriangle ( int x1, int y1, int x2, int y2, int x3, int y3 ) {
-      super(x1,y1,x2,y2,x3,y3);
-    }
-
-    /**
-     * Draw the object on the window
-     * 
-     * @param g
-     *          graphics object
-     */
-    public void draw ( Graphics g ) {
-      g.setColor(c);
-      g.fillPolygon(new int[] { x1, x2, x3 },new int[] { y1, y2, y3 },3);
-    }
+    backend().drawTriangle(x1,y1,x2,y2,x3,y3);
   }
 
   /**
@@ -1355,14 +515,30 @@ public class Paint extends JPanel implements KeyListener {
    */
   public static void fillTriangle ( int x1, int y1, int x2, int y2, int x3,
 				    int y3 ) {
-    addObject((DrawObject) new FillTriangle(x1,y1,x2,y2,x3,y3));
+    backend().fillTriangle(x1,y1,x2,y2,x3,y3);
+  }
+
+  /**
+   * Draw an image onto the window at its own size. The image must already be
+   * fully loaded (for example a BufferedImage). The current color is not
+   * used.
+   * 
+   * @param image
+   *          image to draw
+   * @param x
+   *          x coordinate of upper-lefthand corner of the image
+   * @param y
+   *          y coordinate of upper-lefthand corner of the image
+   */
+  public static void drawImage ( Image image, int x, int y ) {
+    backend().drawImage(image,x,y);
   }
 
   /**
    * Clear the drawing window.
    */
   public static void clear () {
-    drawObjectsNum = 0;
+    backend().clear();
   }
 
   /**
@@ -1373,18 +549,13 @@ public class Paint extends JPanel implements KeyListener {
    */
 
   public static boolean setAutoRepaint ( boolean auto ) {
-    boolean old = repaint_;
-    repaint_ = auto;
-    if ( repaint_ ) {
-      content.repaint();
-    }
-    return old;
+    return backend().setAutoRepaint(auto);
   }
 
   /**
    * Paint the drawing window.
    */
   public static void paint () {
-    content.repaint();
+    backend().paint();
   }
 }
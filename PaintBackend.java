@@ -0,0 +1,116 @@
+import java.awt.*;
+
+/**
+ * Something the static Paint methods can draw on. PaintCanvas draws on a
+ * Swing panel; NullPaintBackend throws every drawing away, for running
+ * simulations headless at full speed; CountingPaintBackend counts the calls,
+ * for checking what a piece of game code draws. Paint.setBackend switches
+ * between them at run time without the game code knowing.
+ *
+ * The methods are the drawing methods of Paint; see Paint for what each one
+ * does. Keyboard input is not part of a backend and always comes from the
+ * default canvas.
+ */
+public interface PaintBackend {
+  /**
+   * Set the current color
+   *
+   * @param c
+   *          current color
+   */
+  void setColor ( Color c );
+
+  /**
+   * Set the current color
+   *
+   * @param r
+   *          red magnitude (0-255)
+   * @param g
+   *          green magnitude (0-255)
+   * @param b
+   *          blue magnitude (0-255)
+   */
+  void setColor ( int r, int g, int b );
+
+  /**
+   * Set the current font
+   *
+   * @param name
+   *          name of font ("serif" or "sanserif")
+   * @param style
+   *          style of font (Font.PLAIN, Font.BOLD, Font.ITALIC, or
+   *          Font.BOLD+Font.ITALIC)
+   * @param size
+   *          size of font (e.g., 16)
+   */
+  void setFont ( String name, int style, int size );
+
+  /**
+   * Retrieve the font metrics for the current font.
+   *
+   * @return the font metrics for the current font
+   */
+  FontMetrics getFontMetrics ();
+
+  /** Draw a string with its lower, lefthand corner at (x,y) */
+  void drawString ( String str, int x, int y );
+
+  /** Draw a line from (x1,y1) to (x2,y2) */
+  void drawLine ( int x1, int y1, int x2, int y2 );
+
+  /** Draw a rectangle outline */
+  void drawRect ( int x, int y, int width, int height );
+
+  /** Draw a filled-in rectangle */
+  void fillRect ( int x, int y, int width, int height );
+
+  /** Draw an oval outline inside a box */
+  void drawOval ( int x, int y, int width, int height );
+
+  /** Draw a filled-in oval inside a box */
+  void fillOval ( int x, int y, int width, int height );
+
+  /** Draw a rounded rectangle outline */
+  void drawRoundRect ( int x, int y, int width, int height, int xdiam,
+		       int ydiam );
+
+  /** Draw a filled-in rounded rectangle */
+  void fillRoundRect ( int x, int y, int width, int height, int xdiam,
+		       int ydiam );
+
+  /** Draw an arc outline of the oval inside a box */
+  void drawArc ( int x, int y, int width, int height, int startAngle,
+		 int arcAngle );
+
+  /** Draw a filled-in arc of the oval inside a box */
+  void fillArc ( int x, int y, int width, int height, int startAngle,
+		 int arcAngle );
+
+  /** Draw a polygon outline */
+  void drawPolygon ( int[] xPoints, int[] yPoints, int nPoints );
+
+  /** Draw a filled-in polygon */
+  void fillPolygon ( int[] xPoints, int[] yPoints, int nPoints );
+
+  /** Draw a triangle outline */
+  void drawTriangle ( int x1, int y1, int x2, int y2, int x3, int y3 );
+
+  /** Draw a filled-in triangle */
+  void fillTriangle ( int x1, int y1, int x2, int y2, int x3, int y3 );
+
+  /** Draw a fully loaded image at its own size */
+  void drawImage ( Image image, int x, int y );
+
+  /** Clear the drawing */
+  void clear ();
+
+  /**
+   * Set whether or not the drawing is shown again after every drawing call
+   *
+   * @return the previous setting
+   */
+  boolean setAutoRepaint ( boolean auto );
+
+  /** Show the drawing */
+  void paint ();
+}
@@ -0,0 +1,1808 @@
+import java.awt.*;
+import java.awt.event.*;
+import java.awt.font.FontRenderContext;
+import java.awt.font.GlyphVector;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import javax.swing.*;
+
+/**
+ * A drawing panel that remembers the shapes drawn on it and repaints them,
+ * and listens for keyboard events. This is the usual backend behind the static
+ * Paint methods; see Paint for a description of the drawing interface, which
+ * is the same here except that the methods are called on a canvas instead of
+ * on the class. Several canvases can be open at once, each in its own window
+ * or placed side by side in a container.
+ *
+ * A canvas may be drawn on from any one thread while Swing paints it on the
+ * event dispatch thread. The list of shapes is guarded by a lock held for
+ * each addition and for each paint, so shapes are never seen half added.
+ * Different canvases share no state and can be drawn in parallel.
+ *
+ * Strings are laid out once and the glyphs kept, per canvas, in a cache of
+ * the GLYPH_CACHE_SIZE strings drawn most recently, so HUD text that is
+ * redrawn every frame is not laid out again.
+ *
+ * Auto repaints are paced: however fast shapes are added, the window is
+ * repainted at most DEFAULT_REPAINT_RATE times a second (see
+ * setMaxRepaintRate), and less often when painting takes longer than that
+ * budget, so a burst of drawing cannot flood the event dispatch thread.
+ * Explicit calls to paint() are not paced.
+ * 
+ * @author Marc Corliss, minor modifications Stina Bridgeman
+ */
+public class PaintCanvas extends JPanel implements KeyListener, PaintBackend {
+  /** Number of objects the object array starts out with */
+  private static final int INITIAL_OBJECTS = 1024;
+
+  /** Most laid out strings kept for drawString */
+  private static final int GLYPH_CACHE_SIZE = 256;
+
+  /** Most auto repaints a second a canvas starts out with */
+  public static final int DEFAULT_REPAINT_RATE = 60;
+
+  /** Window this canvas is the content panel of (null if embedded) */
+  private JFrame window;
+
+  /** Lock guarding drawObjects, drawObjectsNum, repaint_ and the pacer */
+  private final Object drawLock = new Object();
+
+  /** Array of objects (rectangles, ovals, strings, etc.) */
+  private DrawObject[] drawObjects;
+
+  /** Number of drawn objects */
+  private int drawObjectsNum;
+
+  /** Number of slots holding objects, drawn or kept by a clear for reuse */
+  private int drawObjectsKept;
+
+  /**
+   * Laid out strings by text, font and render context, least recently drawn
+   * first. Only used while painting, with drawLock held.
+   */
+  private final LinkedHashMap<GlyphKey,GlyphVector> glyphCache =
+    new LinkedHashMap<GlyphKey,GlyphVector>(64,0.75f,true);
+
+  /** Key reused to look strings up in glyphCache without allocating */
+  private final GlyphKey glyphProbe = new GlyphKey();
+
+  /** Render context of the graphics being painted, with drawLock held */
+  private FontRenderContext renderContext;
+
+  /** Font whose metrics are in metrics, guarded by drawLock */
+  private Font metricsFont;
+
+  /** Metrics of metricsFont, guarded by drawLock */
+  private FontMetrics metrics;
+
+  /** Current color to paint with */
+  private volatile Color currentColor;
+
+  /** Current font to draw strings with */
+  private volatile Font currentFont;
+
+  /** A string buffer for holding text entered via keyboard */
+  private StringBuffer keyBuffer;
+
+  /**
+   * An integer holding the direction pushed for the last arrow (NONE means
+   * arrow was not entered)
+   */
+  private int arrow = Paint.NONE;
+
+  /**
+   * If true, every drawRect and similar command results in a repaint after the
+   * command. If false, repaints do not occur until paint() is called (a
+   * one-time repaint) or setAutoRepaint(true) is called.
+   */
+  private boolean repaint_ = true;
+
+  /** Shortest time between auto repaints, 0 for no pacing */
+  private long repaintIntervalNanos = 1000000000L / DEFAULT_REPAINT_RATE;
+
+  /** Whether an auto repaint has been asked for and not started */
+  private boolean repaintPending;
+
+  /** System.nanoTime when the last paint started */
+  private long lastPaintNanos;
+
+  /** Running average of how long painting takes, in nanoseconds */
+  private long paintNanos;
+
+  /** Timer that asks for an auto repaint when its interval is up */
+  private final Timer repaintTimer;
+
+  /**
+   * PaintCanvas constructor Creates the panel and initializes all variables
+   * 
+   * @param bgColor
+   *          the background color.
+   */
+  public PaintCanvas ( Color bgColor ) {
+    // set this class to listen for keyboard events
+    addKeyListener(this);
+    // set the background color
+    setBackground(bgColor);
+    // copy the color to currentColor
+    currentColor =
+      new Color(bgColor.getRed(),bgColor.getGreen(),bgColor.getBlue());
+    // set the default font
+    currentFont = new Font("Dialog",Font.PLAIN,12);
+    // initialize the objects array and initialize length
+    drawObjects = new DrawObject[INITIAL_OBJECTS];
+    drawObjectsNum = 0;
+    // initialize the key buffer
+    keyBuffer = new StringBuffer();
+    // create the pacer's timer, which fires once each time it is started
+    repaintTimer = new Timer(0,e -> repaint());
+    repaintTimer.setRepeats(false);
+  }
+
+  /**
+   * Override paintComponent and draw panel Draws all the objects (rectangles,
+   * ovals, string, etc.) on the window.
+   * 
+   * @param g
+   *          a graphics object
+   */
+  public void paintComponent ( Graphics g ) {
+    // call parent paintComponent method - draws background
+    super.paintComponent(g);
+
+    // draw shapes, timing the pass for the pacer
+    synchronized ( drawLock ) {
+      long start = System.nanoTime();
+      repaintPending = false;
+      lastPaintNanos = start;
+      drawAll(g);
+      paintNanos += (System.nanoTime() - start - paintNanos) / 8;
+    }
+
+    // request the focus for this panel to listen for keys entered
+    requestFocusInWindow();
+  }
+
+  /**
+   * Draw the background and all the objects onto any graphics object, such
+   * as one for an offscreen image. Does not touch the window.
+   * 
+   * @param g
+   *          a graphics object
+   * @param width
+   *          width of the area to fill with the background
+   * @param height
+   *          height of the area to fill with the background
+   */
+  public void renderTo ( Graphics g, int width, int height ) {
+    g.setColor(getBackground());
+    g.fillRect(0,0,width,height);
+    synchronized ( drawLock ) {
+      drawAll(g);
+    }
+  }
+
+  /**
+   * Draw all the objects. Must be called with drawLock held.
+   * 
+   * @param g
+   *          a graphics object
+   */
+  private void drawAll ( Graphics g ) {
+    SnakeEvents.PaintPass event = null;
+    if ( SnakeEvents.PAINT_PASS.isEnabled() ) {
+      event = new SnakeEvents.PaintPass();
+      event.begin();
+    }
+    renderContext =
+      g instanceof Graphics2D ? ((Graphics2D) g).getFontRenderContext() : null;
+    for ( int i = 0 ; i < drawObjectsNum ; i++ )
+      drawObjects[i].draw(g);
+    if ( event != null ) {
+      event.end();
+      if ( event.shouldCommit() ) {
+	event.objects = drawObjectsNum;
+	event.commit();
+      }
+    }
+  }
+
+  /**
+   * Get a string laid out in a font from the cache, laying it out and
+   * evicting the least recently drawn string if it is not there. Must be
+   * called with drawLock held.
+   * 
+   * @param str
+   *          string to lay out
+   * @param f
+   *          font to lay it out in
+   * @param frc
+   *          render context to lay it out for
+   * @return the glyphs of the string
+   */
+  private GlyphVector glyphs ( String str, Font f, FontRenderContext frc ) {
+    glyphProbe.set(str,f,frc);
+    GlyphVector glyphs = glyphCache.get(glyphProbe);
+    if ( glyphs == null ) {
+      glyphs = f.createGlyphVector(frc,str);
+      GlyphKey key = new GlyphKey();
+      key.set(str,f,frc);
+      glyphCache.put(key,glyphs);
+      if ( glyphCache.size() > GLYPH_CACHE_SIZE ) {
+	Iterator<GlyphKey> eldest = glyphCache.keySet().iterator();
+	eldest.next();
+	eldest.remove();
+      }
+    }
+    return glyphs;
+  }
+
+  /**
+   * Key of a laid out string in the glyph cache
+   */
+  private static final class GlyphKey {
+    /** Text of the string */
+    private String str;
+
+    /** Font it was laid out in */
+    private Font font;
+
+    /** Render context it was laid out for */
+    private FontRenderContext frc;
+
+    /** Hash of the three */
+    private int hash;
+
+    /**
+     * Fill in the key
+     */
+    void set ( String str, Font font, FontRenderContext frc ) {
+      this.str = str;
+      this.font = font;
+      this.frc = frc;
+      hash = (str.hashCode() * 31 + font.hashCode()) * 31 + frc.hashCode();
+    }
+
+    public int hashCode () {
+      return hash;
+    }
+
+    public boolean equals ( Object o ) {
+      if ( !(o instanceof GlyphKey) ) return false;
+      GlyphKey other = (GlyphKey) o;
+      return hash == other.hash && str.equals(other.str)
+	&& font.equals(other.font) && frc.equals(other.frc);
+    }
+  }
+
+  /**
+   * Define the abstract keyReleased method Pushes key events onto the string
+   * buffer
+   * 
+   * @param event
+   *          the key event object
+   */
+  public synchronized void keyReleased ( KeyEvent event ) {
+    if ( event.getKeyCode() == KeyEvent.VK_UP ) arrow = Paint.UP;
+    else if ( event.getKeyCode() == KeyEvent.VK_DOWN ) arrow = Paint.DOWN;
+    else if ( event.getKeyCode() == KeyEvent.VK_LEFT ) arrow = Paint.LEFT;
+    else if ( event.getKeyCode() == KeyEvent.VK_RIGHT ) arrow = Paint.RIGHT;
+    else {
+      arrow = Paint.OTHER;
+      keyBuffer.append(event.getKeyChar());
+    }
+    notifyAll();
+  }
+
+  /**
+   * Define the abstract keyPressed method (not used)
+   * 
+   * @param event
+   *          the key event object
+   */
+  public void keyPressed ( KeyEvent event ) {}
+
+  /**
+   * Define the abstract keyTyped method (not used)
+   * 
+   * @param event
+   *          the key event object
+   */
+  public void keyTyped ( KeyEvent event ) {}
+
+  /**
+   * Pop the characters that were typed from the buffer. Input is buffered until
+   * return is pressed.
+   * 
+   * @return string containing characters that were typed
+   */
+  private synchronized String popFromBuffer () {
+    //		System.out.println("pop from buffer: " + keyBuffer.length());
+    // return line of text stopping at a newline
+    if ( keyBuffer.length() != 0 ) {
+      String line = "";
+      int index = keyBuffer.indexOf("\n");
+      if ( index < 0 ) {
+	return ""; // index = keyBuffer.length();
+      }
+      line = keyBuffer.substring(0,index);
+      keyBuffer = keyBuffer.delete(0,index + 1); // delete includes \n
+      return line;
+    } else return "";
+  }
+
+  /**
+   * Blocks until some input is given via keyboard and returns this input
+   * 
+   * @return input entered via the keyboard
+   */
+  private synchronized String waitForText () {
+    SnakeEvents.InputWait event = beginWait();
+    // line to return
+    String line = "";
+
+    // loop infinitely until we get a line of text
+    while ( true ) {
+      line = popFromBuffer();
+      if ( line.equals("") ) {
+	try {
+	  wait();
+	} catch ( InterruptedException ignored ) {}
+      } else break;
+    }
+    endWait(event,"text");
+
+    // return line
+    return line;
+  }
+
+  /**
+   * Blocks until a character is entered via keyboard and returns this input
+   * 
+   * @return character entered via the keyboard
+   */
+  private synchronized char waitForChar () {
+    SnakeEvents.InputWait event = beginWait();
+    // wait until there is a character
+    while ( true ) {
+      if ( keyBuffer.length() == 0 ) {
+	try {
+	  wait();
+	} catch ( InterruptedException ignored ) {}
+      } else {
+	break;
+      }
+    }
+    endWait(event,"char");
+    char ch = keyBuffer.charAt(0);
+    keyBuffer.delete(0,1);
+    return ch;
+  }
+
+  /**
+   * Get a line of typed text Blocks until it gets some input
+   * 
+   * @return line of typed text
+   */
+  public synchronized String getln () {
+    String line = waitForText();
+    arrow = Paint.NONE; // ignore any arrows pressed while waiting
+    return line;
+  }
+
+  /**
+   * Get a single characters. Blocks until it gets some input.
+   * 
+   * @return character typed on keyboard
+   */
+  public synchronized char getChar () {
+    char ch = waitForChar();
+    arrow = Paint.NONE; // ignore any arrows pressed while waiting
+    return ch;
+  }
+
+  /**
+   * Blocks until an arrow is entered is given via keyboard and returns the
+   * direction of the arrow
+   * 
+   * @return input entered via the keyboard
+   */
+  private synchronized int waitForArrow () {
+    SnakeEvents.InputWait event = beginWait();
+    int direction;
+
+    // loop infinitely until arrow is not NONE
+    while ( true ) {
+      if ( arrow == Paint.NONE ) {
+	try {
+	  wait();
+	} catch ( InterruptedException ignored ) {}
+      } else break;
+    }
+    endWait(event,"arrow");
+
+    direction = arrow;
+    arrow = Paint.NONE;
+
+    // return direction
+    return direction;
+  }
+
+  /**
+   * Start timing a wait for input if a flight recording wants input waits
+   * 
+   * @return the event to end when the wait is over, or null
+   */
+  private static SnakeEvents.InputWait beginWait () {
+    if ( !SnakeEvents.INPUT_WAIT.isEnabled() ) return null;
+    SnakeEvents.InputWait event = new SnakeEvents.InputWait();
+    event.begin();
+    return event;
+  }
+
+  /**
+   * End timing a wait for input and record it
+   * 
+   * @param event
+   *          event from beginWait, or null
+   * @param input
+   *          what was waited for
+   */
+  private static void endWait ( SnakeEvents.InputWait event, String input ) {
+    if ( event == null ) return;
+    event.end();
+    if ( event.shouldCommit() ) {
+      event.input = input;
+      event.commit();
+    }
+  }
+
+  /**
+   * Get an arrow key typed Blocks until an arrow key is typed
+   * 
+   * @return direction of arrow as an int (0-up, 1-down, 2-left, 3-right)
+   */
+  public int getArrow () {
+    return waitForArrow();
+  }
+
+  /**
+   * Build a new window with a new canvas as its content panel
+   * 
+   * @param title
+   *          the title of the window
+   * @param x
+   *          starting x coordinate of upper lefthand corner of the window on
+   *          the desktop (in pixels)
+   * @param y
+   *          starting y coordinate of upper lefthand corner of the window on
+   *          the desktop (in pixels)
+   * @param width
+   *          width of the drawing area (in pixels)
+   * @param height
+   *          height of the drawing area (in pixels)
+   * @param bgColor
+   *          background color of the window
+   * @return the canvas shown in the window
+   */
+  public static PaintCanvas buildWindow ( String title, int x, int y,
+					  int width, int height,
+					  Color bgColor ) {
+    // [ssb] made changes to window sizing so that the size of the drawing area
+    // is width by height, to avoid having to account for the windoww title bar
+
+    // create new window and display it
+    JFrame window = new JFrame(title);
+    window.setLocation(x,y);
+    // window.setSize(width,height); // ssb
+    window.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+    PaintCanvas content = new PaintCanvas(bgColor);
+    content.setPreferredSize(new Dimension(width,height)); // ssb
+    content.setMinimumSize(new Dimension(width,height)); // ssb
+    content.setSize(width,height); // ssb
+    content.window = window;
+    window.setContentPane(content);
+    window.pack(); // ssb
+    window.setVisible(true);
+    return content;
+  }
+
+  /**
+   * Get the window this canvas was built with
+   * 
+   * @return the window, or null if the canvas was not built with buildWindow
+   */
+  public JFrame getWindow () {
+    return window;
+  }
+
+  /**
+   * Add an object to the window
+   * 
+   * @param o
+   *          object to draw (e.g., rectangle)
+   */
+  private void addObject ( DrawObject o ) {
+    boolean repaint;
+    synchronized ( drawLock ) {
+      repaint = append(o);
+    }
+
+    // repaint window (safe to call from any thread)
+    if ( repaint ) {
+      autoRepaint();
+    }
+  }
+
+  /**
+   * Repaint after a drawing command, no sooner than the pacer allows. A
+   * repaint already waiting covers this one.
+   */
+  private void autoRepaint () {
+    long delay;
+    synchronized ( drawLock ) {
+      if ( repaintIntervalNanos == 0 ) delay = 0;
+      else {
+	if ( repaintPending ) return;
+	repaintPending = true;
+	// when painting takes longer than the budget, leave the event thread
+	// at least half its time for input
+	long interval = Math.max(repaintIntervalNanos,paintNanos * 2);
+	delay = lastPaintNanos + interval - System.nanoTime();
+      }
+    }
+    if ( delay <= 0 ) repaint();
+    else {
+      repaintTimer.setInitialDelay((int) Math.max(1,delay / 1000000));
+      repaintTimer.restart();
+    }
+  }
+
+  /**
+   * Set the most times a second the canvas is repainted after drawing
+   * commands while auto-repaint is on. The rate is lowered further while
+   * painting takes longer than 1/hz seconds.
+   * 
+   * @param hz
+   *          most auto repaints a second, or 0 to repaint after every
+   *          drawing command
+   */
+  public void setMaxRepaintRate ( int hz ) {
+    if ( hz < 0 )
+      throw new IllegalArgumentException("repaint rate must not be negative");
+    synchronized ( drawLock ) {
+      repaintIntervalNanos = hz == 0 ? 0 : 1000000000L / hz;
+    }
+  }
+
+  /**
+   * Add an object to the array. Must be called with drawLock held.
+   * 
+   * @param o
+   *          object to draw
+   * @return whether the window should be repainted
+   */
+  private boolean append ( DrawObject o ) {
+    // check if more than MAX_OBJECTS and if so throw an exception
+    // (usually happens when student has an infinite loop)
+    if ( drawObjectsNum >= Paint.MAX_OBJECTS )
+      throw new RuntimeException("Can create at most " + Paint.MAX_OBJECTS
+				 + " objects (shapes, strings, etc.) with Paint");
+
+    // grow the array if it is full
+    if ( drawObjectsNum == drawObjects.length ) {
+      DrawObject[] bigger =
+	new DrawObject[Math.min(drawObjects.length * 2,Paint.MAX_OBJECTS)];
+      System.arraycopy(drawObjects,0,bigger,0,drawObjectsNum);
+      drawObjects = bigger;
+    }
+
+    // otherwise add object to array
+    drawObjects[drawObjectsNum++] = o;
+    return repaint_;
+  }
+
+  /**
+   * Get the object an earlier clear left in the next free slot, if it is of
+   * exactly the given class. Images, rectangles and strings are filled in
+   * again instead of allocated, so a program that clears and redraws the
+   * same kinds of shapes every frame allocates nothing for them. Must be
+   * called with drawLock held.
+   * 
+   * @param type
+   *          class of the object wanted
+   * @return the object, or null if there is none to reuse
+   */
+  private DrawObject spare ( Class<?> type ) {
+    if ( drawObjectsNum < drawObjects.length ) {
+      DrawObject o = drawObjects[drawObjectsNum];
+      if ( o != null && o.getClass() == type ) return o;
+    }
+    return null;
+  }
+
+  /**
+   * Set the current color
+   * 
+   * @param c
+   *          current color
+   */
+  public void setColor ( Color c ) {
+    // a plain opaque Color can be kept as it is, since colors never change
+    if ( c.getClass() == Color.class && c.getAlpha() == 255 ) currentColor = c;
+    else currentColor = new Color(c.getRed(),c.getGreen(),c.getBlue());
+  }
+
+  /**
+   * Set the current color
+   * 
+   * @param r
+   *          red magnitude (0-255)
+   * @param g
+   *          green magnitude (0-255)
+   * @param b
+   *          blue magnitude (0-255)
+   */
+  public void setColor ( int r, int g, int b ) {
+    currentColor = new Color(r,g,b);
+  }
+
+  /**
+   * Set the current font
+   * 
+   * @param name
+   *          name of font ("serif" or "sanserif")
+   * @param style
+   *          style of font (Font.PLAIN, Font.BOLD, Font.ITALIC, or
+   *          Font.BOLD+Font.ITALIC)
+   * @param size
+   *          size of font (e.g., 16)
+   */
+  public void setFont ( String name, int style, int size ) {
+    currentFont = new Font(name,style,size);
+  }
+
+  /**
+   * Retrieve the font metrics for the current font. The metrics are kept
+   * until the font changes, and the canvas does not need to be showing.
+   * 
+   * @return the font metrics for the current font
+   */
+  public FontMetrics getFontMetrics () {
+    Font font = currentFont;
+    synchronized ( drawLock ) {
+      if ( font != metricsFont ) {
+	metrics = getFontMetrics(font);
+	metricsFont = font;
+      }
+      return metrics;
+    }
+  }
+
+  /**
+   * Abstract class for an object on the window
+   * 
+   * @author Marc Corliss
+   */
+  private abstract class DrawObject {
+    /** Color of the string (initially set using current color) */
+    protected Color c;
+
+    // must define draw() method in subclasses...
+    abstract public void draw ( Graphics g );
+
+    /**
+     * Drop what a cleared object need not keep to be filled in again
+     */
+    public void release () {
+    }
+  }
+
+  /**
+   * Class for a string object
+   * 
+   * @author Marc Corliss
+   */
+  private class DrawString extends DrawObject {
+    /** String to draw */
+    protected String str;
+
+    /** x coordinate of lower, lefthand portion of the string */
+    protected int x;
+
+    /** y coordinate of lower, lefthand portion of the string */
+    protected int y;
+
+    /** Font of the string (initially set using current font) */
+    protected Font f;
+
+    /** The string laid out in the font, or null until it is drawn */
+    protected GlyphVector glyphs;
+
+    /** Render context glyphs were laid out for */
+    protected FontRenderContext glyphsContext;
+
+    /**
+     * DrawString constructor
+     * 
+     * @param str
+     *          string to draw
+     * @param x
+     *          x coordinate of lower, lefthand portion of the string
+     * @param y
+     *          y coordinate of lower, lefthand portion of the string
+     */
+    public DrawString ( String str, int x, int y ) {
+      set(str,x,y);
+    }
+
+    /**
+     * Fill in the string again with the current color and font
+     */
+    public void set ( String str, int x, int y ) {
+      Font font = currentFont;
+      // a string redrawn the same keeps its glyphs
+      if ( !str.equals(this.str) || !font.equals(f) ) glyphs = null;
+      this.str = str;
+      this.x = x;
+      this.y = y;
+      this.c = currentColor;
+      this.f = font;
+    }
+
+    /**
+     * Draw the object on the window
+     * 
+     * @param g
+     *          graphics object
+     */
+    public void draw ( Graphics g ) {
+      g.setColor(c);
+      if ( renderContext == null ) {
+	g.setFont(f);
+	g.drawString(str,x,y);
+	return;
+      }
+      if ( glyphs == null || !renderContext.equals(glyphsContext) ) {
+	glyphs = glyphs(str,f,renderContext);
+	glyphsContext = renderContext;
+      }
+      ((Graphics2D) g).drawGlyphVector(glyphs,x,y);
+    }
+  }
+
+  /**
+   * Draw a string object onto the window
+   * 
+   * @param str
+   *          string to draw
+   * @param x
+   *          x coordinate of lower, lefthand portion of the string
+   * @param y
+   *          y coordinate of lower, lefthand portion of the string
+   */
+  public void drawString ( String str, int x, int y ) {
+    boolean repaint;
+    synchronized ( drawLock ) {
+      DrawString o = (DrawString) spare(DrawString.class);
+      if ( o == null ) o = new DrawString(str,x,y);
+      else o.set(str,x,y);
+      repaint = append(o);
+    }
+    if ( repaint ) autoRepaint();
+  }
+
+  /**
+   * Class for a line object
+   * 
+   * @author Marc Corliss
+   */
+  private class DrawLine extends DrawObject {
+    /** x coordinate of first point */
+    protected int x1;
+
+    /** y coordinate of first point */
+    protected int y1;
+
+    /** x coordinate of second point */
+    protected int x2;
+
+    /** y coordinate of second point */
+    protected int y2;
+
+    /**
+     * DrawLine constructor
+     * 
+     * @param x1
+     *          x coordinate of first point
+     * @param y1
+     *          y coordinate of first point
+     * @param x2
+     *          x coordinate of second point
+     * @param y2
+     *          y coordinate of second point
+     */
+    public DrawLine ( int x1, int y1, int x2, int y2 ) {
+      this.x1 = x1;
+      this.y1 = y1;
+      this.x2 = x2;
+      this.y2 = y2;
+      this.c = currentColor;
+    }
+
+    /**
+     * Draw the object on the window
+     * 
+     * @param g
+     *          graphics object
+     */
+    public void draw ( Graphics g ) {
+      g.setColor(c);
+      g.drawLine(x1,y1,x2,y2);
+    }
+  }
+
+  /**
+   * Draw a line object onto the window
+   * 
+   * @param x1
+   *          x coordinate of first point
+   * @param y1
+   *          y coordinate of first point
+   * @param x2
+   *          x coordinate of second point
+   * @param y2
+   *          y coordinate of second point
+   */
+  public void drawLine ( int x1, int y1, int x2, int y2 ) {
+    addObject((DrawObject) new DrawLine(x1,y1,x2,y2));
+  }
+
+  /**
+   * Class for a rectangle object
+   * 
+   * @author Marc Corliss
+   */
+  private class DrawRect extends DrawObject {
+    /** x coordinate of upper, lefthand corner of rectangle */
+    protected int x;
+
+    /** y coordinate of upper, lefthand corner of rectangle */
+    protected int y;
+
+    /** Width of rectangle */
+    protected int width;
+
+    /** Height of rectangle */
+    protected int height;
+
+    /**
+     * DrawRect constructor
+     * 
+     * @param x
+     *          x coordinate of upper, lefthand corner of rectangle
+     * @param y
+     *          y coordinate of upper, lefthand corner of rectangle
+     * @param width
+     *          Width of rectangle
+     * @param height
+     *          Height of rectangle
+     */
+    public DrawRect ( int x, int y, int width, int height ) {
+      set(x,y,width,height);
+    }
+
+    /**
+     * Fill in the rectangle again with the current color
+     */
+    public void set ( int x, int y, int width, int height ) {
+      this.x = x;
+      this.y = y;
+      this.height = height;
+      this.width = width;
+      this.c = currentColor;
+    }
+
+    /**
+     * Draw the object on the window
+     * 
+     * @param g
+     *          graphics object
+     */
+    public void draw ( Graphics g ) {
+      g.setColor(c);
+      g.drawRect(x,y,width,height);
+    }
+  }
+
+  /**
+   * Draw a rectangle outline to the window
+   * 
+   * @param x
+   *          x coordinate of upper, lefthand corner of rectangle
+   * @param y
+   *          y coordinate of upper, lefthand corner of rectangle
+   * @param width
+   *          Width of rectangle
+   * @param height
+   *          Height of rectangle
+   */
+  public void drawRect ( int x, int y, int width, int height ) {
+    boolean repaint;
+    synchronized ( drawLock ) {
+      DrawRect o = (DrawRect) spare(DrawRect.class);
+      if ( o == null ) o = new DrawRect(x,y,width,height);
+      else o.set(x,y,width,height);
+      repaint = append(o);
+    }
+    if ( repaint ) autoRepaint();
+  }
+
+  /**
+   * Abstract class for a filled-in rectangle object
+   * 
+   * @author Marc Corliss
+   */
+  private class FillRect extends DrawRect {
+    /**
+     * FillRect constructor
+     * 
+     * @param x
+     *          x coordinate of upper, lefthand corner of rectangle
+     * @param y
+     *          y coordinate of upper, lefthand corner of rectangle
+     * @param width
+     *          Width of rectangle
+     * @param height
+     *          Height of rectangle
+     */
+    public FillRect ( int x, int y, int width, int height ) {
+      super(x,y,width,height);
+    }
+
+    /**
+     * Draw the object on the window
+     * 
+     * @param g
+     *          graphics object
+     */
+    public void draw ( Graphics g ) {
+      g.setColor(c);
+      g.fillRect(x,y,width,height);
+    }
+  }
+
+  /**
+   * Draw a filled-in rectangle to the window
+   * 
+   * @param x
+   *          x coordinate of upper, lefthand corner of rectangle
+   * @param y
+   *          y coordinate of upper, lefthand corner of rectangle
+   * @param width
+   *          Width of rectangle
+   * @param height
+   *          Height of rectangle
+   */
+  public void fillRect ( int x, int y, int width, int height ) {
+    boolean repaint;
+    synchronized ( drawLock ) {
+      FillRect o = (FillRect) spare(FillRect.class);
+      if ( o == null ) o = new FillRect(x,y,width,height);
+      else o.set(x,y,width,height);
+      repaint = append(o);
+    }
+    if ( repaint ) autoRepaint();
+  }
+
+  /**
+   * Class for an oval object
+   * 
+   * @author Marc Corliss
+   */
+  private class DrawOval extends DrawObject {
+    /** x coordinate of upper-lefthand corner of box that bounds oval */
+    protected int x;
+
+    /** y coordinate of upper-lefthand corner of box that bounds oval */
+    protected int y;
+
+    /** Width of box that bounds oval */
+    protected int width;
+
+    /** Height of box that bounds oval */
+    protected int height;
+
+    /**
+     * DrawOval constructor
+     * 
+     * @param x
+     *          x coordinate of upper-lefthand corner of box that bounds oval
+     * @param y
+     *          y coordinate of upper-lefthand corner of box that bounds oval
+     * @param width
+     *          width of box that bounds oval
+     * @param height
+     *          height of box that bounds oval
+     */
+    public DrawOval ( int x, int y, int width, int height ) {
+      this.x = x;
+      this.y = y;
+      this.height = height;
+      this.width = width;
+      this.c = currentColor;
+    }
+
+    /**
+     * Draw the object on the window
+     * 
+     * @param g
+     *          graphics object
+     */
+    public void draw ( Graphics g ) {
+      g.setColor(c);
+      g.drawOval(x,y,width,height);
+    }
+  }
+
+  /**
+   * Draw an oval outline to the window
+   * 
+   * @param x
+   *          x coordinate of upper-lefthand corner of box that bounds oval
+   * @param y
+   *          y coordinate of upper-lefthand corner of box that bounds oval
+   * @param width
+   *          width of box that bounds oval
+   * @param height
+   *          height of box that bounds oval
+   */
+  public void drawOval ( int x, int y, int width, int height ) {
+    addObject((DrawObject) new DrawOval(x,y,width,height));
+  }
+
+  /**
+   * Class for a filled-in oval object
+   * 
+   * @author Marc Corliss
+   */
+  private class FillOval extends DrawOval {
+    /**
+     * FillOval constructor
+     * 
+     * @param x
+     *          x coordinate of upper-lefthand corner of box that bounds oval
+     * @param y
+     *          y coordinate of upper-lefthand corner of box that bounds oval
+     * @param width
+     *          width of box that bounds oval
+     * @param height
+     *          height of box that bounds oval
+     */
+    public FillOval ( int x, int y, int width, int height ) {
+      super(x,y,width,height);
+    }
+
+    /**
+     * Draw the object on the window
+     * 
+     * @param g
+     *          graphics object
+     */
+    public void draw ( Graphics g ) {
+      g.setColor(c);
+      g.fillOval(x,y,width,height);
+    }
+  }
+
+  /**
+   * Draw a filled-in oval to the window
+   * 
+   * @param x
+   *          x coordinate of upper-lefthand corner of box that bounds oval
+   * @param y
+   *          y coordinate of upper-lefthand corner of box that bounds oval
+   * @param width
+   *          width of box that bounds oval
+   * @param height
+   *          height of box that bounds oval
+   */
+  public void fillOval ( int x, int y, int width, int height ) {
+    addObject((DrawObject) new FillOval(x,y,width,height));
+  }
+
+  /**
+   * Class for a rounded rectangle object
+   * 
+   * @author Marc Corliss
+   */
+  private class DrawRoundRect extends DrawObject {
+    /**
+     * x coordinate of upper-lefthand corner of box that bounds rounded
+     * rectangle
+     */
+    protected int x;
+
+    /**
+     * y coordinate of upper-lefthand corner of box that bounds rounded
+     * rectangle
+     */
+    protected int y;
+
+    /** Width of rounded rectangle */
+    protected int width;
+
+    /** Height of rounded rectangle */
+    protected int height;
+
+    /** Horizontal diameter of corner arc of elipse */
+    protected int xdiam;
+
+    /** Vertical diameter of corner arc of elipse */
+    protected int ydiam;
+
+    /**
+     * Constructor DrawRoundRect
+     * 
+     * @param x
+     *          x coordinate of upper-lefthand corner of box that bounds rounded
+     *          rectangle
+     * @param y
+     *          y coordinate of upper-lefthand corner of box that bounds rounded
+     *          rectangle
+     * @param width
+     *          width of rounded rectangle
+     * @param height
+     *          height of rounded rectangle
+     * @param xdiam
+     *          horizontal diameter of corner arc of elipse
+     * @param ydiam
+     *          vertical diameter of corner arc of elipse
+     */
+    public DrawRoundRect ( int x, int y, int width, int height, int xdiam,
+			   int ydiam ) {
+      this.x = x;
+      this.y = y;
+      this.height = height;
+      this.width = width;
+      this.xdiam = xdiam;
+      this.ydiam = ydiam;
+      this.c = currentColor;
+    }
+
+    /**
+     * Draw the object on the window
+     * 
+     * @param g
+     *          graphics object
+     */
+    public void draw ( Graphics g ) {
+      g.setColor(c);
+      g.drawRoundRect(x,y,width,height,xdiam,ydiam);
+    }
+  }
+
+  /**
+   * Draw a rounded rectangle outline to the window
+   * 
+   * @param x
+   *          x coordinate of upper-lefthand corner of box that bounds rounded
+   *          rectangle
+   * @param y
+   *          y coordinate of upper-lefthand corner of box that bounds rounded
+   *          rectangle
+   * @param width
+   *          width of rounded rectangle
+   * @param height
+   *          height of rounded rectangle
+   * @param xdiam
+   *          horizontal diameter of corner arc of elipse
+   * @param ydiam
+   *          vertical diameter of corner arc of elipse
+   */
+  public void drawRoundRect ( int x, int y, int width, int height,
+				     int xdiam, int ydiam ) {
+    addObject((DrawObject) new DrawRoundRect(x,y,width,height,xdiam,ydiam));
+  }
+
+  /**
+   * Class for a filled-in rounded rectangle object
+   * 
+   * @author Marc Corliss
+   */
+  private class FillRoundRect extends DrawRoundRect {
+    /**
+     * Constructor FillRoundRect
+     * 
+     * @param x
+     *          x coordinate of upper-lefthand corner of box that bounds rounded
+     *          rectangle
+     * @param y
+     *          y coordinate of upper-lefthand corner of box that bounds rounded
+     *          rectangle
+     * @param width
+     *          width of rounded rectangle
+     * @param height
+     *          height of rounded rectangle
+     * @param xdiam
+     *          horizontal diameter of corner arc of elipse
+     * @param ydiam
+     *          vertical diameter of corner arc of elipse
+     */
+    public FillRoundRect ( int x, int y, int width, int height, int xdiam,
+			   int ydiam ) {
+      super(x,y,width,height,xdiam,ydiam);
+    }
+
+    /**
+     * Draw the object on the window
+     * 
+     * @param g
+     *          graphics object
+     */
+    public void draw ( Graphics g ) {
+      g.setColor(c);
+      g.fillRoundRect(x,y,width,height,xdiam,ydiam);
+    }
+  }
+
+  /**
+   * Draw a filled-in rounded rectangle to the window
+   * 
+   * @param x
+   *          x coordinate of upper-lefthand corner of box that bounds rounded
+   *          rectangle
+   * @param y
+   *          y coordinate of upper-lefthand corner of box that bounds rounded
+   *          rectangle
+   * @param width
+   *          width of rounded rectangle
+   * @param height
+   *          height of rounded rectangle
+   * @param xdiam
+   *          horizontal diameter of corner arc of elipse
+   * @param ydiam
+   *          vertical diameter of corner arc of elipse
+   */
+  public void fillRoundRect ( int x, int y, int width, int height,
+				     int xdiam, int ydiam ) {
+    addObject((DrawObject) new FillRoundRect(x,y,width,height,xdiam,ydiam));
+  }
+
+  /**
+   * Class for an arc object
+   * 
+   * @author Marc Corliss
+   */
+  private class DrawArc extends DrawObject {
+    /**
+     * x coordinate of upper-lefthand corner of the box containing the oval,
+     * which the arc is contained within
+     */
+    protected int x;
+
+    /**
+     * y coordinate of upper-lefthand corner of the box containing the oval,
+     * which the arc is contained within
+     */
+    protected int y;
+
+    /** Width of the box containing the oval, which the arc is contained within */
+    protected int width;
+
+    /** Height of the box containing the oval, which the arc is contained within */
+    protected int height;
+
+    /** The starting angle of the arc (0 is at 3 o'clock position) */
+    protected int startAngle;
+
+    /**
+     * The degrees to extend the arc from the starting angle (0 is at 3 o'clock
+     * position)
+     */
+    protected int arcAngle;
+
+    /**
+     * DrawArc constructor
+     * 
+     * @param x
+     *          x coordinate of upper-lefthand corner of the box containing the
+     *          oval, which the arc is contained within
+     * @param y
+     *          y coordinate of upper-lefthand corner of the box containing the
+     *          oval, which the arc is contained within
+     * @param width
+     *          width of the box containing the oval, which the arc is contained
+     *          within
+     * @param height
+     *          height of the box containing the oval, which the arc is
+     *          contained within
+     * @param startAngle
+     *          the starting angle of the arc (0 is at 3 o'clock position)
+     * @param arcAngle
+     *          the degrees to extend the arc from the starting angle (0 is at 3
+     *          o'clock position)
+     */
+    public DrawArc ( int x, int y, int width, int height, int startAngle,
+		     int arcAngle ) {
+      this.x = x;
+      this.y = y;
+      this.height = height;
+      this.width = width;
+      this.startAngle = startAngle;
+      this.arcAngle = arcAngle;
+      this.c = currentColor;
+    }
+
+    /**
+     * Draw the object on the window
+     * 
+     * @param g
+     *          graphics object
+     */
+    public void draw ( Graphics g ) {
+      g.setColor(c);
+      g.drawArc(x,y,width,height,startAngle,arcAngle);
+    }
+  }
+
+  /**
+   * Draw an arc outline to the window
+   * 
+   * @param x
+   *          x coordinate of upper-lefthand corner of the box containing the
+   *          oval, which the arc is contained within
+   * @param y
+   *          y coordinate of upper-lefthand corner of the box containing the
+   *          oval, which the arc is contained within
+   * @param width
+   *          width of the box containing the oval, which the arc is contained
+   *          within
+   * @param height
+   *          height of the box containing the oval, which the arc is contained
+   *          within
+   * @param startAngle
+   *          the starting angle of the arc (0 is at 3 o'clock position)
+   * @param arcAngle
+   *          the degrees to extend the arc from the starting angle (0 is at 3
+   *          o'clock position)
+   */
+  public void drawArc ( int x, int y, int width, int height,
+			       int startAngle, int arcAngle ) {
+    addObject((DrawObject) new DrawArc(x,y,width,height,startAngle,arcAngle));
+  }
+
+  /**
+   * Class for a filled-in arc object
+   * 
+   * @author Marc Corliss
+   */
+  private class FillArc extends DrawArc {
+    /**
+     * FillArc constructor
+     * 
+     * @param x
+     *          x coordinate of upper-lefthand corner of the box containing the
+     *          oval, which the arc is contained within
+     * @param y
+     *          y coordinate of upper-lefthand corner of the box containing the
+     *          oval, which the arc is contained within
+     * @param width
+     *          width of the box containing the oval, which the arc is contained
+     *          within
+     * @param height
+     *          height of the box containing the oval, which the arc is
+     *          contained within
+     * @param startAngle
+     *          the starting angle of the arc (0 is at 3 o'clock position)
+     * @param arcAngle
+     *          the degrees to extend the arc from the starting angle (0 is at 3
+     *          o'clock position)
+     */
+    public FillArc ( int x, int y, int width, int height, int startAngle,
+		     int arcAngle ) {
+      super(x,y,width,height,startAngle,arcAngle);
+    }
+
+    /**
+     * Draw the object on the window
+     * 
+     * @param g
+     *          graphics object
+     */
+    public void draw ( Graphics g ) {
+      g.setColor(c);
+      g.fillArc(x,y,width,height,startAngle,arcAngle);
+    }
+  }
+
+  /**
+   * Draw a filled-in arc to the window
+   * 
+   * @param x
+   *          x coordinate of upper-lefthand corner of the box containing the
+   *          oval, which the arc is contained within
+   * @param y
+   *          y coordinate of upper-lefthand corner of the box containing the
+   *          oval, which the arc is contained within
+   * @param width
+   *          width of the box containing the oval, which the arc is contained
+   *          within
+   * @param height
+   *          height of the box containing the oval, which the arc is contained
+   *          within
+   * @param startAngle
+   *          the starting angle of the arc (0 is at 3 o'clock position)
+   * @param arcAngle
+   *          the degrees to extend the arc from the starting angle (0 is at 3
+   *          o'clock position)
+   */
+  public void fillArc ( int x, int y, int width, int height,
+			       int startAngle, int arcAngle ) {
+    addObject((DrawObject) new FillArc(x,y,width,height,startAngle,arcAngle));
+  }
+
+  /**
+   * Class for a polygon object
+   * 
+   * @author Marc Corliss
+   */
+  private class DrawPolygon extends DrawObject {
+    /** Array of x coordinates (at least 1 element for each point) */
+    protected int[] xPoints;
+
+    /** Array of y coordinates (at least 1 element for each point) */
+    protected int[] yPoints;
+
+    /** Number of points */
+    protected int nPoints;
+
+    /**
+     * DrawPolygon consructor
+     * 
+     * @param xPoints
+     *          array of x coordinates (at least 1 element for each point)
+     * @param yPoints
+     *          array of y coordinates (at least 1 element for each point)
+     * @param nPoints
+     *          number of points
+     */
+    public DrawPolygon ( int[] xPoints, int[] yPoints, int nPoints ) {
+      this.xPoints = xPoints;
+      this.yPoints = yPoints;
+      this.nPoints = nPoints;
+      this.c = currentColor;
+    }
+
+    /**
+     * Draw the object on the window
+     * 
+     * @param g
+     *          graphics object
+     */
+    public void draw ( Graphics g ) {
+      g.setColor(c);
+      g.drawPolygon(xPoints,yPoints,nPoints);
+    }
+  }
+
+  /**
+   * Draw a polygon outline onto the window
+   * 
+   * @param xPoints
+   *          array of x coordinates (at least 1 element for each point)
+   * @param yPoints
+   *          array of y coordinates (at least 1 element for each point)
+   * @param nPoints
+   *          number of points
+   */
+  public void drawPolygon ( int[] xPoints, int[] yPoints, int nPoints ) {
+    addObject((DrawObject) new DrawPolygon(xPoints,yPoints,nPoints));
+  }
+
+  /**
+   * Class for a filled-in polygon object
+   * 
+   * @author Marc Corliss
+   */
+  private class FillPolygon extends DrawPolygon {
+    /**
+     * FillPolygon consructor
+     * 
+     * @param xPoints
+     *          array of x coordinates (at least 1 element for each point)
+     * @param yPoints
+     *          array of y coordinates (at least 1 element for each point)
+     * @param nPoints
+     *          number of points
+     */
+    public FillPolygon ( int[] xPoints, int[] yPoints, int nPoints ) {
+      super(xPoints,yPoints,nPoints);
+    }
+
+    /**
+     * Draw the object on the window
+     * 
+     * @param g
+     *          graphics object
+     */
+    public void draw ( Graphics g ) {
+      g.setColor(c);
+      g.fillPolygon(xPoints,yPoints,nPoints);
+    }
+  }
+
+  /**
+   * Draw a filled-in polygon onto the window
+   * 
+   * @param xPoints
+   *          array of x coordinates (at least 1 element for each point)
+   * @param yPoints
+   *          array of y coordinates (at least 1 element for each point)
+   * @param nPoints
+   *          number of points
+   */
+  public void fillPolygon ( int[] xPoints, int[] yPoints, int nPoints ) {
+    addObject((DrawObject) new FillPolygon(xPoints,yPoints,nPoints));
+  }
+
+  /**
+   * Class for a triangle object
+   * 
+   * @author Marc Corliss
+   */
+  private class DrawTriangle extends DrawObject {
+    /** x coordinate of first point */
+    protected int x1;
+
+    /** y coordinate of first point */
+    protected int y1;
+
+    /** x coordinate of second point */
+    protected int x2;
+
+    /** y coordinate of second point */
+    protected int y2;
+
+    /** x coordinate of third point */
+    protected int x3;
+
+    /** y coordinate of third point */
+    protected int y3;
+
+    /**
+     * DrawTriangle constructor
+     * 
+     * @param x1
+     *          x coordinate of first point
+     * @param y1
+     *          y coordinate of first point
+     * @param x2
+     *          x coordinate of second point
+     * @param y2
+     *          y coordinate of second point
+     * @param x3
+     *          x coordinate of third point
+     * @param y3
+     *          y coordinate of third point
+     */
+    public DrawTriangle ( int x1, int y1, int x2, int y2, int x3, int y3 ) {
+      this.x1 = x1;
+      this.y1 = y1;
+      this.x2 = x2;
+      this.y2 = y2;
+      this.x3 = x3;
+      this.y3 = y3;
+      this.c = currentColor;
+    }
+
+    /**
+     * Draw the object on the window
+     * 
+     * @param g
+     *          graphics object
+     */
+    public void draw ( Graphics g ) {
+      g.setColor(c);
+      g.drawPolygon(new int[] { x1, x2, x3 },new int[] { y1, y2, y3 },3);
+    }
+  }
+
+  /**
+   * Draw a triangle outline onto the window
+   * 
+   * @param x1
+   *          x coordinate of first point
+   * @param y1
+   *          y coordinate of first point
+   * @param x2
+   *          x coordinate of second point
+   * @param y2
+   *          y coordinate of second point
+   * @param x3
+   *          x coordinate of third point
+   * @param y3
+   *          y coordinate of third point
+   */
+  public void drawTriangle ( int x1, int y1, int x2, int y2, int x3,
+				    int y3 ) {
+    addObject((DrawObject) new DrawTriangle(x1,y1,x2,y2,x3,y3));
+  }
+
+  /**
+   * Class for a filled-in triangle object
+   * 
+   * @author Marc Corliss
+   */
+  private class FillTriangle extends DrawTriangle {
+    /**
+     * FillTriangle constructor
+     * 
+     * @param x1
+     *          x coordinate of first point
+     * @param y1
+     *          y coordinate of first point
+     * @param x2
+     *          x coordinate of second point
+     * @param y2
+     *          y coordinate of second point
+     * @param x3
+     *          x coordinate of third point
+     * @param y3
+     *          y coordinate of third point
+     */
+    public FillTriangle ( int x1, int y1, int x2, int y2, int x3, int y3 ) {
+      super(x1,y1,x2,y2,x3,y3);
+    }
+
+    /**
+     * Draw the object on the window
+     * 
+     * @param g
+     *          graphics object
+     */
+    public void draw ( Graphics g ) {
+      g.setColor(c);
+      g.fillPolygon(new int[] { x1, x2, x3 },new int[] { y1, y2, y3 },3);
+    }
+  }
+
+  /**
+   * Draw a filled-in triangle onto the window
+   * 
+   * @param x1
+   *          x coordinate of first point
+   * @param y1
+   *          y coordinate of first point
+   * @param x2
+   *          x coordinate of second point
+   * @param y2
+   *          y coordinate of second point
+   * @param x3
+   *          x coordinate of third point
+   * @param y3
+   *          y coordinate of third point
+   */
+  public void fillTriangle ( int x1, int y1, int x2, int y2, int x3,
+				    int y3 ) {
+    addObject((DrawObject) new FillTriangle(x1,y1,x2,y2,x3,y3));
+  }
+
+  /**
+   * Class for an image object
+   */
+  private class DrawImage extends DrawObject {
+    /** Image to draw */
+    protected Image image;
+
+    /** x coordinate of upper-lefthand corner of the image */
+    protected int x;
+
+    /** y coordinate of upper-lefthand corner of the image */
+    protected int y;
+
+    /**
+     * DrawImage constructor
+     * 
+     * @param image
+     *          image to draw
+     * @param x
+     *          x coordinate of upper-lefthand corner of the image
+     * @param y
+     *          y coordinate of upper-lefthand corner of the image
+     */
+    public DrawImage ( Image image, int x, int y ) {
+      set(image,x,y);
+    }
+
+    /**
+     * Fill in the image again
+     */
+    public void set ( Image image, int x, int y ) {
+      this.image = image;
+      this.x = x;
+      this.y = y;
+      this.c = currentColor;
+    }
+
+    /**
+     * Draw the object on the window
+     * 
+     * @param g
+     *          graphics object
+     */
+    public void draw ( Graphics g ) {
+      g.drawImage(image,x,y,null);
+    }
+
+    /**
+     * Let go of the image, which the next set replaces anyway
+     */
+    public void release () {
+      image = null;
+    }
+  }
+
+  /**
+   * Draw an image onto the window at its own size. The image must already be
+   * fully loaded (for example a BufferedImage). The current color is not
+   * used.
+   * 
+   * @param image
+   *          image to draw
+   * @param x
+   *          x coordinate of upper-lefthand corner of the image
+   * @param y
+   *          y coordinate of upper-lefthand corner of the image
+   */
+  public void drawImage ( Image image, int x, int y ) {
+    boolean repaint;
+    synchronized ( drawLock ) {
+      DrawImage o = (DrawImage) spare(DrawImage.class);
+      if ( o == null ) o = new DrawImage(image,x,y);
+      else o.set(image,x,y);
+      repaint = append(o);
+    }
+    if ( repaint ) autoRepaint();
+  }
+
+  /**
+   * Clear the drawing window.
+   */
+  public void clear () {
+    // the objects stay in the array to be reused by the next drawing,
+    // without their images; objects the last clear kept that were not
+    // reused since are dropped
+    synchronized ( drawLock ) {
+      for ( int i = drawObjectsNum; i < drawObjectsKept; i++ ) drawObjects[i] = null;
+      for ( int i = 0; i < drawObjectsNum; i++ ) drawObjects[i].release();
+      drawObjectsKept = drawObjectsNum;
+      drawObjectsNum = 0;
+    }
+  }
+
+  /**
+   * Set whether or not repaint occurs automatically after a drawRect or similar
+   * drawing command. Triggers a repaint if auto is true. 
+   * 
+   * @return the previous auto-repaint setting
+   */
+
+  public boolean setAutoRepaint ( boolean auto ) {
+    boolean old;
+    synchronized ( drawLock ) {
+      old = repaint_;
+      repaint_ = auto;
+    }
+    if ( auto ) {
+      repaint();
+    }
+    return old;
+  }
+
+  /**
+   * Paint the drawing window.
+   */
+  public void paint () {
+    repaint();
+  }
+}
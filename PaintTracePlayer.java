@@ -0,0 +1,258 @@
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Reads a trace written by PaintTraceRecorder and makes the same calls on a
+ * paint backend, either at the pace they were recorded at or as fast as
+ * possible. The file is read through a channel into one buffer and the
+ * recorder reuses string and image ids, so a trace of any length plays in
+ * constant memory.
+ */
+public class PaintTracePlayer {
+  /** Size the read buffer starts out with */
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  /** File the trace is read from */
+  private final Path file;
+
+  /** Read buffer, holding what has been read and not parsed yet */
+  private ByteBuffer buffer;
+
+  /** Channel being read, while playing */
+  private FileChannel channel;
+
+  /**
+   * PaintTracePlayer constructor
+   *
+   * @param file
+   *          the trace file
+   */
+  public PaintTracePlayer ( Path file ) {
+    this.file = file;
+  }
+
+  /**
+   * Play the whole trace
+   *
+   * @param target
+   *          backend to make the calls on
+   * @param realTime
+   *          true to keep the recorded time between calls, false to make
+   *          the calls as fast as possible
+   * @return the number of calls made
+   */
+  public long play ( PaintBackend target, boolean realTime )
+    throws IOException {
+    buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    buffer.flip();
+    ArrayList<Image> images = new ArrayList<Image>();
+    String[] strings = new String[PaintTraceRecorder.MAX_STRINGS];
+    int[] xs = new int[16];
+    int[] ys = new int[16];
+    Color color = null;
+    long calls = 0;
+    try ( FileChannel c = FileChannel.open(file,StandardOpenOption.READ) ) {
+      channel = c;
+      if ( !fill(8) || buffer.getInt() != PaintTraceRecorder.MAGIC )
+	throw new IOException(file + " is not a paint trace");
+      int version = buffer.getInt();
+      if ( version != PaintTraceRecorder.VERSION )
+	throw new IOException(file + " is a version " + version
+			      + " paint trace, expected version "
+			      + PaintTraceRecorder.VERSION);
+      long start = System.nanoTime();
+      long at = 0;
+      // every record but images, strings and polygons fits in 64 bytes
+      while ( fill(64) || buffer.hasRemaining() ) {
+	byte opcode = buffer.get();
+	at += DenChangeLog.getVarLong(buffer);
+	if ( realTime ) {
+	  long wait = start + at - System.nanoTime();
+	  if ( wait > 0 ) LockSupport.parkNanos(wait);
+	}
+	switch ( opcode ) {
+	case PaintTraceRecorder.SET_COLOR:
+	  int rgb = buffer.getInt();
+	  if ( color == null || color.getRGB() != rgb ) color = new Color(rgb);
+	  target.setColor(color);
+	  break;
+	case PaintTraceRecorder.SET_FONT:
+	  String name = strings[(int) DenChangeLog.getVarLong(buffer)];
+	  target.setFont(name,getInt(),getInt());
+	  break;
+	case PaintTraceRecorder.DRAW_STRING:
+	  String str = strings[(int) DenChangeLog.getVarLong(buffer)];
+	  target.drawString(str,getInt(),getInt());
+	  break;
+	case PaintTraceRecorder.DRAW_LINE:
+	  target.drawLine(getInt(),getInt(),getInt(),getInt());
+	  break;
+	case PaintTraceRecorder.DRAW_RECT:
+	  target.drawRect(getInt(),getInt(),getInt(),getInt());
+	  break;
+	case PaintTraceRecorder.FILL_RECT:
+	  target.fillRect(getInt(),getInt(),getInt(),getInt());
+	  break;
+	case PaintTraceRecorder.DRAW_OVAL:
+	  target.drawOval(getInt(),getInt(),getInt(),getInt());
+	  break;
+	case PaintTraceRecorder.FILL_OVAL:
+	  target.fillOval(getInt(),getInt(),getInt(),getInt());
+	  break;
+	case PaintTraceRecorder.DRAW_ROUND_RECT:
+	  target.drawRoundRect(getInt(),getInt(),getInt(),getInt(),getInt(),
+			       getInt());
+	  break;
+	case PaintTraceRecorder.FILL_ROUND_RECT:
+	  target.fillRoundRect(getInt(),getInt(),getInt(),getInt(),getInt(),
+			       getInt());
+	  break;
+	case PaintTraceRecorder.DRAW_ARC:
+	  target.drawArc(getInt(),getInt(),getInt(),getInt(),getInt(),getInt());
+	  break;
+	case PaintTraceRecorder.FILL_ARC:
+	  target.fillArc(getInt(),getInt(),getInt(),getInt(),getInt(),getInt());
+	  break;
+	case PaintTraceRecorder.DRAW_POLYGON:
+	case PaintTraceRecorder.FILL_POLYGON:
+	  int n = (int) DenChangeLog.getVarLong(buffer);
+	  if ( n > xs.length ) {
+	    xs = new int[n];
+	    ys = new int[n];
+	  }
+	  for ( int i = 0 ; i < n ; i++ ) {
+	    fill(10);
+	    xs[i] = getInt();
+	    ys[i] = getInt();
+	  }
+	  if ( opcode == PaintTraceRecorder.DRAW_POLYGON )
+	    target.drawPolygon(xs,ys,n);
+	  else target.fillPolygon(xs,ys,n);
+	  break;
+	case PaintTraceRecorder.DRAW_TRIANGLE:
+	  target.drawTriangle(getInt(),getInt(),getInt(),getInt(),getInt(),
+			      getInt());
+	  break;
+	case PaintTraceRecorder.FILL_TRIANGLE:
+	  target.fillTriangle(getInt(),getInt(),getInt(),getInt(),getInt(),
+			      getInt());
+	  break;
+	case PaintTraceRecorder.DRAW_IMAGE:
+	  target.drawImage(images.get((int) DenChangeLog.getVarLong(buffer)),
+			   getInt(),getInt());
+	  break;
+	case PaintTraceRecorder.CLEAR:
+	  target.clear();
+	  break;
+	case PaintTraceRecorder.SET_AUTO_REPAINT:
+	  target.setAutoRepaint(buffer.get() != 0);
+	  break;
+	case PaintTraceRecorder.PAINT:
+	  target.paint();
+	  break;
+	case PaintTraceRecorder.IMAGE:
+	  int id = (int) DenChangeLog.getVarLong(buffer);
+	  int width = (int) DenChangeLog.getVarLong(buffer);
+	  int height = (int) DenChangeLog.getVarLong(buffer);
+	  BufferedImage image =
+	    new BufferedImage(width,height,BufferedImage.TYPE_INT_ARGB);
+	  for ( int y = 0 ; y < height ; y++ ) {
+	    if ( !fill(width * 4) ) throw new IOException(file + " is cut short");
+	    for ( int x = 0 ; x < width ; x++ )
+	      image.setRGB(x,y,buffer.getInt());
+	  }
+	  while ( images.size() <= id )
+	    images.add(null);
+	  images.set(id,image);
+	  // defining an image is not a call
+	  calls--;
+	  break;
+	case PaintTraceRecorder.STRING:
+	  int stringId = (int) DenChangeLog.getVarLong(buffer);
+	  int length = (int) DenChangeLog.getVarLong(buffer);
+	  if ( !fill(length) ) throw new IOException(file + " is cut short");
+	  byte[] bytes = new byte[length];
+	  buffer.get(bytes);
+	  strings[stringId] = new String(bytes,StandardCharsets.UTF_8);
+	  calls--;
+	  break;
+	default:
+	  throw new IOException(file + " has an unknown call " + opcode);
+	}
+	calls++;
+      }
+    } catch ( BufferUnderflowException e ) {
+      throw new IOException(file + " is cut short",e);
+    } finally {
+      channel = null;
+    }
+    return calls;
+  }
+
+  /**
+   * Read until at least some bytes are buffered or the file ends
+   *
+   * @param size
+   *          number of bytes wanted
+   * @return whether that many bytes are buffered
+   */
+  private boolean fill ( int size ) throws IOException {
+    if ( buffer.remaining() >= size ) return true;
+    if ( buffer.capacity() < size ) {
+      ByteBuffer bigger =
+	ByteBuffer.allocate(Math.max(size,buffer.capacity() * 2));
+      bigger.put(buffer);
+      buffer = bigger;
+    }
+    else buffer.compact();
+    while ( buffer.position() < size && channel.read(buffer) >= 0 ) {}
+    buffer.flip();
+    return buffer.remaining() >= size;
+  }
+
+  /**
+   * Read a zigzag varint
+   */
+  private int getInt () {
+    int value = (int) DenChangeLog.getVarLong(buffer);
+    return (value >>> 1) ^ -(value & 1);
+  }
+
+  /**
+   * Play a trace from the command line and print how fast it played.
+   * Arguments are the trace file, then "window" to show it in a window or
+   * "null" to throw the drawing away (the default), then "original" to keep
+   * the recorded pace or "max" to play as fast as possible (the default).
+   */
+  public static void main ( String[] args ) throws IOException {
+    if ( args.length < 1 ) {
+      System.out.println("usage: PaintTracePlayer trace [window|null]"
+			 + " [original|max]");
+      return;
+    }
+    boolean window = args.length > 1 && args[1].equals("window");
+    boolean realTime = args.length > 2 && args[2].equals("original");
+    PaintBackend target;
+    if ( window ) {
+      Paint.buildWindow("Paint trace",100,100,800,600,Color.LIGHT_GRAY);
+      target = Paint.getBackend();
+    }
+    else target = new NullPaintBackend();
+    PaintTracePlayer player = new PaintTracePlayer(Paths.get(args[0]));
+    long start = System.nanoTime();
+    long calls = player.play(target,realTime);
+    double seconds = (System.nanoTime() - start) / 1e9;
+    System.out.printf("%d calls in %.3f s, %.0f calls per second%n",calls,
+		      seconds,calls / seconds);
+  }
+}
@@ -0,0 +1,456 @@
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+
+/**
+ * Paint backend that writes every call made to it into a binary trace file
+ * and passes it on to another backend. PaintTracePlayer reads the trace back
+ * and makes the same calls on any backend, at the original pace or as fast
+ * as it can, so real sessions can be replayed as rendering benchmarks and
+ * render bugs reproduced without the game. To record a game, wrap the
+ * current backend:
+ *
+ *   Paint.setBackend(new PaintTraceRecorder(file,Paint.getBackend()));
+ *
+ * The trace starts with MAGIC and VERSION (ints). Every call after that is
+ *
+ *   byte opcode, varint nanoseconds since the previous call, arguments
+ *
+ * where int arguments are zigzag varints, colors are ints and point arrays
+ * are a count and the coordinates. Strings and images go into tables: a
+ * string is written out as STRING (id, byte count, UTF-8) and an image as
+ * IMAGE (id, width, height, ARGB pixels) the first time they are used, and
+ * are then referred to by id, so HUD text and sprite tiles cost a few bytes
+ * per draw. The string table holds MAX_STRINGS strings and the image table
+ * MAX_IMAGES images; after that ids are reused, oldest first, so a source
+ * that draws a new image every frame is not kept alive by the recorder. Records are gathered in a direct buffer and written
+ * to the file channel when it fills. getFontMetrics is a query and is not
+ * recorded.
+ *
+ * If writing fails the recording stops, the error is kept for getLastError,
+ * and the calls are still passed on.
+ */
+public class PaintTraceRecorder implements PaintBackend {
+  /** First int of a trace file */
+  public static final int MAGIC = 0x50545243;
+
+  /** Format version, second int of a trace file */
+  public static final int VERSION = 1;
+
+  /** Opcodes of the calls */
+  static final byte SET_COLOR = 1, SET_FONT = 2, DRAW_STRING = 3,
+    DRAW_LINE = 4, DRAW_RECT = 5, FILL_RECT = 6, DRAW_OVAL = 7,
+    FILL_OVAL = 8, DRAW_ROUND_RECT = 9, FILL_ROUND_RECT = 10, DRAW_ARC = 11,
+    FILL_ARC = 12, DRAW_POLYGON = 13, FILL_POLYGON = 14, DRAW_TRIANGLE = 15,
+    FILL_TRIANGLE = 16, DRAW_IMAGE = 17, CLEAR = 18, SET_AUTO_REPAINT = 19,
+    PAINT = 20, IMAGE = 21, STRING = 22;
+
+  /** Strings in the string table */
+  static final int MAX_STRINGS = 4096;
+
+  /** Images in the image table */
+  static final int MAX_IMAGES = 256;
+
+  /** Size of the buffer records are gathered in */
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  /** Backend the calls are passed on to */
+  private final PaintBackend target;
+
+  /** File the trace is written to, null once closed */
+  private FileChannel channel;
+
+  /** Records not written yet */
+  private final ByteBuffer buffer;
+
+  /** Ids of the images in the image table */
+  private final IdentityHashMap<Image,Integer> images =
+    new IdentityHashMap<Image,Integer>();
+
+  /** Image of each id, to take reused ids out of images */
+  private final Image[] imageOfId = new Image[MAX_IMAGES];
+
+  /** Next image id to give out */
+  private int nextImage;
+
+  /** Ids of the strings in the string table */
+  private final HashMap<String,Integer> strings =
+    new HashMap<String,Integer>();
+
+  /** String of each id, to take reused ids out of strings */
+  private final String[] stringOfId = new String[MAX_STRINGS];
+
+  /** Next string id to give out */
+  private int nextString;
+
+  /** Time of the previous call */
+  private long lastNanos;
+
+  /** Calls recorded */
+  private long calls;
+
+  /** Why recording stopped, or null */
+  private volatile IOException lastError;
+
+  /**
+   * PaintTraceRecorder constructor. Creates or truncates the file.
+   *
+   * @param file
+   *          file to write the trace to
+   * @param target
+   *          backend to pass the calls on to
+   */
+  public PaintTraceRecorder ( Path file, PaintBackend target )
+    throws IOException {
+    this.target = target;
+    channel = FileChannel.open(file,StandardOpenOption.CREATE,
+			       StandardOpenOption.WRITE,
+			       StandardOpenOption.TRUNCATE_EXISTING);
+    buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    buffer.putInt(MAGIC);
+    buffer.putInt(VERSION);
+    lastNanos = System.nanoTime();
+  }
+
+  /**
+   * Get the number of calls recorded
+   *
+   * @return the number of calls written to the trace so far
+   */
+  public synchronized long getCallCount () {
+    return calls;
+  }
+
+  /**
+   * Get the error that stopped the recording
+   *
+   * @return the error, or null if there was none
+   */
+  public IOException getLastError () {
+    return lastError;
+  }
+
+  /**
+   * Write what is left and close the file. Calls after this are only
+   * passed on.
+   */
+  public synchronized void close () throws IOException {
+    if ( channel == null ) return;
+    try {
+      drain();
+    } finally {
+      channel.close();
+      channel = null;
+    }
+  }
+
+  public synchronized void setColor ( Color c ) {
+    if ( begin(SET_COLOR,4) ) buffer.putInt(c.getRGB() | 0xFF000000);
+    target.setColor(c);
+  }
+
+  public synchronized void setColor ( int r, int g, int b ) {
+    if ( begin(SET_COLOR,4) )
+      buffer.putInt(0xFF000000 | (r & 0xFF) << 16 | (g & 0xFF) << 8
+		    | (b & 0xFF));
+    target.setColor(r,g,b);
+  }
+
+  public synchronized void setFont ( String name, int style, int size ) {
+    int id = stringId(name);
+    if ( id >= 0 && begin(SET_FONT,20) ) {
+      DenChangeLog.putVarLong(buffer,id);
+      putInt(style);
+      putInt(size);
+    }
+    target.setFont(name,style,size);
+  }
+
+  public FontMetrics getFontMetrics () {
+    return target.getFontMetrics();
+  }
+
+  public synchronized void drawString ( String str, int x, int y ) {
+    int id = stringId(str);
+    if ( id >= 0 && begin(DRAW_STRING,20) ) {
+      DenChangeLog.putVarLong(buffer,id);
+      putInt(x);
+      putInt(y);
+    }
+    target.drawString(str,x,y);
+  }
+
+  public synchronized void drawLine ( int x1, int y1, int x2, int y2 ) {
+    if ( begin(DRAW_LINE,20) ) putInts(x1,y1,x2,y2);
+    target.drawLine(x1,y1,x2,y2);
+  }
+
+  public synchronized void drawRect ( int x, int y, int width, int height ) {
+    if ( begin(DRAW_RECT,20) ) putInts(x,y,width,height);
+    target.drawRect(x,y,width,height);
+  }
+
+  public synchronized void fillRect ( int x, int y, int width, int height ) {
+    if ( begin(FILL_RECT,20) ) putInts(x,y,width,height);
+    target.fillRect(x,y,width,height);
+  }
+
+  public synchronized void drawOval ( int x, int y, int width, int height ) {
+    if ( begin(DRAW_OVAL,20) ) putInts(x,y,width,height);
+    target.drawOval(x,y,width,height);
+  }
+
+  public synchronized void fillOval ( int x, int y, int width, int height ) {
+    if ( begin(FILL_OVAL,20) ) putInts(x,y,width,height);
+    target.fillOval(x,y,width,height);
+  }
+
+  public synchronized void drawRoundRect ( int x, int y, int width,
+					   int height, int xdiam, int ydiam ) {
+    if ( begin(DRAW_ROUND_RECT,30) ) {
+      putInts(x,y,width,height);
+      putInt(xdiam);
+      putInt(ydiam);
+    }
+    target.drawRoundRect(x,y,width,height,xdiam,ydiam);
+  }
+
+  public synchronized void fillRoundRect ( int x, int y, int width,
+					   int height, int xdiam, int ydiam ) {
+    if ( begin(FILL_ROUND_RECT,30) ) {
+      putInts(x,y,width,height);
+      putInt(xdiam);
+      putInt(ydiam);
+    }
+    target.fillRoundRect(x,y,width,height,xdiam,ydiam);
+  }
+
+  public synchronized void drawArc ( int x, int y, int width, int height,
+				     int startAngle, int arcAngle ) {
+    if ( begin(DRAW_ARC,30) ) {
+      putInts(x,y,width,height);
+      putInt(startAngle);
+      putInt(arcAngle);
+    }
+    target.drawArc(x,y,width,height,startAngle,arcAngle);
+  }
+
+  public synchronized void fillArc ( int x, int y, int width, int height,
+				     int startAngle, int arcAngle ) {
+    if ( begin(FILL_ARC,30) ) {
+      putInts(x,y,width,height);
+      putInt(startAngle);
+      putInt(arcAngle);
+    }
+    target.fillArc(x,y,width,height,startAngle,arcAngle);
+  }
+
+  public synchronized void drawPolygon ( int[] xPoints, int[] yPoints,
+					 int nPoints ) {
+    if ( begin(DRAW_POLYGON,5 + nPoints * 10) )
+      putPoints(xPoints,yPoints,nPoints);
+    target.drawPolygon(xPoints,yPoints,nPoints);
+  }
+
+  public synchronized void fillPolygon ( int[] xPoints, int[] yPoints,
+					 int nPoints ) {
+    if ( begin(FILL_POLYGON,5 + nPoints * 10) )
+      putPoints(xPoints,yPoints,nPoints);
+    target.fillPolygon(xPoints,yPoints,nPoints);
+  }
+
+  public synchronized void drawTriangle ( int x1, int y1, int x2, int y2,
+					  int x3, int y3 ) {
+    if ( begin(DRAW_TRIANGLE,30) ) {
+      putInts(x1,y1,x2,y2);
+      putInt(x3);
+      putInt(y3);
+    }
+    target.drawTriangle(x1,y1,x2,y2,x3,y3);
+  }
+
+  public synchronized void fillTriangle ( int x1, int y1, int x2, int y2,
+					  int x3, int y3 ) {
+    if ( begin(FILL_TRIANGLE,30) ) {
+      putInts(x1,y1,x2,y2);
+      putInt(x3);
+      putInt(y3);
+    }
+    target.fillTriangle(x1,y1,x2,y2,x3,y3);
+  }
+
+  public synchronized void drawImage ( Image image, int x, int y ) {
+    if ( channel != null ) {
+      Integer id = images.get(image);
+      if ( id == null ) {
+	id = nextImage;
+	writeImage(id,image);
+      }
+      if ( begin(DRAW_IMAGE,20) ) {
+	DenChangeLog.putVarLong(buffer,id);
+	putInt(x);
+	putInt(y);
+      }
+    }
+    target.drawImage(image,x,y);
+  }
+
+  public synchronized void clear () {
+    begin(CLEAR,0);
+    target.clear();
+  }
+
+  public synchronized boolean setAutoRepaint ( boolean auto ) {
+    if ( begin(SET_AUTO_REPAINT,1) ) buffer.put((byte) (auto ? 1 : 0));
+    return target.setAutoRepaint(auto);
+  }
+
+  public synchronized void paint () {
+    begin(PAINT,0);
+    target.paint();
+  }
+
+  /**
+   * Start a record, making room for it first
+   *
+   * @param opcode
+   *          opcode of the call
+   * @param size
+   *          most bytes the arguments can take
+   * @return whether the record should be written (false once stopped)
+   */
+  private boolean begin ( byte opcode, int size ) {
+    if ( channel == null ) return false;
+    if ( !room(1 + 10 + size) ) return false;
+    long now = System.nanoTime();
+    buffer.put(opcode);
+    DenChangeLog.putVarLong(buffer,Math.max(0,now - lastNanos));
+    lastNanos = now;
+    // image and string records fill the tables and are not calls
+    if ( opcode < IMAGE ) calls++;
+    return true;
+  }
+
+  /**
+   * Make room in the buffer by writing it out, stopping the recording if
+   * that fails or the record cannot fit at all
+   */
+  private boolean room ( int size ) {
+    if ( buffer.remaining() >= size ) return true;
+    try {
+      drain();
+      if ( buffer.remaining() < size )
+	throw new IOException("trace record of " + size + " bytes is too big");
+      return true;
+    } catch ( IOException e ) {
+      stop(e);
+      return false;
+    }
+  }
+
+  /**
+   * Write out the buffer
+   */
+  private void drain () throws IOException {
+    buffer.flip();
+    while ( buffer.hasRemaining() )
+      channel.write(buffer);
+    buffer.clear();
+  }
+
+  /**
+   * Stop recording after an error
+   */
+  private void stop ( IOException e ) {
+    lastError = e;
+    try {
+      channel.close();
+    } catch ( IOException ignored ) {}
+    channel = null;
+  }
+
+  /**
+   * Write an image record, streaming the pixels a row at a time
+   */
+  private void writeImage ( int id, Image image ) {
+    BufferedImage pixels;
+    if ( image instanceof BufferedImage ) pixels = (BufferedImage) image;
+    else {
+      // images that are not buffered are copied once, when first drawn
+      int width = Math.max(1,image.getWidth(null));
+      int height = Math.max(1,image.getHeight(null));
+      pixels = new BufferedImage(width,height,BufferedImage.TYPE_INT_ARGB);
+      Graphics g = pixels.getGraphics();
+      g.drawImage(image,0,0,null);
+      g.dispose();
+    }
+    int width = pixels.getWidth();
+    int height = pixels.getHeight();
+    if ( !begin(IMAGE,15) ) return;
+    DenChangeLog.putVarLong(buffer,id);
+    DenChangeLog.putVarLong(buffer,width);
+    DenChangeLog.putVarLong(buffer,height);
+    for ( int y = 0 ; y < height ; y++ ) {
+      if ( !room(width * 4) ) return;
+      for ( int x = 0 ; x < width ; x++ )
+	buffer.putInt(pixels.getRGB(x,y));
+    }
+    if ( imageOfId[id] != null ) images.remove(imageOfId[id]);
+    imageOfId[id] = image;
+    images.put(image,id);
+    nextImage = (id + 1) % MAX_IMAGES;
+  }
+
+  /**
+   * Write an int as a zigzag varint
+   */
+  private void putInt ( int value ) {
+    DenChangeLog.putVarLong(buffer,
+			    ((value << 1) ^ (value >> 31)) & 0xFFFFFFFFL);
+  }
+
+  private void putInts ( int a, int b, int c, int d ) {
+    putInt(a);
+    putInt(b);
+    putInt(c);
+    putInt(d);
+  }
+
+  private void putPoints ( int[] xPoints, int[] yPoints, int nPoints ) {
+    DenChangeLog.putVarLong(buffer,nPoints);
+    for ( int i = 0 ; i < nPoints ; i++ ) {
+      putInt(xPoints[i]);
+      putInt(yPoints[i]);
+    }
+  }
+
+  /**
+   * Get the id of a string in the string table, writing a STRING record to
+   * add it if it is not there
+   *
+   * @return the id, or -1 if recording has stopped
+   */
+  private int stringId ( String str ) {
+    if ( channel == null ) return -1;
+    Integer id = strings.get(str);
+    if ( id != null ) return id;
+    byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+    int next = nextString;
+    if ( !begin(STRING,15 + bytes.length) ) return -1;
+    DenChangeLog.putVarLong(buffer,next);
+    DenChangeLog.putVarLong(buffer,bytes.length);
+    buffer.put(bytes);
+    if ( stringOfId[next] != null ) strings.remove(stringOfId[next]);
+    stringOfId[next] = str;
+    strings.put(str,next);
+    nextString = (next + 1) % MAX_STRINGS;
+    return next;
+  }
+}
@@ -0,0 +1,211 @@
+// Making the path cache class
+import java.util.Arrays;
+
+/**
+ * Planned routes of the pathfinding snakes of a den, kept from tick to tick
+ * and thrown away only when a cell still ahead on a route changes: food
+ * eaten or dropped there, a rock appearing or the head of a snake arriving.
+ * A snake following a cached route moves in O(1) and searches again only
+ * when its route is gone.
+ *
+ * The cache listens to its den. Every cell still ahead on a route has an
+ * entry in a list kept for that cell, so a change visits just the routes
+ * through the changed cell, whatever the number of snakes, and a route step
+ * leaves the lists when the snake takes it. Entries live in flat arrays with
+ * a free list, so nothing is allocated once the arrays are big enough.
+ *
+ * A path cache belongs to one den (see Den.getPathCache) and is used on the
+ * thread that ticks it.
+ */
+public final class PathCache implements Den.Listener {
+    private final int columns_;// columns of the den, for cell numbers
+    private final int[] cellFirst_;// first entry per cell, -1 if none
+    private int[][] routeCells_;// cells of each route, in order
+    private int[][] routeEntries_;// entry of each step of each route
+    private int[] routeLength_;// steps in each route
+    private int[] routeNext_;// next step to take on each route
+    private int routes_;// routes handed out
+    private int[] entryRoute_;// route of each entry
+    private int[] entryPrevious_;// previous entry of the same cell, -1 if first
+    private int[] entryNext_;// next entry of the same cell, or next free entry
+    private int freeEntry_;// first free entry, -1 if none
+    private long invalidations_;// routes thrown away by changes
+
+    /**
+     * Constructor for path cache. It starts listening to the den.
+     * @param1 is the den
+     */
+    public PathCache(Den den) {
+        columns_=den.getColumns();
+        cellFirst_=new int[den.getRows()*columns_];
+        Arrays.fill(cellFirst_,-1);
+        routeCells_=new int[4][];
+        routeEntries_=new int[4][];
+        routeLength_=new int[4];
+        routeNext_=new int[4];
+        entryRoute_=new int[0];
+        entryPrevious_=new int[0];
+        entryNext_=new int[0];
+        freeEntry_=-1;
+        den.addListener(this);
+    }
+
+    /**
+     * hands out a new, empty route
+     * @return is the route number
+     */
+    public int newRoute() {
+        if(routes_==routeLength_.length){
+            int size=routes_*2;
+            routeCells_=Arrays.copyOf(routeCells_,size);
+            routeEntries_=Arrays.copyOf(routeEntries_,size);
+            routeLength_=Arrays.copyOf(routeLength_,size);
+            routeNext_=Arrays.copyOf(routeNext_,size);
+        }
+        routeCells_[routes_]=new int[16];
+        routeEntries_[routes_]=new int[16];
+        return routes_++;
+    }
+
+    /**
+     * replaces a route
+     * @param1 is the route number
+     * @param2 is the cells to go through, numbered row*columns+column, each
+     * next to the one before
+     * @param3 is the number of cells
+     */
+    public void setRoute(int route, int[] cells, int length) {
+        clear(route);
+        if(routeCells_[route].length<length){
+            routeCells_[route]=new int[Math.max(length,routeCells_[route].length*2)];
+            routeEntries_[route]=new int[routeCells_[route].length];
+        }
+        int[] steps=routeCells_[route];
+        int[] entries=routeEntries_[route];
+        for(int i=0;i<length;i++){
+            int cell=cells[i];
+            int entry=newEntry();
+            entryRoute_[entry]=route;
+            entryPrevious_[entry]=-1;
+            entryNext_[entry]=cellFirst_[cell];
+            if(cellFirst_[cell]>=0){
+                entryPrevious_[cellFirst_[cell]]=entry;
+            }
+            cellFirst_[cell]=entry;
+            steps[i]=cell;
+            entries[i]=entry;
+        }
+        routeLength_[route]=length;
+        routeNext_[route]=0;
+    }
+
+    /**
+     * takes the next step of a route
+     * @param1 is the route number
+     * @return is the cell to move to, or -1 if the route is used up or was
+     * thrown away
+     */
+    public int nextCell(int route) {
+        int step=routeNext_[route];
+        if(step>=routeLength_[route]){
+            return -1;
+        }
+        routeNext_[route]=step+1;
+        unlink(routeCells_[route][step],routeEntries_[route][step]);
+        return routeCells_[route][step];
+    }
+
+    /**
+     * getter for the steps left on a route
+     * @param1 is the route number
+     * @return is the number of steps, 0 if the route is used up or was
+     * thrown away
+     */
+    public int getStepsLeft(int route) {
+        return routeLength_[route]-routeNext_[route];
+    }
+
+    /**
+     * throws a route away
+     * @param1 is the route number
+     */
+    public void clear(int route) {
+        int[] steps=routeCells_[route];
+        int[] entries=routeEntries_[route];
+        for(int i=routeNext_[route];i<routeLength_[route];i++){
+            unlink(steps[i],entries[i]);
+        }
+        routeLength_[route]=0;
+        routeNext_[route]=0;
+    }
+
+    /**
+     * getter for the number of routes thrown away because a cell on them
+     * changed
+     * @return is the number of routes
+     */
+    public long getInvalidationCount() {
+        return invalidations_;
+    }
+
+    public void cellChanged(int row, int column, int content) {
+        invalidate(row*columns_+column);
+    }
+
+    public void snakeMoved(Snake snake, int row, int column) {
+        invalidate(row*columns_+column);
+    }
+
+    public void snakeDied(Snake snake) {
+        // a dead snake only frees cells, which leaves every route usable
+    }
+
+    /**
+     * throws away every route still going through a cell
+     */
+    private void invalidate(int cell) {
+        while(cellFirst_[cell]>=0){
+            clear(entryRoute_[cellFirst_[cell]]);
+            invalidations_++;
+        }
+    }
+
+    /**
+     * takes an entry off the list of its cell and frees it
+     */
+    private void unlink(int cell, int entry) {
+        int previous=entryPrevious_[entry];
+        int next=entryNext_[entry];
+        if(previous>=0){
+            entryNext_[previous]=next;
+        }
+        else{
+            cellFirst_[cell]=next;
+        }
+        if(next>=0){
+            entryPrevious_[next]=previous;
+        }
+        entryNext_[entry]=freeEntry_;
+        freeEntry_=entry;
+    }
+
+    /**
+     * gets a free entry, growing the entry arrays if there is none
+     */
+    private int newEntry() {
+        if(freeEntry_<0){
+            int old=entryRoute_.length;
+            int size=Math.max(64,old*2);
+            entryRoute_=Arrays.copyOf(entryRoute_,size);
+            entryPrevious_=Arrays.copyOf(entryPrevious_,size);
+            entryNext_=Arrays.copyOf(entryNext_,size);
+            for(int entry=size-1;entry>=old;entry--){
+                entryNext_[entry]=freeEntry_;
+                freeEntry_=entry;
+            }
+        }
+        int entry=freeEntry_;
+        freeEntry_=entryNext_[entry];
+        return entry;
+    }
+}
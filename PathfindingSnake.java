@@ -0,0 +1,183 @@
+// Making the pathfinding snake class
+import java.awt.Color;
+
+/**
+ * A snake that goes for the nearest food by a shortest path around rocks
+ * and snakes. The path is planned with a breadth first search and kept in
+ * the PathCache of the den, which throws it away when a cell on it changes,
+ * so most moves just take the next step of the cached path and the den is
+ * searched again only when the food is eaten or something gets in the way.
+ *
+ * A path whose first step leads into a region smaller than the snake is not
+ * taken; the snake then moves to the neighbor with the most room, going by
+ * Den.reachableRegions, as it does when no food can be reached. The search
+ * uses scratch arrays kept from move to move, so it allocates nothing after
+ * the first move in a den.
+ */
+public class PathfindingSnake extends Snake {
+    private Den den_;// den the route belongs to
+    private PathCache paths_;// path cache of that den
+    private int route_;// route number in the path cache
+    private int[] parent_;// cell each searched cell was reached from
+    private int[] seen_;// search number that reached each cell
+    private int[] queue_;// cells waiting to be searched, then the path
+    private int search_;// number of the current search
+    private final int[] sizes_;// scratch space for reachableRegions
+    private long searches_;// searches made
+
+    /**
+     * Constructor for pathfinding snake
+     * @param1 is the row of the head
+     * @param2 is the column of the head
+     * @param3 is the color
+     * @param4 is the length
+     */
+    public PathfindingSnake(int row, int column, Color color, int length) {
+        super(row,column,color,length);
+        sizes_=new int[4];
+    }
+
+    /**
+     * getter for the number of searches
+     * @return is the number of times the snake searched for a path
+     */
+    public long getSearchCount() {
+        return searches_;
+    }
+
+    /**
+     * takes the next step of the cached path, planning a new one if it is
+     * gone
+     * @param1 is the den
+     * @return is the direction
+     */
+    public int getNextMove(Den den) {
+        if(den_!=den){
+            den_=den;
+            paths_=den.getPathCache();
+            route_=paths_.newRoute();
+            int cells=den.getRows()*den.getColumns();
+            parent_=new int[cells];
+            seen_=new int[cells];
+            queue_=new int[cells];
+            search_=0;
+        }
+        int columns=den.getColumns();
+        int head=getHeadSegment().getRow()*columns+getHeadSegment().getColumn();
+        int next=paths_.nextCell(route_);
+        if(next<0){
+            next=plan(den,head);
+        }
+        if(next<0){
+            return makeRoom(den);
+        }
+        return directionTo(head,next,columns);
+    }
+
+    /**
+     * searches for the nearest food and caches the path to it
+     * @param1 is the den
+     * @param2 is the head cell
+     * @return is the first cell of the path, or -1 if no food can be reached
+     * safely
+     */
+    private int plan(Den den, int head) {
+        searches_++;
+        int columns=den.getColumns();
+        int rows=den.getRows();
+        search_++;
+        // cells with a snake on them count as searched already
+        for(int s=0;s<den.getSnakeCount();s++){
+            Snake snake=den.getSnake(s);
+            if(snake.isAlive()==false){
+                continue;
+            }
+            for(int i=0;i<snake.getLength();i++){
+                SnakeSegment segment=snake.getIthSegment(i);
+                seen_[segment.getRow()*columns+segment.getColumn()]=search_;
+            }
+        }
+        int first=0;
+        int last=0;
+        queue_[last++]=head;
+        seen_[head]=search_;
+        int food=-1;
+        while(first<last && food<0){
+            int cell=queue_[first++];
+            int row=cell/columns;
+            int column=cell%columns;
+            for(int direction=Paint.UP;direction<=Paint.RIGHT;direction++){
+                int nRow=row+(direction==Paint.UP ? -1 : direction==Paint.DOWN ? 1 : 0);
+                int nColumn=column+(direction==Paint.LEFT ? -1 : direction==Paint.RIGHT ? 1 : 0);
+                if(nRow<0 || nRow>=rows || nColumn<0 || nColumn>=columns){
+                    continue;
+                }
+                int n=nRow*columns+nColumn;
+                int content=den.getContent(nRow,nColumn);
+                if(seen_[n]==search_ || content==2){
+                    continue;
+                }
+                seen_[n]=search_;
+                parent_[n]=cell;
+                if(content==3){
+                    food=n;
+                    break;
+                }
+                queue_[last++]=n;
+            }
+        }
+        if(food<0){
+            return -1;
+        }
+        // walk back from the food, laying the path out at the end of queue_
+        int length=0;
+        for(int cell=food;cell!=head;cell=parent_[cell]){
+            length++;
+        }
+        int start=queue_.length-length;
+        int at=queue_.length;
+        for(int cell=food;cell!=head;cell=parent_[cell]){
+            queue_[--at]=cell;
+        }
+        den.reachableRegions(this,sizes_);
+        if(sizes_[directionTo(head,queue_[start],columns)]<length_){
+            return -1;
+        }
+        System.arraycopy(queue_,start,queue_,0,length);
+        paths_.setRoute(route_,queue_,length);
+        return paths_.nextCell(route_);
+    }
+
+    /**
+     * moves to the neighbor with the most room
+     * @param1 is the den
+     * @return is the direction
+     */
+    private int makeRoom(Den den) {
+        den.reachableRegions(this,sizes_);
+        int best=Paint.UP;
+        for(int direction=Paint.UP;direction<=Paint.RIGHT;direction++){
+            if(sizes_[direction]>sizes_[best]){
+                best=direction;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * direction of a neighboring cell
+     */
+    private static int directionTo(int from, int to, int columns) {
+        int step=to-from;
+        if(step==-columns){
+            return Paint.UP;
+        }
+        else if(step==columns){
+            return Paint.DOWN;
+        }
+        else if(step==-1){
+            return Paint.LEFT;
+        }
+        return Paint.RIGHT;
+    }
+}
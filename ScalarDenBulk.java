@@ -0,0 +1,54 @@
+// Making the scalar den bulk class
+/**
+ * DenBulk one cell at a time, for when the vector API is not there.
+ * VectorDenBulk extends it for the ends of rows too short for a vector and
+ * for scan, whose distances depend on the cell before.
+ */
+public class ScalarDenBulk implements DenBulk {
+    public int count(int[] cells, int from, int to, int value) {
+        int count=0;
+        for(int i=from;i<to;i++){
+            if(cells[i]==value){
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public int indexOf(int[] cells, int from, int to, int value) {
+        for(int i=from;i<to;i++){
+            if(cells[i]==value){
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public boolean relax(int[] distances, int at, int from, int[] cells, int cellsAt, int length) {
+        boolean changed=false;
+        for(int i=0;i<length;i++){
+            if(distances[from+i]+1<distances[at+i] && cells[cellsAt+i]!=2){
+                distances[at+i]=distances[from+i]+1;
+                changed=true;
+            }
+        }
+        return changed;
+    }
+
+    public boolean scan(int[] distances, int at, int[] cells, int cellsAt, int length) {
+        boolean changed=false;
+        for(int i=1;i<length;i++){
+            if(distances[at+i-1]+1<distances[at+i] && cells[cellsAt+i]!=2){
+                distances[at+i]=distances[at+i-1]+1;
+                changed=true;
+            }
+        }
+        for(int i=length-2;i>=0;i--){
+            if(distances[at+i+1]+1<distances[at+i] && cells[cellsAt+i]!=2){
+                distances[at+i]=distances[at+i+1]+1;
+                changed=true;
+            }
+        }
+        return changed;
+    }
+}
@@ -0,0 +1,549 @@
+// Making the simulation cluster class
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Plays batches of games on worker JVMs, so a batch is not limited to one
+ * heap and a garbage collection in one worker holds up only the games on
+ * it. A job is a den seed and a lineup of snake class names; its result is
+ * how long each snake lived and how much it ate. Snakes are made by name in
+ * the workers through their (row, column, color, length) constructor, as
+ * SnakeTournament makes them, so the Snake API is unchanged.
+ *
+ * The coordinator listens on a loopback port and starts each worker with
+ * ProcessBuilder, with the same java and class path as itself. Each worker
+ * connects, sends MAGIC and its process id, and is then driven by a thread
+ * of the coordinator, which sends it a batch of jobs and reads the results
+ * back one game at a time. All numbers are big endian:
+ *
+ *   batch:  int jobs (0 to stop), int maxTicks, then per job int index,
+ *           long seed, int snakes and a UTF class name per snake
+ *   result: int index, int snakes, then per snake int ticks and int food
+ *
+ * A worker that dies, closes its connection or takes over
+ * GAME_TIMEOUT_MILLIS for one game is killed. The games of its batch that
+ * have no result yet go back to the front of the queue, and a new worker
+ * takes its place. A job cut short MAX_ATTEMPTS times fails the run.
+ *
+ * Results come back in job order whichever worker played them, and the
+ * games are the same as in SnakeTournament, so they do not depend on the
+ * number of workers. SimulationWorker connects to a host and port, so a
+ * worker started by hand on another machine could serve a coordinator that
+ * listens on a network address.
+ */
+public class SimulationCluster {
+    /** Most jobs sent to a worker at a time */
+    public static final int BATCH_SIZE = 16;
+
+    /** Times a job may be cut short by its worker before the run fails */
+    public static final int MAX_ATTEMPTS = 3;
+
+    /** Longest a worker may take over one game */
+    public static final int GAME_TIMEOUT_MILLIS = 60000;
+
+    /** Longest a new worker may take to connect */
+    public static final int CONNECT_TIMEOUT_MILLIS = 30000;
+
+    /** First int a worker sends */
+    static final int MAGIC = 0x534E4357;
+
+    /** Factories of the snake classes used so far, by name */
+    private static final Map<String,SnakeTournament.Factory> FACTORIES=new ConcurrentHashMap<String,SnakeTournament.Factory>();
+
+    /**
+     * One game to play
+     */
+    public static final class Job {
+        public final long seed;// seed of the den
+        public final String[] lineup;// snake class of each snake, first to move first
+
+        public Job(long seed, String... lineup) {
+            if(lineup.length<1){
+                throw new IllegalArgumentException("a job needs at least one snake");
+            }
+            this.seed=seed;
+            this.lineup=lineup.clone();
+        }
+    }
+
+    /**
+     * How one game went
+     */
+    public static final class Result {
+        public final long seed;// seed of the den
+        public final String[] lineup;// snake class of each snake
+        public final int[] ticks;// ticks each snake came through alive, maxTicks if it did not die
+        public final int[] food;// food each snake ate
+
+        Result(long seed, String[] lineup, int[] ticks, int[] food) {
+            this.seed=seed;
+            this.lineup=lineup;
+            this.ticks=ticks;
+            this.food=food;
+        }
+    }
+
+    /**
+     * A worker and its connection
+     */
+    private static final class Connection {
+        final Process process;// the worker, null if it was not started here
+        final Socket socket;// connection to it
+        final DataInputStream in;// results
+        final DataOutputStream out;// batches
+
+        Connection(Process process, Socket socket) throws IOException {
+            this.process=process;
+            this.socket=socket;
+            in=new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            out=new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        }
+    }
+
+    /**
+     * The jobs of one run, handed out to the worker threads in batches
+     */
+    private static final class Run {
+        final List<Job> jobs;// jobs of the run
+        final int maxTicks;// longest a game may last
+        final int batchSize;// jobs per batch
+        final Result[] results;// result of each job, null until it is in
+        final int[] attempts;// times each job was cut short
+        final ArrayDeque<Integer> queue;// jobs not handed out
+        int remaining;// jobs without a result
+        String failure;// why the run failed, null if it did not
+
+        Run(List<Job> jobs, int maxTicks, int batchSize) {
+            this.jobs=jobs;
+            this.maxTicks=maxTicks;
+            this.batchSize=batchSize;
+            results=new Result[jobs.size()];
+            attempts=new int[jobs.size()];
+            queue=new ArrayDeque<Integer>();
+            for(int i=0;i<jobs.size();i++){
+                queue.add(i);
+            }
+            remaining=jobs.size();
+        }
+
+        /** waits for jobs to hand out, null once every job is done or the run failed */
+        synchronized int[] take() throws InterruptedException {
+            while(queue.isEmpty() && remaining>0 && failure==null){
+                wait();
+            }
+            if(remaining==0 || failure!=null){
+                return null;
+            }
+            int[] batch=new int[Math.min(batchSize,queue.size())];
+            for(int i=0;i<batch.length;i++){
+                batch[i]=queue.poll();
+            }
+            return batch;
+        }
+
+        synchronized void finish(int index, Result result) {
+            if(results[index]==null){
+                results[index]=result;
+                remaining--;
+                if(remaining==0){
+                    notifyAll();
+                }
+            }
+        }
+
+        /**
+         * puts the jobs of a batch without a result back at the front of the
+         * queue. Workers play a batch in order, so only the first of them was
+         * being played when the worker was lost.
+         */
+        synchronized void retry(int[] batch, boolean sent) {
+            boolean playing=sent;
+            for(int index : batch){
+                if(results[index]==null && playing){
+                    playing=false;
+                    attempts[index]++;
+                    if(attempts[index]>=MAX_ATTEMPTS && failure==null){
+                        failure="job "+index+" (seed "+jobs.get(index).seed+") was cut short "+attempts[index]+" times";
+                    }
+                }
+            }
+            for(int i=batch.length-1;i>=0;i--){
+                if(results[batch[i]]==null){
+                    queue.addFirst(batch[i]);
+                }
+            }
+            notifyAll();
+        }
+
+        synchronized void fail(String why) {
+            if(failure==null){
+                failure=why;
+            }
+            notifyAll();
+        }
+    }
+
+    private final int workers_;// number of workers
+    private final List<String> jvmOptions_;// options the workers are started with
+    private final ExecutorService pool_;// one thread per worker, driving it
+    private final Connection[] connections_;// worker of each thread, null if none yet
+    private final Map<Long,Process> launched_;// workers started and not connected, by process id
+    private final AtomicLong crashes_;// workers lost
+    private ServerSocket server_;// accepts workers, null until the first run
+
+    /**
+     * Constructor for simulation cluster. No worker is started until the
+     * first run.
+     * @param1 is the number of worker JVMs
+     * @param2 is the options to start them with, for example -Xmx256m
+     */
+    public SimulationCluster(int workers, String... jvmOptions) {
+        if(workers<1){
+            throw new IllegalArgumentException("a cluster needs at least one worker");
+        }
+        workers_=workers;
+        jvmOptions_=Arrays.asList(jvmOptions.clone());
+        pool_=Executors.newFixedThreadPool(workers,r -> {
+            Thread thread=new Thread(r,"simulation-cluster");
+            thread.setDaemon(true);
+            return thread;
+        });
+        connections_=new Connection[workers];
+        launched_=new ConcurrentHashMap<Long,Process>();
+        crashes_=new AtomicLong();
+    }
+
+    /**
+     * plays jobs on the workers, starting any that are not running
+     * @param1 is the jobs
+     * @param2 is the longest a game may last in ticks
+     * @return is the result of each job, in the order of the jobs
+     */
+    public synchronized List<Result> run(List<Job> jobs, int maxTicks) throws IOException, InterruptedException {
+        if(maxTicks<1){
+            throw new IllegalArgumentException("ticks must be positive");
+        }
+        for(Job job : jobs){
+            for(String name : job.lineup){
+                factory(name);
+            }
+        }
+        if(server_==null){
+            server_=new ServerSocket(0,workers_,InetAddress.getLoopbackAddress());
+            server_.setSoTimeout(CONNECT_TIMEOUT_MILLIS);
+        }
+        int batchSize=(int)Math.max(1,Math.min(BATCH_SIZE,jobs.size()/(workers_*4L)));
+        Run run=new Run(new ArrayList<Job>(jobs),maxTicks,batchSize);
+        List<Callable<Void>> drivers=new ArrayList<Callable<Void>>();
+        for(int w=0;w<workers_;w++){
+            int slot=w;
+            drivers.add(() -> drive(slot,run));
+        }
+        for(Future<Void> driver : pool_.invokeAll(drivers)){
+            try{
+                driver.get();
+            } catch(ExecutionException e){
+                if(e.getCause() instanceof IOException){
+                    throw (IOException)e.getCause();
+                }
+                throw new RuntimeException("simulation worker failed",e.getCause());
+            }
+        }
+        if(run.failure!=null){
+            throw new IOException(run.failure);
+        }
+        return Arrays.asList(run.results);
+    }
+
+    /**
+     * getter for the number of workers lost
+     * @return is the number of workers that died or timed out and were replaced
+     */
+    public long getCrashCount() {
+        return crashes_.get();
+    }
+
+    /**
+     * stops the workers and the threads driving them
+     */
+    public synchronized void shutdown() {
+        for(int w=0;w<workers_;w++){
+            Connection connection=connections_[w];
+            if(connection==null){
+                continue;
+            }
+            try{
+                connection.out.writeInt(0);
+                connection.out.flush();
+                connection.socket.close();
+                if(connection.process!=null && connection.process.waitFor(2,TimeUnit.SECONDS)==false){
+                    connection.process.destroyForcibly();
+                }
+            } catch(IOException | InterruptedException e){
+                close(connection);
+            }
+            connections_[w]=null;
+        }
+        pool_.shutdownNow();
+        try{
+            if(server_!=null){
+                server_.close();
+            }
+        } catch(IOException ignored){
+        }
+    }
+
+    /**
+     * hands batches to one worker until the run is over, replacing the
+     * worker when it is lost
+     * @param1 is the slot of the worker
+     * @param2 is the run
+     */
+    private Void drive(int slot, Run run) throws IOException, InterruptedException {
+        for(int[] batch=run.take();batch!=null;batch=run.take()){
+            if(connections_[slot]==null){
+                try{
+                    connections_[slot]=connect();
+                } catch(IOException e){
+                    run.retry(batch,false);
+                    run.fail("cannot start a worker: "+e.getMessage());
+                    throw e;
+                }
+            }
+            Connection connection=connections_[slot];
+            try{
+                DataOutputStream out=connection.out;
+                out.writeInt(batch.length);
+                out.writeInt(run.maxTicks);
+                for(int index : batch){
+                    Job job=run.jobs.get(index);
+                    out.writeInt(index);
+                    out.writeLong(job.seed);
+                    out.writeInt(job.lineup.length);
+                    for(String name : job.lineup){
+                        out.writeUTF(name);
+                    }
+                }
+                out.flush();
+                DataInputStream in=connection.in;
+                for(int i=0;i<batch.length;i++){
+                    int index=in.readInt();
+                    int snakes=in.readInt();
+                    Job job=run.jobs.get(index);
+                    int[] ticks=new int[snakes];
+                    int[] food=new int[snakes];
+                    for(int s=0;s<snakes;s++){
+                        ticks[s]=in.readInt();
+                        food[s]=in.readInt();
+                    }
+                    run.finish(index,new Result(job.seed,job.lineup,ticks,food));
+                }
+            } catch(IOException e){
+                crashes_.incrementAndGet();
+                close(connection);
+                connections_[slot]=null;
+                run.retry(batch,true);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * starts a worker and waits for a worker to connect. With several
+     * starting at once the one that connects may be another thread's, which
+     * is as good.
+     */
+    private Connection connect() throws IOException {
+        List<String> command=new ArrayList<String>();
+        command.add(Paths.get(System.getProperty("java.home"),"bin","java").toString());
+        command.addAll(jvmOptions_);
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add("SimulationWorker");
+        command.add(server_.getInetAddress().getHostAddress());
+        command.add(Integer.toString(server_.getLocalPort()));
+        Process process=new ProcessBuilder(command).inheritIO().start();
+        launched_.put(process.pid(),process);
+        Socket socket;
+        try{
+            socket=server_.accept();
+        } catch(SocketTimeoutException e){
+            launched_.remove(process.pid());
+            process.destroyForcibly();
+            throw new IOException("no worker connected in "+CONNECT_TIMEOUT_MILLIS+" ms",e);
+        }
+        try{
+            socket.setTcpNoDelay(true);
+            socket.setSoTimeout(GAME_TIMEOUT_MILLIS);
+            DataInputStream in=new DataInputStream(socket.getInputStream());
+            if(in.readInt()!=MAGIC){
+                throw new IOException("a connection to the cluster was not a worker");
+            }
+            return new Connection(launched_.remove(in.readLong()),socket);
+        } catch(IOException e){
+            socket.close();
+            throw e;
+        }
+    }
+
+    /**
+     * closes a connection and kills its worker
+     */
+    private static void close(Connection connection) {
+        try{
+            connection.socket.close();
+        } catch(IOException ignored){
+        }
+        if(connection.process!=null){
+            connection.process.destroyForcibly();
+        }
+    }
+
+    /**
+     * plays one job in this JVM, with SnakeTournament's game routine so the
+     * games are the same as in a tournament
+     * @param1 is the job
+     * @param2 is the longest the game may last
+     * @return is the result
+     */
+    static Result play(Job job, int maxTicks) {
+        int snakes=job.lineup.length;
+        SnakeTournament.Factory[] lineup=new SnakeTournament.Factory[snakes];
+        for(int s=0;s<snakes;s++){
+            lineup[s]=factory(job.lineup[s]);
+        }
+        int[] ticks=new int[snakes];
+        int[] food=new int[snakes];
+        SnakeTournament.play(job.seed,lineup,maxTicks,ticks,food);
+        return new Result(job.seed,job.lineup,ticks,food);
+    }
+
+    /**
+     * getter for the factory of a snake class
+     * @param1 is the class name
+     * @return is the factory
+     */
+    static SnakeTournament.Factory factory(String name) {
+        SnakeTournament.Factory factory=FACTORIES.get(name);
+        if(factory==null){
+            Class<? extends Snake> type;
+            try{
+                type=Class.forName(name).asSubclass(Snake.class);
+            } catch(ClassNotFoundException | ClassCastException e){
+                throw new IllegalArgumentException(name+" is not a snake class",e);
+            }
+            factory=SnakeTournament.factoryFor(type);
+            if(factory==null){
+                throw new IllegalArgumentException(name+" has no (row, column, color, length) constructor");
+            }
+            FACTORIES.put(name,factory);
+        }
+        return factory;
+    }
+
+    /**
+     * writes the games, wins, draws, survival and food of each snake class
+     * over a set of results. The snake that lived longest wins, and between
+     * snakes that lived as long the one that ate most; a tie for first is a
+     * draw for the tied snakes.
+     * @param1 is the results
+     * @param2 is where to write them
+     */
+    public static void writeSummary(List<Result> results, PrintWriter out) {
+        // games, wins, draws, ticks, food per snake class
+        Map<String,double[]> totals=new TreeMap<String,double[]>();
+        for(Result result : results){
+            int best=0;
+            int tied=0;
+            for(int s=0;s<result.lineup.length;s++){
+                int order=Integer.compare(result.ticks[s],result.ticks[best]);
+                if(order==0){
+                    order=Integer.compare(result.food[s],result.food[best]);
+                }
+                if(order>0){
+                    best=s;
+                    tied=1;
+                }
+                else if(order==0){
+                    tied++;
+                }
+            }
+            for(int s=0;s<result.lineup.length;s++){
+                double[] total=totals.computeIfAbsent(result.lineup[s],name -> new double[5]);
+                boolean first=result.ticks[s]==result.ticks[best] && result.food[s]==result.food[best];
+                total[0]++;
+                total[1]+=first && tied==1 ? 1 : 0;
+                total[2]+=first && tied>1 ? 1 : 0;
+                total[3]+=result.ticks[s];
+                total[4]+=result.food[s];
+            }
+        }
+        out.printf("%-20s  %7s  %7s  %7s  %9s  %6s%n","snake","games","wins","draws","survival","food");
+        for(Map.Entry<String,double[]> entry : totals.entrySet()){
+            double[] total=entry.getValue();
+            out.printf("%-20s  %7d  %7d  %7d  %9.1f  %6.2f%n",entry.getKey(),(long)total[0],(long)total[1],(long)total[2],
+                       total[3]/total[0],total[4]/total[0]);
+        }
+        out.flush();
+    }
+
+    /**
+     * plays a batch on a cluster from the command line. Arguments are the
+     * workers, the dens, the longest game and the seed, all optional,
+     * followed by the snake classes of the lineup. Each den is played once
+     * per rotation of the lineup, so every snake moves first once.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int workers=args.length>0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        int dens=args.length>1 ? Integer.parseInt(args[1]) : 200;
+        int maxTicks=args.length>2 ? Integer.parseInt(args[2]) : 2000;
+        long seed=args.length>3 ? Long.parseLong(args[3]) : System.nanoTime();
+        String[] lineup=args.length>4 ? Arrays.copyOfRange(args,4,args.length) : new String[]{"WeightedSnake","PathfindingSnake"};
+        Random random=new Random(seed);
+        List<Job> jobs=new ArrayList<Job>();
+        for(int d=0;d<dens;d++){
+            long denSeed=random.nextLong();
+            for(int r=0;r<lineup.length;r++){
+                String[] rotated=new String[lineup.length];
+                for(int s=0;s<lineup.length;s++){
+                    rotated[s]=lineup[(r+s)%lineup.length];
+                }
+                jobs.add(new Job(denSeed,rotated));
+            }
+        }
+        SimulationCluster cluster=new SimulationCluster(workers);
+        try{
+            long start=System.nanoTime();
+            List<Result> results=cluster.run(jobs,maxTicks);
+            System.out.printf("played %d games on %d workers in %.1f s, %d workers lost%n",jobs.size(),workers,
+                              (System.nanoTime()-start)/1e9,cluster.getCrashCount());
+            writeSummary(results,new PrintWriter(System.out));
+        } finally{
+            cluster.shutdown();
+        }
+    }
+}
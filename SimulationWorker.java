@@ -0,0 +1,65 @@
+// Making the simulation worker class
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.Socket;
+
+/**
+ * A worker JVM of a SimulationCluster. It connects to the coordinator,
+ * plays the jobs of each batch it is sent one after the other, and sends
+ * each result back as soon as the game is over, so a worker that dies loses
+ * only the games it had not finished. It exits when it is told to stop or
+ * the coordinator goes away.
+ */
+public class SimulationWorker {
+    /** SimulationWorker only has a main method */
+    private SimulationWorker() {}
+
+    /**
+     * connects to a coordinator and plays what it sends. Arguments are the
+     * host and the port of the coordinator.
+     */
+    public static void main(String[] args) throws IOException {
+        if(args.length<2){
+            System.err.println("usage: SimulationWorker host port");
+            System.exit(2);
+        }
+        try(Socket socket=new Socket(args[0],Integer.parseInt(args[1]))){
+            socket.setTcpNoDelay(true);
+            DataInputStream in=new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out=new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            out.writeInt(SimulationCluster.MAGIC);
+            out.writeLong(ProcessHandle.current().pid());
+            out.flush();
+            for(int count=in.readInt();count>0;count=in.readInt()){
+                int maxTicks=in.readInt();
+                int[] indexes=new int[count];
+                SimulationCluster.Job[] jobs=new SimulationCluster.Job[count];
+                for(int j=0;j<count;j++){
+                    indexes[j]=in.readInt();
+                    long seed=in.readLong();
+                    String[] lineup=new String[in.readInt()];
+                    for(int s=0;s<lineup.length;s++){
+                        lineup[s]=in.readUTF();
+                    }
+                    jobs[j]=new SimulationCluster.Job(seed,lineup);
+                }
+                for(int j=0;j<count;j++){
+                    SimulationCluster.Result result=SimulationCluster.play(jobs[j],maxTicks);
+                    out.writeInt(indexes[j]);
+                    out.writeInt(result.ticks.length);
+                    for(int s=0;s<result.ticks.length;s++){
+                        out.writeInt(result.ticks[s]);
+                        out.writeInt(result.food[s]);
+                    }
+                    out.flush();
+                }
+            }
+        } catch(EOFException e){
+            // the coordinator went away
+        }
+    }
+}
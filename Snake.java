@@ -10,6 +10,7 @@ public abstract class Snake {
     protected Color color_;
     protected boolean alive_;
     protected int length_;
+    protected long hash_; // zobrist hash of the segments and the head
     
   /**
      * Constructor for snake 
@@ -25,6 +26,11 @@ public abstract class Snake {
         color_=color;
         alive_=true;
         length_=length;
+        segment_=new SnakeSegment[length];
+        for(int i=0;i<length;i++){ // the body trails below the head
+            segment_[i]=new SnakeSegment(row+i,column);
+        }
+        rehash();
     }
 
     
@@ -38,7 +44,7 @@ public abstract class Snake {
         color_=color;
         length_=segment.length;
         alive_=true;
-        
+        rehash();
         
     }
     /**
@@ -50,7 +56,8 @@ public abstract class Snake {
     }
 
    /**
-     * getter for the head segment
+     * getter for the head segment. Segments are reused as the snake moves,
+     * so read the row and column now rather than keeping the segment.
      * @return is the head segment
      */
 
@@ -63,7 +70,7 @@ public abstract class Snake {
      * @return is the tail segment
      */
     public SnakeSegment getTailSegment() {
-        return (segment_.length) -1;
+        return segment_[length_-1];
     }
     
     /**
@@ -96,54 +103,170 @@ public abstract class Snake {
      * @return is true if it can
      */
     public boolean canMove(Den den, int direction){
-        int row;
-        int column;
-        if(direction== Paint.LEFT){
-            row=getHeadSegment().getRow();
-            column=getHeadSegment().getColumn()-1;
+        int row=nextRow(direction);
+        int column=nextColumn(direction);
+        return(den.withinBound(row,column)==true && den.getContent(row,column)!=2 && den.isSnakeAt(row,column)==false);
+        
+    }
+    
+    /**
+     * row the head would move to
+     * @param1 is the direction
+     * @return is the row
+     */
+    protected int nextRow(int direction){
+        if(direction== Paint.UP){
+            return getHeadSegment().getRow()-1;
         }
-        else if(directiom== Paint.RIGHT){
-            row=getHeadSegment().getRow();
-            column=getHeadSegment().getColumn()+1;
+        else if(direction== Paint.DOWN){
+            return getHeadSegment().getRow()+1;
         }
-        else if(directiom== Paint.TOP){
-            row=getHeadSegment().getColumn()+1;
-            column=getHeadSegment().getColumn();
+        return getHeadSegment().getRow();
+    }
+    
+    /**
+     * column the head would move to
+     * @param1 is the direction
+     * @return is the column
+     */
+    protected int nextColumn(int direction){
+        if(direction== Paint.LEFT){
+            return getHeadSegment().getColumn()-1;
         }
-        else if(direction== Paint.BOTTOM){
-            row=getHeadSegment().getRow()-1;
-            column=getHeadSegment().getColumn();
+        else if(direction== Paint.RIGHT){
+            return getHeadSegment().getColumn()+1;
         }
-        return(den.getContent(row,column)!=2 && den.withinBound(row,column)==true);
-        
+        return getHeadSegment().getColumn();
     }
     
-    
      /**
-     * moves the snake
+     * moves the snake one cell in the direction from getNextMove. The snake
+     * grows when it reaches food and dies when it cannot move.
      * @param1 is the den
-     * @param2 is the direction
      */
     public void moveSnake(Den den){
-       if(canMove(den,direction)==true){
-        int direc=getNextMove(den);
-        if(direction== Paint.LEFT){
-            column=getHeadSegment().getColumn()-1;
+        if(alive_==false){
+            return;
+        }
+        moveSnake(den,getNextMove(den));
+    }
+    
+    /**
+     * moves the snake one cell in a direction already decided on. The snake
+     * grows when it reaches food and dies when it cannot move.
+     * @param1 is the den
+     * @param2 is the direction
+     */
+    public void moveSnake(Den den, int direction){
+        if(alive_==false){
+            return;
         }
-        else if(directiom== Paint.RIGHT){
-            column=getHeadSegment().getColumn()+1;
+        if(canMove(den,direction)==false){
+            alive_=false;
+            den.snakeDied(this);
+            return;
         }
-        else if(directiom== Paint.TOP){
-            row=getHeadSegment().getColumn()-1;
+        int row=nextRow(direction);
+        int column=nextColumn(direction);
+        int headRow=getHeadSegment().getRow();
+        int headColumn=getHeadSegment().getColumn();
+        boolean grew=den.getContent(row,column)==3;
+        if(grew){
+            grow();
+            den.eatFood(row,column);
         }
-        else if(direction== Paint.BOTTOM){
-            row=getHeadSegment().getRow()+1;
-          
+        else{
+            SnakeSegment tail=getTailSegment();
+            hash_^=Zobrist.key(tail.getRow(),tail.getColumn(),Zobrist.BODY);
         }
-       }
-        
-     
-        
+        // the last segment, the old tail or a spare after growing, becomes
+        // the new head so moving allocates nothing
+        SnakeSegment moved=segment_[length_-1];
+        for(int i=length_-1;i>0;i--){
+            segment_[i]=segment_[i-1];
+        }
+        moved.moveTo(row,column);
+        segment_[0]=moved;
+        hash_^=Zobrist.key(headRow,headColumn,Zobrist.HEAD)
+            ^Zobrist.key(row,column,Zobrist.BODY)^Zobrist.key(row,column,Zobrist.HEAD);
+        den.snakeMoved(this,direction,grew);
+    }
+    
+    /**
+     * adds one segment to the snake. The new segment is filled in by the
+     * next move. When the array is full it doubles and the new half is
+     * filled with spare segments, so only every doubling allocates.
+     */
+    protected void grow(){
+        if(length_==segment_.length){
+            SnakeSegment[] bigger=new SnakeSegment[segment_.length*2];
+            System.arraycopy(segment_,0,bigger,0,length_);
+            for(int i=length_;i<bigger.length;i++){
+                bigger[i]=new SnakeSegment(0,0);
+            }
+            segment_=bigger;
+        }
+        else if(segment_[length_]==null){
+            segment_[length_]=new SnakeSegment(0,0);
+        }
+        length_++;
+    }
+    
+    /**
+     * makes room for the snake to grow to a length, filling the room with
+     * spare segments, so growing up to it allocates nothing
+     * @param1 is the length
+     */
+    void reserve(int length){
+        if(length>segment_.length){
+            SnakeSegment[] bigger=new SnakeSegment[length];
+            System.arraycopy(segment_,0,bigger,0,segment_.length);
+            segment_=bigger;
+        }
+        for(int i=length_;i<segment_.length;i++){
+            if(segment_[i]==null){
+                segment_[i]=new SnakeSegment(0,0);
+            }
+        }
+    }
+    
+    /**
+     * getter for the zobrist hash of the snake, kept up to date as it moves
+     * @return is the hash of its segments and its head
+     */
+    public long getHash() {
+        return hash_;
+    }
+    
+    /**
+     * works out the hash from the segments
+     */
+    protected void rehash(){
+        hash_=0;
+        for(int i=0;i<length_;i++){
+            hash_^=Zobrist.key(segment_[i].getRow(),segment_[i].getColumn(),Zobrist.BODY);
+        }
+        if(length_>0){
+            hash_^=Zobrist.key(segment_[0].getRow(),segment_[0].getColumn(),Zobrist.HEAD);
+        }
+    }
+    
+    /**
+     * getter for the color
+     * @return is the color
+     */
+    public Color getColor() {
+        return color_;
+    }
+    
+    /**
+     * paints the snake
+     */
+    public void paint(){
+        for(int i=length_-1;i>=0;i--){
+            segment_[i].paintSegment(color_);
+        }
+        getHeadSegment().highlightSegment();
     }
  
 }
\ No newline at end of file
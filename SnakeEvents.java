@@ -0,0 +1,110 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Java Flight Recorder events for the stages a frame goes through: den ticks,
+ * snake decisions, painting and waiting for keyboard input. Start a recording
+ * with
+ *
+ *     java -XX:StartFlightRecording=filename=den.jfr,settings=profile SnakeDen
+ *
+ * and open it in JDK Mission Control; the events are under "Snake Den". When
+ * a session stutters the recording shows whether the time went to a snake
+ * thinking, to painting or to waiting for a key.
+ *
+ * Events are only created when a recording has them enabled, checked through
+ * isEnabled on their types below, so ticks stay allocation free and cost a
+ * field read per event when nothing is recording.
+ */
+public final class SnakeEvents {
+    static final EventType TICK=EventType.getEventType(Tick.class);
+    static final EventType DECISION=EventType.getEventType(Decision.class);
+    static final EventType DEN_PAINT=EventType.getEventType(DenPaint.class);
+    static final EventType PAINT_PASS=EventType.getEventType(PaintPass.class);
+    static final EventType INPUT_WAIT=EventType.getEventType(InputWait.class);
+
+    private SnakeEvents() {
+    }
+
+    /**
+     * one Den.tick: every living snake deciding and moving once
+     */
+    @Name("snakeden.Tick")
+    @Label("Den Tick")
+    @Category({"Snake Den","Simulation"})
+    @Description("Every living snake in a den deciding on a move and moving once")
+    public static final class Tick extends Event {
+        @Label("Tick")
+        long tick;// number of the tick in its den
+
+        @Label("Snakes")
+        @Description("Snakes in the den, living or dead")
+        int snakes;
+    }
+
+    /**
+     * one Snake.getNextMove call
+     */
+    @Name("snakeden.Decision")
+    @Label("Snake Decision")
+    @Category({"Snake Den","Simulation"})
+    @Description("A snake deciding on its next move")
+    public static final class Decision extends Event {
+        @Label("Tick")
+        long tick;// number of the tick in its den
+
+        @Label("Snake")
+        @Description("Index of the snake in its den, in the order snakes were added")
+        int snake;
+
+        @Label("Snake Class")
+        String snakeClass;// class of the snake, which is its strategy
+
+        @Label("Direction")
+        @Description("Move chosen: 0 up, 1 down, 2 left, 3 right")
+        int direction;
+    }
+
+    /**
+     * one Den.paint: the cells of a den handed to the paint backend
+     */
+    @Name("snakeden.DenPaint")
+    @Label("Den Paint")
+    @Category({"Snake Den","Rendering"})
+    @Description("A den issuing the draw calls for its cells")
+    public static final class DenPaint extends Event {
+        @Label("Cells")
+        int cells;// cells painted
+    }
+
+    /**
+     * one pass of a PaintCanvas drawing its objects, onto the window or an
+     * offscreen image
+     */
+    @Name("snakeden.PaintPass")
+    @Label("Paint Pass")
+    @Category({"Snake Den","Rendering"})
+    @Description("A canvas drawing all its objects onto a graphics object")
+    public static final class PaintPass extends Event {
+        @Label("Objects")
+        @Description("Draw objects drawn in the pass")
+        int objects;
+    }
+
+    /**
+     * one blocking wait for keyboard input
+     */
+    @Name("snakeden.InputWait")
+    @Label("Input Wait")
+    @Category({"Snake Den","Input"})
+    @Description("A thread blocked waiting for an arrow, a character or a line of text")
+    public static final class InputWait extends Event {
+        @Label("Input")
+        @Description("What was waited for: arrow, char or text")
+        String input;
+    }
+}
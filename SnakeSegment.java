@@ -34,24 +34,55 @@ public class SnakeSegment  {
         return column_;
     }
 
+    /**
+     * moves the segment to another cell. Snakes reuse their segments this
+     * way instead of making new ones on every move.
+     * @param1 is the row
+     * @param2 is the column
+     */
+    public void moveTo(int row, int column) {
+        row_=row;
+        column_=column;
+    }
+
     /**
      * paints the segment
      * @param1 is  color
      */
 
     public void paintSegment(Color color) {
-        Paint.setColor(color);
-        Paint.fillRoundRect(row_*20,column_*20,20,20,14,14);
-      
+        paintSegment(row_,column_,color);
     }
 
     /**
      * highlights the segment
      */
     public void highlightSegment() {
-        Paint.setColor(Color.WHITE);
-       Paint.drawRoundRect(row_*20,column_*20,20,20,14,14);
-      
+        highlightSegment(row_,column_);
+    }
+
+    /**
+     * paints a segment at a cell with a tile from the default sprite atlas,
+     * for painting a snake that is not there as segments
+     * @param1 is the row
+     * @param2 is the column
+     * @param3 is the color
+     */
+    public static void paintSegment(int row, int column, Color color) {
+        SpriteAtlas atlas=SpriteAtlas.getDefault();
+        int size=atlas.getCellSize();
+        Paint.drawImage(atlas.tile(SpriteAtlas.SEGMENT,color),row*size,column*size);
+    }
+
+    /**
+     * highlights a segment at a cell
+     * @param1 is the row
+     * @param2 is the column
+     */
+    public static void highlightSegment(int row, int column) {
+        SpriteAtlas atlas=SpriteAtlas.getDefault();
+        int size=atlas.getCellSize();
+        Paint.drawImage(atlas.tile(SpriteAtlas.HIGHLIGHT,Color.WHITE),row*size,column*size);
     }
    
         
@@ -0,0 +1,492 @@
+// Making the snake tournament class
+import java.awt.Color;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
+import java.net.URISyntaxException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Plays every pair of snake implementations against each other on a shared
+ * set of seeded dens and ranks them. Each pairing plays two games per den, so
+ * each snake moves first once. A game goes on until both snakes are dead or
+ * for maxTicks, so the survival of a snake is the ticks it came through
+ * alive, whether or not the other was still there; the snake that lived
+ * longer wins, and between snakes that lived as long the one that ate more.
+ * Otherwise the game is a draw.
+ *
+ * Games run in parallel on a thread pool, one task per pairing and block of
+ * dens, the blocks small enough to give every thread several tasks. Every
+ * task keeps its own tallies and they are added up once all the tasks are
+ * done, so the games never share any state.
+ *
+ * Entrants are added by hand or found by discover(), which loads every
+ * concrete Snake class next to this one that has a public (row, column,
+ * color, length) constructor.
+ */
+public class SnakeTournament {
+    /** Length both snakes start each game with */
+    public static final int START_LENGTH = 3;
+
+    /** Colors of the snakes of a game, in the order they move */
+    private static final Color[] COLORS = {Color.RED,Color.BLUE,Color.GREEN,Color.ORANGE,Color.MAGENTA,Color.CYAN};
+
+    /** Most dens played by one task */
+    public static final int MAX_SEEDS_PER_TASK = 32;
+
+    /** Normal quantile of the 95% confidence intervals */
+    public static final double Z = 1.96;
+
+    /**
+     * Makes a fresh snake of one implementation for each game
+     */
+    public interface Factory {
+        Snake create(int row, int column, Color color, int length);
+    }
+
+    /**
+     * Running totals of the games one snake played
+     */
+    private static final class Tally {
+        long games;// games played
+        long wins;// games won
+        long draws;// games drawn
+        double ticks;// ticks survived
+        double ticksSquared;// squares of the ticks survived
+        double food;// food eaten
+        double foodSquared;// squares of the food eaten
+
+        void add(Tally other) {
+            games+=other.games;
+            wins+=other.wins;
+            draws+=other.draws;
+            ticks+=other.ticks;
+            ticksSquared+=other.ticksSquared;
+            food+=other.food;
+            foodSquared+=other.foodSquared;
+        }
+
+        void record(int ticks, int food, int outcome) {
+            games++;
+            if(outcome>0){
+                wins++;
+            }
+            else if(outcome==0){
+                draws++;
+            }
+            this.ticks+=ticks;
+            ticksSquared+=(double)ticks*ticks;
+            this.food+=food;
+            foodSquared+=(double)food*food;
+        }
+
+        /** wins plus half the draws, over the games */
+        double score() {
+            return games==0 ? 0 : (wins+0.5*draws)/games;
+        }
+    }
+
+    private final int maxTicks_;// longest a game may last
+    private final ExecutorService pool_;// runs the games
+    private final int threads_;// threads in the pool
+    private final List<String> names_;// name of each entrant
+    private final List<Factory> factories_;// factory of each entrant
+    private Tally[] tallies_;// totals per entrant from the last run
+    private Tally[][] pairings_;// totals per entrant and opponent from the last run
+
+    /**
+     * Constructor for snake tournament
+     * @param1 is the longest a game may last in ticks
+     * @param2 is the number of threads to play games on
+     */
+    public SnakeTournament(int maxTicks, int threads) {
+        if(maxTicks<1 || threads<1){
+            throw new IllegalArgumentException("ticks and threads must be positive");
+        }
+        maxTicks_=maxTicks;
+        threads_=threads;
+        pool_=Executors.newFixedThreadPool(threads,r -> {
+            Thread thread=new Thread(r,"snake-tournament");
+            thread.setDaemon(true);
+            return thread;
+        });
+        names_=new ArrayList<String>();
+        factories_=new ArrayList<Factory>();
+    }
+
+    /**
+     * adds an entrant
+     * @param1 is the name shown in the results
+     * @param2 is the factory making its snakes
+     */
+    public void addEntrant(String name, Factory factory) {
+        names_.add(name);
+        factories_.add(factory);
+    }
+
+    /**
+     * getter for the number of entrants
+     * @return is the number of entrants
+     */
+    public int getEntrantCount() {
+        return names_.size();
+    }
+
+    /**
+     * adds every concrete Snake subclass found in the directory this class
+     * was loaded from, in name order
+     * @return is the number of entrants added
+     */
+    public int discover() throws IOException {
+        Path directory;
+        try{
+            directory=Paths.get(SnakeTournament.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        } catch(URISyntaxException e){
+            throw new IOException("cannot locate the snake classes",e);
+        }
+        if(Files.isDirectory(directory)==false){
+            return 0;
+        }
+        List<String> classNames=new ArrayList<String>();
+        try(DirectoryStream<Path> files=Files.newDirectoryStream(directory,"*.class")){
+            for(Path file : files){
+                String name=file.getFileName().toString();
+                name=name.substring(0,name.length()-".class".length());
+                // nested and anonymous classes are not entrants
+                if(name.indexOf('$')<0){
+                    classNames.add(name);
+                }
+            }
+        }
+        classNames.sort(null);
+        int added=0;
+        for(String name : classNames){
+            Class<?> type;
+            try{
+                type=Class.forName(name,false,SnakeTournament.class.getClassLoader());
+            } catch(ClassNotFoundException | LinkageError e){
+                continue;
+            }
+            if(type==Snake.class || Snake.class.isAssignableFrom(type)==false || Modifier.isAbstract(type.getModifiers())){
+                continue;
+            }
+            Factory factory=factoryFor(type.asSubclass(Snake.class));
+            if(factory!=null){
+                addEntrant(name,factory);
+                added++;
+            }
+        }
+        return added;
+    }
+
+    /**
+     * makes a factory that calls a snake class's (row, column, color,
+     * length) constructor
+     * @param1 is the class
+     * @return is the factory, or null if the class has no such public constructor
+     */
+    public static Factory factoryFor(Class<? extends Snake> type) {
+        Constructor<? extends Snake> constructor;
+        try{
+            constructor=type.getConstructor(int.class,int.class,Color.class,int.class);
+        } catch(NoSuchMethodException e){
+            return null;
+        }
+        return (row,column,color,length) -> {
+            try{
+                return constructor.newInstance(row,column,color,length);
+            } catch(InvocationTargetException e){
+                throw new IllegalStateException("cannot make a "+type.getName(),e.getCause());
+            } catch(ReflectiveOperationException e){
+                throw new IllegalStateException("cannot make a "+type.getName(),e);
+            }
+        };
+    }
+
+    /**
+     * plays every pairing of entrants twice on each den
+     * @param1 is the seeds of the dens
+     */
+    public void run(long[] seeds) throws InterruptedException {
+        int entrants=names_.size();
+        if(entrants<2){
+            throw new IllegalStateException("a tournament needs at least two entrants");
+        }
+        long pairings=(long)entrants*(entrants-1)/2;
+        int block=(int)Math.max(1,Math.min(MAX_SEEDS_PER_TASK,pairings*seeds.length/(threads_*8L)));
+        List<Callable<Tally[]>> tasks=new ArrayList<Callable<Tally[]>>();
+        List<int[]> tasked=new ArrayList<int[]>();
+        for(int a=0;a<entrants;a++){
+            for(int b=a+1;b<entrants;b++){
+                for(int from=0;from<seeds.length;from+=block){
+                    final Factory first=factories_.get(a);
+                    final Factory second=factories_.get(b);
+                    final int start=from;
+                    final int end=Math.min(seeds.length,from+block);
+                    tasks.add(() -> {
+                        Tally[] tallies={new Tally(),new Tally()};
+                        for(int s=start;s<end;s++){
+                            play(first,second,seeds[s],maxTicks_,tallies[0],tallies[1]);
+                            play(second,first,seeds[s],maxTicks_,tallies[1],tallies[0]);
+                        }
+                        return tallies;
+                    });
+                    tasked.add(new int[]{a,b});
+                }
+            }
+        }
+        List<Future<Tally[]>> results=pool_.invokeAll(tasks);
+        tallies_=new Tally[entrants];
+        pairings_=new Tally[entrants][entrants];
+        for(int e=0;e<entrants;e++){
+            tallies_[e]=new Tally();
+            for(int o=0;o<entrants;o++){
+                pairings_[e][o]=new Tally();
+            }
+        }
+        for(int t=0;t<tasks.size();t++){
+            Tally[] tallies;
+            try{
+                tallies=results.get(t).get();
+            } catch(ExecutionException e){
+                throw new RuntimeException("tournament game failed",e.getCause());
+            }
+            int a=tasked.get(t)[0];
+            int b=tasked.get(t)[1];
+            tallies_[a].add(tallies[0]);
+            tallies_[b].add(tallies[1]);
+            pairings_[a][b].add(tallies[0]);
+            pairings_[b][a].add(tallies[1]);
+        }
+    }
+
+    /**
+     * plays one game between two snakes and records it for both
+     * @param1 is the snake that moves first
+     * @param2 is the snake that moves second
+     * @param3 is the den seed
+     * @param4 is the longest the game may last
+     * @param5 is the tally of the first snake
+     * @param6 is the tally of the second snake
+     */
+    static void play(Factory first, Factory second, long seed, int maxTicks, Tally firstTally, Tally secondTally) {
+        int[] ticks=new int[2];
+        int[] food=new int[2];
+        play(seed,new Factory[]{first,second},maxTicks,ticks,food);
+        int outcome=Integer.compare(ticks[0],ticks[1]);
+        if(outcome==0){
+            outcome=Integer.compare(food[0],food[1]);
+        }
+        firstTally.record(ticks[0],food[0],outcome);
+        secondTally.record(ticks[1],food[1],-outcome);
+    }
+
+    /**
+     * plays one game, as every game of a tournament and of a
+     * SimulationCluster is played: the snakes are spread down the middle
+     * column of the den in the order they move, and the game goes on until
+     * every snake is dead or for maxTicks. A snake's ticks are the ticks it
+     * came through alive, so one that dies on the last tick has one fewer
+     * than one that survives.
+     * @param1 is the den seed
+     * @param2 is the factory of each snake, in the order they move
+     * @param3 is the longest the game may last
+     * @param4 is filled with the ticks each snake came through alive
+     * @param5 is filled with the food each snake ate
+     */
+    static void play(long seed, Factory[] lineup, int maxTicks, int[] ticks, int[] food) {
+        Den den=new Den(DenLayout.forSeed(30,20,seed));
+        int snakes=lineup.length;
+        Snake[] placed=new Snake[snakes];
+        for(int s=0;s<snakes;s++){
+            placed[s]=place(den,lineup[s],den.getRows()*(2*s+1)/(2*snakes),COLORS[s%COLORS.length]);
+            ticks[s]=0;
+        }
+        int alive=snakes;
+        for(int tick=1;tick<=maxTicks && alive>0;tick++){
+            den.tick();
+            alive=0;
+            for(int s=0;s<snakes;s++){
+                if(placed[s].isAlive()){
+                    ticks[s]=tick;
+                    alive++;
+                }
+            }
+        }
+        for(int s=0;s<snakes;s++){
+            food[s]=placed[s].getLength()-START_LENGTH;
+        }
+    }
+
+    /**
+     * makes a snake and adds it to the den on the first free cells found
+     * from the given row in the middle column
+     */
+    static Snake place(Den den, Factory factory, int row, Color color) {
+        int column=den.getColumns()/2;
+        for(int r=0;r<den.getRows();r++){
+            for(int c=0;c<den.getColumns();c++){
+                int tryRow=(row+r)%den.getRows();
+                int tryColumn=(column+c)%den.getColumns();
+                if(den.canPlaceSnake(tryRow,tryColumn,START_LENGTH)){
+                    Snake snake=factory.create(tryRow,tryColumn,color,START_LENGTH);
+                    den.addSnakeInDen(snake);
+                    return snake;
+                }
+            }
+        }
+        throw new IllegalStateException("no room for a snake in the den");
+    }
+
+    /**
+     * writes the standings of the last run, best score first, and the score
+     * of every entrant against every other
+     * @param1 is where to write them
+     */
+    public void writeTable(PrintWriter out) {
+        if(tallies_==null){
+            throw new IllegalStateException("the tournament has not been run");
+        }
+        int entrants=names_.size();
+        Integer[] order=new Integer[entrants];
+        int width=5;
+        for(int e=0;e<entrants;e++){
+            order[e]=e;
+            width=Math.max(width,names_.get(e).length());
+        }
+        Arrays.sort(order,(a,b) -> Double.compare(tallies_[b].score(),tallies_[a].score()));
+        String name="%-"+width+"s";
+        out.printf("%4s  "+name+"  %7s  %6s  %-13s  %7s  %7s  %7s  %-17s  %s%n",
+                   "rank","snake","games","score","95% interval","wins","draws","losses","survival","food eaten");
+        for(int rank=0;rank<entrants;rank++){
+            Tally tally=tallies_[order[rank]];
+            double[] interval=wilson(tally.wins+0.5*tally.draws,tally.games);
+            out.printf("%4d  "+name+"  %7d  %6.3f  %5.3f - %5.3f  %7d  %7d  %7d  %7.1f +- %-6.1f  %.2f +- %.2f%n",
+                       rank+1,names_.get(order[rank]),tally.games,tally.score(),interval[0],interval[1],
+                       tally.wins,tally.draws,tally.games-tally.wins-tally.draws,
+                       tally.ticks/tally.games,margin(tally.ticks,tally.ticksSquared,tally.games),
+                       tally.food/tally.games,margin(tally.food,tally.foodSquared,tally.games));
+        }
+        out.println();
+        out.printf(name,"score");
+        for(int o=0;o<entrants;o++){
+            out.printf("  "+name,names_.get(order[o]));
+        }
+        out.println();
+        for(int e=0;e<entrants;e++){
+            out.printf(name,names_.get(order[e]));
+            for(int o=0;o<entrants;o++){
+                Tally tally=pairings_[order[e]][order[o]];
+                out.printf("  "+name,tally.games==0 ? "-" : String.format("%.3f",tally.score()));
+            }
+            out.println();
+        }
+        out.flush();
+    }
+
+    /**
+     * stops the threads games are played on
+     */
+    public void shutdown() {
+        pool_.shutdownNow();
+    }
+
+    /**
+     * computes the Wilson score interval of a proportion
+     * @param1 is the successes
+     * @param2 is the trials
+     * @return is the low and high ends of the interval
+     */
+    static double[] wilson(double successes, long trials) {
+        if(trials==0){
+            return new double[]{0,1};
+        }
+        double p=successes/trials;
+        double z2=Z*Z;
+        double denominator=1+z2/trials;
+        double center=(p+z2/(2*trials))/denominator;
+        double half=Z*Math.sqrt(p*(1-p)/trials+z2/(4.0*trials*trials))/denominator;
+        return new double[]{Math.max(0,center-half),Math.min(1,center+half)};
+    }
+
+    /**
+     * computes the half width of the normal confidence interval of a mean
+     * @param1 is the sum of the samples
+     * @param2 is the sum of their squares
+     * @param3 is the number of samples
+     */
+    static double margin(double sum, double sumSquared, long count) {
+        if(count<2){
+            return 0;
+        }
+        double mean=sum/count;
+        double variance=Math.max(0,(sumSquared-count*mean*mean)/(count-1));
+        return Z*Math.sqrt(variance/count);
+    }
+
+    /**
+     * runs a tournament from the command line. Arguments are dens per
+     * pairing, longest game, seed and the file to write the results to (or
+     * - for the console), all optional, followed by the snake classes to
+     * play. Without classes every snake class found is played.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int dens=args.length>0 ? Integer.parseInt(args[0]) : 500;
+        int maxTicks=args.length>1 ? Integer.parseInt(args[1]) : 2000;
+        long seed=args.length>2 ? Long.parseLong(args[2]) : System.nanoTime();
+        String output=args.length>3 ? args[3] : "-";
+        SnakeTournament tournament=new SnakeTournament(maxTicks,Runtime.getRuntime().availableProcessors());
+        try{
+            for(int i=4;i<args.length;i++){
+                Class<? extends Snake> type;
+                try{
+                    type=Class.forName(args[i]).asSubclass(Snake.class);
+                } catch(ClassNotFoundException | ClassCastException e){
+                    throw new IllegalArgumentException(args[i]+" is not a snake class",e);
+                }
+                Factory factory=factoryFor(type);
+                if(factory==null){
+                    throw new IllegalArgumentException(args[i]+" has no (row, column, color, length) constructor");
+                }
+                tournament.addEntrant(args[i],factory);
+            }
+            if(tournament.getEntrantCount()==0){
+                tournament.discover();
+            }
+            Random random=new Random(seed);
+            long[] seeds=new long[dens];
+            for(int i=0;i<dens;i++){
+                seeds[i]=random.nextLong();
+            }
+            long start=System.nanoTime();
+            tournament.run(seeds);
+            System.out.printf("played %d games in %.1f s%n",
+                              (long)tournament.getEntrantCount()*(tournament.getEntrantCount()-1)*dens,(System.nanoTime()-start)/1e9);
+            PrintWriter out=output.equals("-") ? new PrintWriter(System.out) : new PrintWriter(new FileWriter(output));
+            try{
+                tournament.writeTable(out);
+            } finally{
+                if(output.equals("-")==false){
+                    out.close();
+                }
+            }
+        } finally{
+            tournament.shutdown();
+        }
+    }
+}
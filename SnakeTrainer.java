@@ -0,0 +1,247 @@
+// Making the snake trainer class
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Evolves the weights of WeightedSnake. Every generation each member of the
+ * population plays one headless game on each of a set of seeded dens, the
+ * games of different members running in parallel on a thread pool. The best
+ * members are kept and the rest of the next generation is bred from them by
+ * crossover and mutation.
+ *
+ * The population is one flat array of populationSize*FEATURES weights, with a
+ * second array of the same size that the next generation is bred into.
+ */
+public class SnakeTrainer {
+    /** Length a snake starts each training game with */
+    public static final int START_LENGTH = SnakeTournament.START_LENGTH;
+
+    /** Fitness given for each piece of food eaten */
+    public static final double FOOD_FITNESS = 100;
+
+    private final int populationSize_;// members per generation
+    private final int seedsPerGeneration_;// games each member plays
+    private final int maxTicks_;// longest a game may last
+    private final int elite_;// best members copied unchanged
+    private final ExecutorService pool_;// runs the games
+    private final Random random_;// drives seeds, selection and mutation
+    private double[] population_;// weights of the current generation
+    private double[] next_;// weights of the generation being bred
+    private final double[] fitness_;// fitness of each member
+    private final long[] seeds_;// den seeds of the current generation
+    private int generation_;// generations evaluated so far
+    private int best_;// index of the fittest member
+    private double mutationRate_;// chance each weight is mutated
+    private double mutationSize_;// standard deviation of a mutation
+
+    /**
+     * Constructor for snake trainer. The population starts with random weights.
+     * @param1 is the number of members per generation
+     * @param2 is the number of dens each member plays per generation
+     * @param3 is the longest a game may last in ticks
+     * @param4 is the number of threads to play games on
+     * @param5 is the seed for everything random in training
+     */
+    public SnakeTrainer(int populationSize, int seedsPerGeneration, int maxTicks, int threads, long seed) {
+        if(populationSize<2 || seedsPerGeneration<1 || maxTicks<1 || threads<1){
+            throw new IllegalArgumentException("population must be at least 2 and the other sizes positive");
+        }
+        populationSize_=populationSize;
+        seedsPerGeneration_=seedsPerGeneration;
+        maxTicks_=maxTicks;
+        elite_=Math.max(1,populationSize/10);
+        pool_=Executors.newFixedThreadPool(threads,r -> {
+            Thread thread=new Thread(r,"snake-trainer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        random_=new Random(seed);
+        population_=new double[populationSize*WeightedSnake.FEATURES];
+        next_=new double[population_.length];
+        fitness_=new double[populationSize];
+        seeds_=new long[seedsPerGeneration];
+        mutationRate_=0.2;
+        mutationSize_=0.5;
+        for(int i=0;i<population_.length;i++){
+            population_[i]=random_.nextGaussian();
+        }
+    }
+
+    /**
+     * setter for the mutation
+     * @param1 is the chance each weight is mutated
+     * @param2 is the standard deviation of a mutation
+     */
+    public void setMutation(double rate, double size) {
+        mutationRate_=rate;
+        mutationSize_=size;
+    }
+
+    /**
+     * plays every member on a fresh set of dens, records the fittest and
+     * breeds the next generation
+     * @return is the fitness of the fittest member
+     */
+    public double evolve() throws InterruptedException {
+        for(int i=0;i<seeds_.length;i++){
+            seeds_[i]=random_.nextLong();
+        }
+        evaluate();
+        generation_++;
+        breed();
+        return fitness_[best_];
+    }
+
+    /**
+     * getter for the generation
+     * @return is the number of generations evaluated
+     */
+    public int getGeneration() {
+        return generation_;
+    }
+
+    /**
+     * getter for the best weights
+     * @return is a copy of the weights of the fittest member of the last
+     * generation evaluated
+     */
+    public double[] getBestWeights() {
+        double[] weights=new double[WeightedSnake.FEATURES];
+        System.arraycopy(population_,best_*WeightedSnake.FEATURES,weights,0,weights.length);
+        return weights;
+    }
+
+    /**
+     * stops the threads games are played on
+     */
+    public void shutdown() {
+        pool_.shutdownNow();
+    }
+
+    /**
+     * plays one game with the given weights and scores it
+     * @param1 is the weights
+     * @param2 is the den seed
+     * @param3 is the longest the game may last
+     * @return is the food eaten times FOOD_FITNESS plus the ticks survived
+     */
+    public static double play(double[] weights, long seed, int maxTicks) {
+        Den den=new Den(DenLayout.forSeed(30,20,seed));
+        Snake snake=SnakeTournament.place(den,(row,column,color,length) -> new WeightedSnake(row,column,color,length,weights),
+                                          den.getRows()/2,Color.RED);
+        int ticks=0;
+        while(ticks<maxTicks && snake.isAlive()){
+            den.tick();
+            ticks++;
+        }
+        return (snake.getLength()-START_LENGTH)*FOOD_FITNESS+ticks;
+    }
+
+    /**
+     * plays every member on every seed, one task per member
+     */
+    private void evaluate() throws InterruptedException {
+        List<Callable<Double>> tasks=new ArrayList<Callable<Double>>(populationSize_);
+        for(int m=0;m<populationSize_;m++){
+            final double[] weights=new double[WeightedSnake.FEATURES];
+            System.arraycopy(population_,m*WeightedSnake.FEATURES,weights,0,weights.length);
+            tasks.add(() -> {
+                double total=0;
+                for(int s=0;s<seeds_.length;s++){
+                    total+=play(weights,seeds_[s],maxTicks_);
+                }
+                return total/seeds_.length;
+            });
+        }
+        List<Future<Double>> results=pool_.invokeAll(tasks);
+        best_=0;
+        for(int m=0;m<populationSize_;m++){
+            try{
+                fitness_[m]=results.get(m).get();
+            } catch(ExecutionException e){
+                throw new RuntimeException("training game failed",e.getCause());
+            }
+            if(fitness_[m]>fitness_[best_]){
+                best_=m;
+            }
+        }
+    }
+
+    /**
+     * fills next_ with the elite and their children and swaps it in
+     */
+    private void breed() {
+        int features=WeightedSnake.FEATURES;
+        Integer[] order=new Integer[populationSize_];
+        for(int m=0;m<populationSize_;m++){
+            order[m]=m;
+        }
+        Arrays.sort(order,(a,b) -> Double.compare(fitness_[b],fitness_[a]));
+        for(int m=0;m<elite_;m++){
+            System.arraycopy(population_,order[m]*features,next_,m*features,features);
+        }
+        for(int m=elite_;m<populationSize_;m++){
+            int mother=select();
+            int father=select();
+            for(int i=0;i<features;i++){
+                double weight=random_.nextBoolean() ? population_[mother*features+i] : population_[father*features+i];
+                if(random_.nextDouble()<mutationRate_){
+                    weight+=random_.nextGaussian()*mutationSize_;
+                }
+                next_[m*features+i]=weight;
+            }
+        }
+        double[] swap=population_;
+        population_=next_;
+        next_=swap;
+        // the elite keep their places at the front, so the best is member 0
+        fitness_[0]=fitness_[order[0]];
+        best_=0;
+    }
+
+    /**
+     * picks the fittest of three random members
+     * @return is the index of the member
+     */
+    private int select() {
+        int best=random_.nextInt(populationSize_);
+        for(int i=0;i<2;i++){
+            int other=random_.nextInt(populationSize_);
+            if(fitness_[other]>fitness_[best]){
+                best=other;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * trains from the command line and prints the best weights of each
+     * generation. Arguments are generations, population size, dens per
+     * generation, longest game and seed, all optional.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int generations=args.length>0 ? Integer.parseInt(args[0]) : 50;
+        int population=args.length>1 ? Integer.parseInt(args[1]) : 100;
+        int seeds=args.length>2 ? Integer.parseInt(args[2]) : 20;
+        int maxTicks=args.length>3 ? Integer.parseInt(args[3]) : 2000;
+        long seed=args.length>4 ? Long.parseLong(args[4]) : System.nanoTime();
+        SnakeTrainer trainer=new SnakeTrainer(population,seeds,maxTicks,Runtime.getRuntime().availableProcessors(),seed);
+        try{
+            for(int g=0;g<generations;g++){
+                double fitness=trainer.evolve();
+                System.out.println("generation "+trainer.getGeneration()+" best "+fitness+" weights "
+                                   +Arrays.toString(trainer.getBestWeights()));
+            }
+        } finally{
+            trainer.shutdown();
+        }
+    }
+}
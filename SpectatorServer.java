@@ -0,0 +1,580 @@
+// Making the spectator server class
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+
+/**
+ * Streams a live game to any number of spectators over TCP from a single
+ * selector thread. The game side only calls publish, which stores the
+ * snapshot and wakes the selector, so spectators can never slow the game.
+ *
+ * Every message is an int length followed by the message. A new spectator
+ * first gets a keyframe:
+ *
+ *   'K', long tick, int rows, int columns, rows*columns content bytes,
+ *   int snakes, then per snake: byte alive, int rgb, int length and length
+ *   (int row, int column) pairs, head first
+ *
+ * and then one message per published snapshot. When the game publishes the
+ * den's change records (see DenChangeLog) for every tick since the previous
+ * snapshot, that message is
+ *
+ *   'C', long tick, the change records of those ticks up to the message end
+ *
+ * and costs only what changed. Otherwise the two snapshots are compared:
+ *
+ *   'D', long tick, int changed cells, (int row*columns+column, byte content)
+ *   per changed cell, int snakes, then per snake a byte saying what follows:
+ *   DEAD or SAME and nothing, MOVED with int new heads, that many (int row,
+ *   int column) pairs oldest first, and int tail segments dropped, or BODY
+ *   with a full body as in the keyframe.
+ *
+ * Each spectator has a bounded output buffer. If a delta does not fit, the
+ * spectator misses deltas until its buffer has drained and then gets a fresh
+ * keyframe. A spectator that stays behind for maxStaleFrames publishes, or
+ * that cannot take a keyframe at all, is disconnected.
+ */
+public class SpectatorServer {
+    /** Snake record: the snake is dead */
+    public static final byte DEAD = 0;
+
+    /** Snake record: the snake did not move */
+    public static final byte SAME = 1;
+
+    /** Snake record: new heads and dropped tail segments */
+    public static final byte MOVED = 2;
+
+    /** Snake record: the whole body */
+    public static final byte BODY = 3;
+
+    private final int bufferSize_;// output buffer per spectator
+    private final int maxStaleFrames_;// publishes a spectator may miss
+    private final Object publishLock_;// guards the four fields below
+    private DenSnapshot published_;// latest from the game
+    private ByteBuffer pending_;// change records since the last broadcast
+    private ByteBuffer spare_;// swapped with pending_ by the selector thread
+    private boolean pendingValid_;// pending_ covers every tick since then
+    private Selector selector_;// the selector
+    private ServerSocketChannel server_;// accepts spectators
+    private Thread thread_;// the selector thread
+    private volatile boolean running_;// cleared by stop()
+    private DenSnapshot sent_;// last snapshot streamed, selector thread only
+    private ByteBuffer keyframe_;// encoded keyframe of keyframeOf_
+    private DenSnapshot keyframeOf_;// snapshot keyframe_ was encoded from
+    private ByteBuffer delta_;// encoded delta to sent_
+    private final ByteBuffer readBuffer_;// what spectators send, thrown away
+    private volatile int spectators_;// spectators connected
+    private volatile long dropped_;// spectators disconnected for being slow
+
+    /**
+     * Per spectator state, attached to its selection key
+     */
+    private static final class Spectator {
+        final ByteBuffer out;// bytes waiting to be sent, in write mode
+        boolean stale;// missed a delta and waits for a keyframe
+        int staleFrames;// publishes missed in a row
+
+        Spectator(int size) {
+            out=ByteBuffer.allocateDirect(size);
+            stale=true;
+        }
+    }
+
+    /**
+     * Constructor for spectator server with 256 KB per spectator that drops
+     * spectators after missing 100 publishes
+     */
+    public SpectatorServer() {
+        this(256*1024,100);
+    }
+
+    /**
+     * Constructor for spectator server
+     * @param1 is the size of each spectator's output buffer in bytes
+     * @param2 is the publishes a spectator may miss before it is dropped
+     */
+    public SpectatorServer(int bufferSize, int maxStaleFrames) {
+        if(bufferSize<64 || maxStaleFrames<1){
+            throw new IllegalArgumentException("buffer must be at least 64 bytes and stale frames positive");
+        }
+        bufferSize_=bufferSize;
+        maxStaleFrames_=maxStaleFrames;
+        publishLock_=new Object();
+        pending_=ByteBuffer.allocate(1024);
+        spare_=ByteBuffer.allocate(1024);
+        pendingValid_=true;
+        keyframe_=ByteBuffer.allocate(1024);
+        delta_=ByteBuffer.allocate(1024);
+        readBuffer_=ByteBuffer.allocate(512);
+    }
+
+    /**
+     * starts listening and streaming
+     * @param1 is the address to listen on, for example loopback port 0
+     */
+    public synchronized void start(InetSocketAddress address) throws IOException {
+        if(running_){
+            throw new IllegalStateException("already started");
+        }
+        selector_=Selector.open();
+        server_=ServerSocketChannel.open();
+        server_.configureBlocking(false);
+        server_.bind(address);
+        server_.register(selector_,SelectionKey.OP_ACCEPT);
+        running_=true;
+        thread_=new Thread(this::run,"spectator-server");
+        thread_.setDaemon(true);
+        thread_.start();
+    }
+
+    /**
+     * getter for the port
+     * @return is the port the server listens on
+     */
+    public int getPort() {
+        return server_.socket().getLocalPort();
+    }
+
+    /**
+     * getter for the number of spectators
+     * @return is the number of spectators connected
+     */
+    public int getSpectatorCount() {
+        return spectators_;
+    }
+
+    /**
+     * getter for the dropped spectators
+     * @return is the number of spectators disconnected for being too slow
+     */
+    public long getDroppedCount() {
+        return dropped_;
+    }
+
+    /**
+     * hands a snapshot to the selector thread. Never blocks; if snapshots come
+     * faster than they are streamed, only the latest is sent.
+     * @param1 is the snapshot
+     */
+    public void publish(DenSnapshot snapshot) {
+        publish(snapshot,null);
+    }
+
+    /**
+     * hands a snapshot and the change records that led to it to the selector
+     * thread. Never blocks. Records from publishes that were not streamed
+     * yet are kept and sent together.
+     * @param1 is the snapshot
+     * @param2 is the records of every tick since the previous publish, or
+     * null if they are not known. Only read during the call.
+     */
+    public void publish(DenSnapshot snapshot, ByteBuffer changes) {
+        synchronized(publishLock_){
+            if(changes==null){
+                pendingValid_=false;
+            }
+            else if(pendingValid_){
+                if(pending_.remaining()<changes.remaining()){
+                    ByteBuffer bigger=ByteBuffer.allocate(Math.max(pending_.capacity()*2,pending_.position()+changes.remaining()));
+                    pending_.flip();
+                    bigger.put(pending_);
+                    pending_=bigger;
+                }
+                int position=changes.position();
+                pending_.put(changes);
+                changes.position(position);
+            }
+            published_=snapshot;
+        }
+        Selector selector=selector_;
+        if(selector!=null){
+            selector.wakeup();
+        }
+    }
+
+    /**
+     * stops the server and disconnects every spectator
+     */
+    public void stop() throws InterruptedException {
+        Thread thread;
+        synchronized(this){
+            running_=false;
+            thread=thread_;
+            thread_=null;
+        }
+        if(thread!=null){
+            selector_.wakeup();
+            thread.join();
+        }
+    }
+
+    /**
+     * body of the selector thread
+     */
+    private void run() {
+        try{
+            while(running_){
+                selector_.select();
+                Iterator<SelectionKey> keys=selector_.selectedKeys().iterator();
+                while(keys.hasNext()){
+                    SelectionKey key=keys.next();
+                    keys.remove();
+                    if(key.isValid()==false){
+                        continue;
+                    }
+                    if(key.isAcceptable()){
+                        accept();
+                    }
+                    else{
+                        if(key.isReadable()){
+                            read(key);
+                        }
+                        if(key.isValid() && key.isWritable()){
+                            flush(key);
+                        }
+                    }
+                }
+                DenSnapshot snapshot;
+                ByteBuffer changes=null;
+                synchronized(publishLock_){
+                    snapshot=published_;
+                    published_=null;
+                    if(snapshot!=null){
+                        if(pendingValid_){
+                            ByteBuffer swap=spare_;
+                            spare_=pending_;
+                            pending_=swap;
+                            changes=spare_;
+                        }
+                        pending_.clear();
+                        pendingValid_=true;
+                    }
+                }
+                if(snapshot!=null){
+                    if(changes!=null){
+                        changes.flip();
+                    }
+                    broadcast(snapshot,changes);
+                }
+            }
+        } catch(IOException e){
+            // the selector itself failed; nothing left to serve
+        } finally{
+            for(SelectionKey key : selector_.keys()){
+                closeQuietly(key);
+            }
+            try{
+                selector_.close();
+            } catch(IOException ignored){}
+            spectators_=0;
+        }
+    }
+
+    /**
+     * accepts a waiting spectator. It gets a keyframe with the next publish,
+     * or at once if something has already been streamed.
+     */
+    private void accept() throws IOException {
+        SocketChannel channel=server_.accept();
+        if(channel==null){
+            return;
+        }
+        channel.configureBlocking(false);
+        channel.socket().setTcpNoDelay(true);
+        Spectator spectator=new Spectator(bufferSize_);
+        SelectionKey key=channel.register(selector_,SelectionKey.OP_READ,spectator);
+        spectators_++;
+        if(sent_!=null){
+            sendKeyframe(key,spectator);
+        }
+    }
+
+    /**
+     * reads and ignores anything a spectator sends, closing it on end of stream
+     */
+    private void read(SelectionKey key) {
+        try{
+            readBuffer_.clear();
+            if(((SocketChannel)key.channel()).read(readBuffer_)<0){
+                close(key);
+            }
+        } catch(IOException e){
+            close(key);
+        }
+    }
+
+    /**
+     * writes as much of a spectator's buffer as the socket takes
+     */
+    private void flush(SelectionKey key) {
+        Spectator spectator=(Spectator)key.attachment();
+        try{
+            spectator.out.flip();
+            ((SocketChannel)key.channel()).write(spectator.out);
+            spectator.out.compact();
+        } catch(IOException e){
+            close(key);
+            return;
+        }
+        if(spectator.out.position()==0){
+            key.interestOps(SelectionKey.OP_READ);
+            if(spectator.stale && sent_!=null){
+                sendKeyframe(key,spectator);
+            }
+        }
+    }
+
+    /**
+     * encodes a snapshot and queues it for every spectator
+     * @param1 is the snapshot
+     * @param2 is the change records since the previous broadcast, or null
+     */
+    private void broadcast(DenSnapshot snapshot, ByteBuffer changes) {
+        DenSnapshot previous=sent_;
+        boolean full=previous==null || previous.getRows()!=snapshot.getRows()
+            || previous.getColumns()!=snapshot.getColumns()
+            || previous.getSnakeCount()!=snapshot.getSnakeCount();
+        sent_=snapshot;
+        if(full==false){
+            delta_=changes!=null ? encodeChanges(snapshot,changes,delta_) : encodeDelta(previous,snapshot,delta_);
+        }
+        for(SelectionKey key : selector_.keys()){
+            if(key.isValid()==false || (key.attachment() instanceof Spectator)==false){
+                continue;
+            }
+            Spectator spectator=(Spectator)key.attachment();
+            if(full){
+                spectator.stale=true;
+            }
+            if(spectator.stale){
+                if(spectator.out.position()==0){
+                    sendKeyframe(key,spectator);
+                }
+                else{
+                    missed(key,spectator);
+                }
+            }
+            else if(spectator.out.remaining()>=delta_.remaining()){
+                spectator.out.put(delta_.duplicate());
+                flush(key);
+                if(key.isValid() && spectator.out.position()>0){
+                    key.interestOps(SelectionKey.OP_READ|SelectionKey.OP_WRITE);
+                }
+            }
+            else{
+                spectator.stale=true;
+                missed(key,spectator);
+            }
+        }
+    }
+
+    /**
+     * counts a missed publish and drops the spectator after too many
+     */
+    private void missed(SelectionKey key, Spectator spectator) {
+        spectator.staleFrames++;
+        if(spectator.staleFrames>maxStaleFrames_){
+            dropped_++;
+            close(key);
+        }
+    }
+
+    /**
+     * queues the current keyframe for a spectator whose buffer is empty
+     */
+    private void sendKeyframe(SelectionKey key, Spectator spectator) {
+        if(keyframeOf_!=sent_){
+            keyframe_=encodeKeyframe(sent_,keyframe_);
+            keyframeOf_=sent_;
+        }
+        if(keyframe_.remaining()>spectator.out.capacity()){
+            // the den is too big for this spectator's buffer
+            dropped_++;
+            close(key);
+            return;
+        }
+        spectator.out.put(keyframe_.duplicate());
+        spectator.stale=false;
+        spectator.staleFrames=0;
+        flush(key);
+        if(key.isValid() && spectator.out.position()>0){
+            key.interestOps(SelectionKey.OP_READ|SelectionKey.OP_WRITE);
+        }
+    }
+
+    /**
+     * encodes a keyframe, growing the buffer if needed
+     * @return is the buffer, flipped for reading
+     */
+    static ByteBuffer encodeKeyframe(DenSnapshot snapshot, ByteBuffer buffer) {
+        int rows=snapshot.getRows();
+        int columns=snapshot.getColumns();
+        int size=4+1+8+4+4+rows*columns+4;
+        for(int s=0;s<snapshot.getSnakeCount();s++){
+            size+=1+4+4+snapshot.getSnakeLength(s)*8;
+        }
+        buffer=ensure(buffer,size);
+        buffer.putInt(size-4);
+        buffer.put((byte)'K');
+        buffer.putLong(snapshot.getTick());
+        buffer.putInt(rows);
+        buffer.putInt(columns);
+        for(int row=0;row<rows;row++){
+            for(int column=0;column<columns;column++){
+                buffer.put((byte)snapshot.getContent(row,column));
+            }
+        }
+        buffer.putInt(snapshot.getSnakeCount());
+        for(int s=0;s<snapshot.getSnakeCount();s++){
+            buffer.put((byte)(snapshot.isSnakeAlive(s) ? 1 : 0));
+            buffer.putInt(snapshot.getSnakeColor(s).getRGB());
+            putBody(buffer,snapshot,s);
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * wraps change records in a message, growing the buffer if needed
+     * @return is the buffer, flipped for reading
+     */
+    static ByteBuffer encodeChanges(DenSnapshot snapshot, ByteBuffer changes, ByteBuffer buffer) {
+        int size=4+1+8+changes.remaining();
+        buffer=ensure(buffer,size);
+        buffer.putInt(size-4);
+        buffer.put((byte)'C');
+        buffer.putLong(snapshot.getTick());
+        buffer.put(changes);
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * encodes the changes from one snapshot to the next, growing the buffer
+     * if needed. Both must have the same size and number of snakes.
+     * @return is the buffer, flipped for reading
+     */
+    static ByteBuffer encodeDelta(DenSnapshot from, DenSnapshot to, ByteBuffer buffer) {
+        int rows=to.getRows();
+        int columns=to.getColumns();
+        int changed=0;
+        for(int row=0;row<rows;row++){
+            for(int column=0;column<columns;column++){
+                if(from.getContent(row,column)!=to.getContent(row,column)){
+                    changed++;
+                }
+            }
+        }
+        int size=4+1+8+4+changed*5+4;
+        for(int s=0;s<to.getSnakeCount();s++){
+            size+=1+4+4+to.getSnakeLength(s)*8;
+        }
+        buffer=ensure(buffer,size);
+        buffer.putInt(0);
+        buffer.put((byte)'D');
+        buffer.putLong(to.getTick());
+        buffer.putInt(changed);
+        for(int row=0;row<rows;row++){
+            for(int column=0;column<columns;column++){
+                if(from.getContent(row,column)!=to.getContent(row,column)){
+                    buffer.putInt(row*columns+column);
+                    buffer.put((byte)to.getContent(row,column));
+                }
+            }
+        }
+        buffer.putInt(to.getSnakeCount());
+        for(int s=0;s<to.getSnakeCount();s++){
+            if(to.isSnakeAlive(s)==false){
+                buffer.put(DEAD);
+                continue;
+            }
+            int heads=newHeads(from,to,s);
+            if(heads==0 && from.getSnakeLength(s)==to.getSnakeLength(s)){
+                buffer.put(SAME);
+            }
+            else if(heads>0){
+                buffer.put(MOVED);
+                buffer.putInt(heads);
+                for(int i=heads-1;i>=0;i--){
+                    buffer.putInt(to.getSegmentRow(s,i));
+                    buffer.putInt(to.getSegmentColumn(s,i));
+                }
+                buffer.putInt(from.getSnakeLength(s)+heads-to.getSnakeLength(s));
+            }
+            else{
+                buffer.put(BODY);
+                putBody(buffer,to,s);
+            }
+        }
+        buffer.putInt(0,buffer.position()-4);
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * finds how many segments were added at the head of a snake
+     * @return is the number of new heads, 0 if it did not move, or -1 if the
+     * bodies do not line up and the whole body must be sent
+     */
+    private static int newHeads(DenSnapshot from, DenSnapshot to, int s) {
+        if(from.isSnakeAlive(s)==false || from.getSnakeLength(s)==0){
+            return -1;
+        }
+        int row=from.getSegmentRow(s,0);
+        int column=from.getSegmentColumn(s,0);
+        for(int i=0;i<to.getSnakeLength(s);i++){
+            if(to.getSegmentRow(s,i)==row && to.getSegmentColumn(s,i)==column){
+                int dropped=from.getSnakeLength(s)+i-to.getSnakeLength(s);
+                return dropped>=0 ? i : -1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * writes int length and the body of a snake, head first
+     */
+    private static void putBody(ByteBuffer buffer, DenSnapshot snapshot, int s) {
+        buffer.putInt(snapshot.getSnakeLength(s));
+        for(int i=0;i<snapshot.getSnakeLength(s);i++){
+            buffer.putInt(snapshot.getSegmentRow(s,i));
+            buffer.putInt(snapshot.getSegmentColumn(s,i));
+        }
+    }
+
+    /**
+     * clears a buffer for writing, replacing it if it is too small
+     */
+    private static ByteBuffer ensure(ByteBuffer buffer, int size) {
+        if(buffer.capacity()<size){
+            return ByteBuffer.allocate(Math.max(size,buffer.capacity()*2));
+        }
+        buffer.clear();
+        return buffer;
+    }
+
+    /**
+     * closes a spectator
+     */
+    private void close(SelectionKey key) {
+        if(key.isValid()==false){
+            return;
+        }
+        if(key.attachment() instanceof Spectator){
+            spectators_--;
+        }
+        closeQuietly(key);
+    }
+
+    private static void closeQuietly(SelectionKey key) {
+        key.cancel();
+        try{
+            key.channel().close();
+        } catch(IOException ignored){}
+    }
+}
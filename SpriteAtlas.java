@@ -0,0 +1,168 @@
+// Making the sprite atlas class
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.GraphicsEnvironment;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+/**
+ * Pre-drawn tiles for den cells and snake segments. Each (shape, color) pair
+ * is drawn once into an image of the screen's format, after which a cell or
+ * segment is painted with a single Paint.drawImage instead of a fillRect or an
+ * anti-aliased fillRoundRect.
+ *
+ * Every tile is sized from the cell size, the distance in pixels between
+ * neighboring cells (20 unless changed). Changing the cell size, or calling
+ * invalidate after changing colors that are drawn, throws away every tile.
+ *
+ * Tiles are kept in small parallel arrays searched in order, since a den only
+ * uses a handful of colors; looking one up allocates nothing.
+ */
+public final class SpriteAtlas {
+    /** Filled rectangle inset in its cell, as used for den cells */
+    public static final int CELL = 0;
+
+    /** Filled rounded rectangle the size of its cell, as used for segments */
+    public static final int SEGMENT = 1;
+
+    /** Rounded rectangle outline the size of its cell, for highlights */
+    public static final int HIGHLIGHT = 2;
+
+    private static final SpriteAtlas DEFAULT = new SpriteAtlas(20);
+
+    private int cellSize_;// distance between cells in pixels
+    private int[] shapes_;// shape of each tile
+    private int[] colors_;// rgb of each tile
+    private BufferedImage[] tiles_;// the tiles
+    private int count_;// number of tiles
+
+    /**
+     * Constructor for sprite atlas
+     * @param1 is the cell size in pixels
+     */
+    public SpriteAtlas(int cellSize) {
+        if(cellSize<4){
+            throw new IllegalArgumentException("cell size must be at least 4");
+        }
+        cellSize_=cellSize;
+        shapes_=new int[8];
+        colors_=new int[8];
+        tiles_=new BufferedImage[8];
+    }
+
+    /**
+     * getter for the atlas used by Den and SnakeSegment
+     * @return is the shared atlas
+     */
+    public static SpriteAtlas getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * getter for the cell size
+     * @return is the distance between cells in pixels
+     */
+    public synchronized int getCellSize() {
+        return cellSize_;
+    }
+
+    /**
+     * setter for the cell size. Throws away every tile if it changes.
+     * @param1 is the distance between cells in pixels
+     */
+    public synchronized void setCellSize(int cellSize) {
+        if(cellSize<4){
+            throw new IllegalArgumentException("cell size must be at least 4");
+        }
+        if(cellSize!=cellSize_){
+            cellSize_=cellSize;
+            invalidate();
+        }
+    }
+
+    /**
+     * getter for the offset of a CELL tile from the corner of its cell
+     * @return is the offset in pixels
+     */
+    public synchronized int getCellInset() {
+        return cellSize_/4;
+    }
+
+    /**
+     * throws away every tile so they are drawn again on next use
+     */
+    public synchronized void invalidate() {
+        for(int i=0;i<count_;i++){
+            tiles_[i]=null;
+        }
+        count_=0;
+    }
+
+    /**
+     * getter for a tile, drawing it the first time it is asked for
+     * @param1 is the shape (CELL, SEGMENT or HIGHLIGHT)
+     * @param2 is the color
+     * @return is the tile
+     */
+    public synchronized BufferedImage tile(int shape, Color color) {
+        int rgb=color.getRGB();
+        for(int i=0;i<count_;i++){
+            if(shapes_[i]==shape && colors_[i]==rgb){
+                return tiles_[i];
+            }
+        }
+        if(count_==tiles_.length){
+            shapes_=Arrays.copyOf(shapes_,count_*2);
+            colors_=Arrays.copyOf(colors_,count_*2);
+            tiles_=Arrays.copyOf(tiles_,count_*2);
+        }
+        BufferedImage tile=render(shape,color);
+        shapes_[count_]=shape;
+        colors_[count_]=rgb;
+        tiles_[count_]=tile;
+        count_++;
+        return tile;
+    }
+
+    /**
+     * draws a tile
+     */
+    private BufferedImage render(int shape, Color color) {
+        int size=cellSize_;
+        int arc=cellSize_*7/10;
+        int width=shape==CELL ? size*3/4 : shape==HIGHLIGHT ? size+1 : size;
+        BufferedImage image=createImage(width,width);
+        Graphics2D g=image.createGraphics();
+        try{
+            g.setColor(color);
+            if(shape==CELL){
+                g.fillRect(0,0,width,width);
+            }
+            else{
+                g.setRenderingHint(RenderingHints.KEY_ANTIALIASING,RenderingHints.VALUE_ANTIALIAS_ON);
+                if(shape==SEGMENT){
+                    g.fillRoundRect(0,0,size,size,arc,arc);
+                }
+                else{
+                    g.drawRoundRect(0,0,size,size,arc,arc);
+                }
+            }
+        } finally{
+            g.dispose();
+        }
+        return image;
+    }
+
+    /**
+     * makes a transparent image in the screen's format if there is a screen
+     */
+    private static BufferedImage createImage(int width, int height) {
+        if(GraphicsEnvironment.isHeadless()==false){
+            return GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice()
+                .getDefaultConfiguration().createCompatibleImage(width,height,Transparency.TRANSLUCENT);
+        }
+        return new BufferedImage(width,height,BufferedImage.TYPE_INT_ARGB);
+    }
+}
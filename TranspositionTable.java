@@ -0,0 +1,138 @@
+// Making the transposition table class
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size table of search results keyed by Zobrist hash, shared by any
+ * number of search threads without locks. Each entry is two longs, the key
+ * XORed with the data and the data, written with plain volatile stores. A
+ * reader only accepts an entry whose two halves XOR back to its key, so an
+ * entry torn by two threads writing at once is seen as a miss rather than as
+ * wrong data.
+ *
+ * Keys map to a bucket of two entries. A store replaces an entry with the
+ * same key, then an entry left over from an older search, then the entry
+ * searched to the smaller depth.
+ *
+ * The data packs a float value, a visit count (16 bits), a depth (8 bits)
+ * and the search age (8 bits) into one long.
+ */
+public final class TranspositionTable {
+    /** Returned by probe when the key is not in the table */
+    public static final long MISS = 0;
+
+    /** Most entries a table may have, two longs each in one array */
+    public static final int MAX_ENTRIES = 1 << 29;
+
+    private final AtomicLongArray slots_;// key^data, data pairs
+    private final int mask_;// bucket index mask
+    private volatile int age_;// age of the current search
+
+    /**
+     * Constructor for transposition table
+     * @param1 is the number of entries, rounded up to a power of two, at
+     * most MAX_ENTRIES
+     */
+    public TranspositionTable(int entries) {
+        if(entries<2 || entries>MAX_ENTRIES){
+            throw new IllegalArgumentException("need 2 to "+MAX_ENTRIES+" entries, not "+entries);
+        }
+        int size=Integer.highestOneBit(entries-1)<<1;
+        int buckets=size/2;
+        slots_=new AtomicLongArray(buckets*4);
+        mask_=buckets-1;
+    }
+
+    /**
+     * starts a new search. Entries from older searches are replaced first.
+     */
+    public void newSearch() {
+        age_=(age_+1)&0xFF;
+    }
+
+    /**
+     * looks up a position
+     * @param1 is the hash of the position
+     * @return is the packed data, or MISS
+     */
+    public long probe(long key) {
+        int slot=bucket(key);
+        for(int i=0;i<2;i++,slot+=2){
+            long data=slots_.get(slot+1);
+            if(data!=MISS && (slots_.get(slot)^data)==key){
+                return data;
+            }
+        }
+        return MISS;
+    }
+
+    /**
+     * stores a result for a position
+     * @param1 is the hash of the position
+     * @param2 is the value of the position
+     * @param3 is the number of visits behind the value, capped at 65535
+     * @param4 is the depth searched, capped at 255
+     */
+    public void store(long key, float value, int visits, int depth) {
+        int age=age_;
+        long data=pack(value,visits,depth,age);
+        int first=bucket(key);
+        int replace=first;
+        int worst=Integer.MAX_VALUE;
+        for(int i=0,slot=first;i<2;i++,slot+=2){
+            long old=slots_.get(slot+1);
+            if(old==MISS || (slots_.get(slot)^old)==key){
+                replace=slot;
+                break;
+            }
+            // older searches first, then shallower entries
+            int score=(ageOf(old)==age ? 256 : 0)+depth(old);
+            if(score<worst){
+                worst=score;
+                replace=slot;
+            }
+        }
+        slots_.set(replace+1,data);
+        slots_.set(replace,key^data);
+    }
+
+    /**
+     * getter for the value in packed data
+     * @return is the value
+     */
+    public static float value(long data) {
+        return Float.intBitsToFloat((int)(data>>>32));
+    }
+
+    /**
+     * getter for the visits in packed data
+     * @return is the visit count
+     */
+    public static int visits(long data) {
+        return (int)(data>>>16)&0xFFFF;
+    }
+
+    /**
+     * getter for the depth in packed data
+     * @return is the depth
+     */
+    public static int depth(long data) {
+        return (int)(data>>>8)&0xFF;
+    }
+
+    private static int ageOf(long data) {
+        return (int)data&0xFF;
+    }
+
+    private static long pack(float value, int visits, int depth, int age) {
+        long data=((long)Float.floatToRawIntBits(value)<<32)
+            |((long)Math.min(visits,0xFFFF)<<16)
+            |((long)Math.min(depth,0xFF)<<8)
+            |age;
+        // MISS means an empty slot, so never store it
+        return data==MISS ? 1L<<16 : data;
+    }
+
+    private int bucket(long key) {
+        return ((int)(key^(key>>>32))&mask_)*4;
+    }
+}
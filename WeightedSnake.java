@@ -0,0 +1,162 @@
+// Making the weighted snake class
+import java.awt.Color;
+
+/**
+ * A snake that scores each direction it can move in with a weighted sum of
+ * features of the cell it would move to and takes the best one. The weights
+ * are what SnakeTrainer evolves. Features are computed into a reused array,
+ * so deciding a move allocates nothing.
+ */
+public class WeightedSnake extends Snake {
+    /** Number of features, and so of weights */
+    public static final int FEATURES = 6;
+
+    /** Hand picked weights for snakes made without any: eat, close in on food, keep room */
+    private static final double[] DEFAULT_WEIGHTS = {0, 2, 1, 0.5, 0.1, 0.2};
+
+    private final double[] weights_;// one weight per feature
+    private final double[] features_;// scratch space for one direction
+    private int lastDirection_;// direction of the previous move
+
+    /**
+     * Constructor for weighted snake with the default weights
+     * @param1 is the row of the head
+     * @param2 is the column of the head
+     * @param3 is the color
+     * @param4 is the length
+     */
+    public WeightedSnake(int row, int column, Color color, int length) {
+        this(row,column,color,length,DEFAULT_WEIGHTS.clone());
+    }
+
+    /**
+     * Constructor for weighted snake
+     * @param1 is the row of the head
+     * @param2 is the column of the head
+     * @param3 is the color
+     * @param4 is the length
+     * @param5 is the weights, FEATURES of them. The array is not copied.
+     */
+    public WeightedSnake(int row, int column, Color color, int length, double[] weights) {
+        super(row,column,color,length);
+        if(weights.length<FEATURES){
+            throw new IllegalArgumentException("need "+FEATURES+" weights, got "+weights.length);
+        }
+        weights_=weights;
+        features_=new double[FEATURES];
+        lastDirection_=Paint.UP;
+    }
+
+    /**
+     * getter for the weights
+     * @return is the weights (not a copy)
+     */
+    public double[] getWeights() {
+        return weights_;
+    }
+
+    /**
+     * picks the direction with the highest score among the ones the snake can
+     * move in. If there are none it keeps going and dies.
+     * @param1 is the den
+     * @return is the direction
+     */
+    public int getNextMove(Den den) {
+        int headRow=getHeadSegment().getRow();
+        int headColumn=getHeadSegment().getColumn();
+        int food=nearestFood(den,headRow,headColumn);
+        int best=lastDirection_;
+        double bestScore=Double.NEGATIVE_INFINITY;
+        for(int direction=Paint.UP;direction<=Paint.RIGHT;direction++){
+            if(canMove(den,direction)==false){
+                continue;
+            }
+            features(den,direction,food);
+            double score=0;
+            for(int i=0;i<FEATURES;i++){
+                score+=weights_[i]*features_[i];
+            }
+            if(score>bestScore){
+                bestScore=score;
+                best=direction;
+            }
+        }
+        lastDirection_=best;
+        return best;
+    }
+
+    /**
+     * fills features_ for moving in a direction
+     * @param1 is the den
+     * @param2 is the direction
+     * @param3 is the nearest food as row*columns+column, or -1 if none
+     */
+    private void features(Den den, int direction, int food) {
+        int row=nextRow(direction);
+        int column=nextColumn(direction);
+        features_[0]=1;
+        features_[1]=den.getContent(row,column)==3 ? 1 : 0;
+        if(food>=0){
+            int foodRow=food/den.getColumns();
+            int foodColumn=food%den.getColumns();
+            int before=Math.abs(getHeadSegment().getRow()-foodRow)+Math.abs(getHeadSegment().getColumn()-foodColumn);
+            int after=Math.abs(row-foodRow)+Math.abs(column-foodColumn);
+            features_[2]=before-after;
+        }
+        else{
+            features_[2]=0;
+        }
+        features_[3]=freeNeighbors(den,row,column)/3.0;
+        features_[4]=direction==lastDirection_ ? 1 : 0;
+        features_[5]=openRun(den,row,column,direction)/(double)Math.max(den.getRows(),den.getColumns());
+    }
+
+    /**
+     * finds the food closest to a cell
+     * @return is the food as row*columns+column, or -1 if there is none
+     */
+    private static int nearestFood(Den den, int row, int column) {
+        int best=-1;
+        int bestDistance=Integer.MAX_VALUE;
+        int columns=den.getColumns();
+        for(long cell=den.findContent(3,0,0);cell>=0;){
+            int r=(int)(cell/columns);
+            int c=(int)(cell%columns);
+            int distance=Math.abs(r-row)+Math.abs(c-column);
+            if(distance<bestDistance){
+                bestDistance=distance;
+                best=(int)cell;
+            }
+            cell=den.findContent(3,r,c+1);
+        }
+        return best;
+    }
+
+    /**
+     * counts the neighbors of a cell a snake could move into
+     */
+    private static int freeNeighbors(Den den, int row, int column) {
+        return (isFree(den,row-1,column) ? 1 : 0)+(isFree(den,row+1,column) ? 1 : 0)
+            +(isFree(den,row,column-1) ? 1 : 0)+(isFree(den,row,column+1) ? 1 : 0);
+    }
+
+    /**
+     * counts the free cells in a straight line past a cell
+     */
+    private static int openRun(Den den, int row, int column, int direction) {
+        int dr=direction==Paint.UP ? -1 : direction==Paint.DOWN ? 1 : 0;
+        int dc=direction==Paint.LEFT ? -1 : direction==Paint.RIGHT ? 1 : 0;
+        int run=0;
+        for(row+=dr, column+=dc;isFree(den,row,column);row+=dr, column+=dc){
+            run++;
+        }
+        return run;
+    }
+
+    /**
+     * checks if a cell is inside the den, not a rock and not a snake
+     */
+    private static boolean isFree(Den den, int row, int column) {
+        return den.withinBound(row,column) && den.getContent(row,column)!=2 && den.isSnakeAt(row,column)==false;
+    }
+}
@@ -0,0 +1,42 @@
+// Making the zobrist class
+/**
+ * Zobrist keys for hashing den positions. Each (cell, content) pair has a
+ * random-looking 64-bit key, and the hash of a position is the XOR of the keys
+ * of its rocks, food, snake segments and snake heads. A change to one cell
+ * changes the hash by XORing out the old key and XORing in the new one, so
+ * hashes are kept up to date in O(1) per change.
+ *
+ * Keys are computed from the row, column and content with a mixing function
+ * rather than looked up in a table, so dens of any size share them and Den,
+ * Snake and GameState all agree on the hash of a position.
+ */
+public final class Zobrist {
+    /** Content code for a snake segment */
+    public static final int BODY = 4;
+
+    /** Content code for the head of a snake, hashed on top of its BODY key */
+    public static final int HEAD = 5;
+
+    /** Content code for the head of the snake a search is for, so searches of different snakes keep apart */
+    public static final int SEARCHER = 6;
+
+    /** Zobrist only has static methods */
+    private Zobrist() {}
+
+    /**
+     * getter for a key. Dirt hashes to 0 so empty cells cost nothing.
+     * @param1 is the row
+     * @param2 is the column
+     * @param3 is the content (1 dirt, 2 rock, 3 food, BODY, HEAD or SEARCHER)
+     * @return is the key
+     */
+    public static long key(int row, int column, int content) {
+        if(content==1){
+            return 0;
+        }
+        long z=row*0x9E3779B97F4A7C15L+column*0xC2B2AE3D27D4EB4FL+content*0x165667B19E3779F9L;
+        z=(z^(z>>>30))*0xBF58476D1CE4E5B9L;
+        z=(z^(z>>>27))*0x94D049BB133111EBL;
+        return z^(z>>>31);
+    }
+}
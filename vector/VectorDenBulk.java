@@ -0,0 +1,52 @@
+// Making the vector den bulk class
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * DenBulk on as many cells at once as the processor's vectors hold, with the
+ * incubating vector API. DenBulk.load makes one when the class is built and
+ * the jdk.incubator.vector module is there at run time. Lowering distances
+ * is a masked store, so only the lanes that got lower are written. The ends
+ * of rows and scan are done by ScalarDenBulk.
+ */
+public class VectorDenBulk extends ScalarDenBulk {
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+    public int count(int[] cells, int from, int to, int value) {
+        int count=0;
+        int i=from;
+        for(int end=from+SPECIES.loopBound(to-from);i<end;i+=SPECIES.length()){
+            count+=IntVector.fromArray(SPECIES,cells,i).compare(VectorOperators.EQ,value).trueCount();
+        }
+        return count+super.count(cells,i,to,value);
+    }
+
+    public int indexOf(int[] cells, int from, int to, int value) {
+        int i=from;
+        for(int end=from+SPECIES.loopBound(to-from);i<end;i+=SPECIES.length()){
+            VectorMask<Integer> found=IntVector.fromArray(SPECIES,cells,i).compare(VectorOperators.EQ,value);
+            if(found.anyTrue()){
+                return i+found.firstTrue();
+            }
+        }
+        return super.indexOf(cells,i,to,value);
+    }
+
+    public boolean relax(int[] distances, int at, int from, int[] cells, int cellsAt, int length) {
+        boolean changed=false;
+        int i=0;
+        for(int end=SPECIES.loopBound(length);i<end;i+=SPECIES.length()){
+            IntVector distance=IntVector.fromArray(SPECIES,distances,at+i);
+            IntVector next=IntVector.fromArray(SPECIES,distances,from+i).add(1);
+            VectorMask<Integer> lower=next.compare(VectorOperators.LT,distance)
+                .and(IntVector.fromArray(SPECIES,cells,cellsAt+i).compare(VectorOperators.NE,2));
+            if(lower.anyTrue()){
+                next.intoArray(distances,at+i,lower);
+                changed=true;
+            }
+        }
+        return super.relax(distances,at+i,from+i,cells,cellsAt+i,length-i) || changed;
+    }
+}